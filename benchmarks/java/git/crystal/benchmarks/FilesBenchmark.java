@@ -0,0 +1,71 @@
+package git.crystal.benchmarks;
+
+import git.crystal.engine.utils.Files;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading text files through our Files, against the JDK reading the same file, so changes to either
+ * of our readers have something to prove themselves against. Run it with the GC profiler to see how much each
+ * of them allocates per line.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilesBenchmark {
+
+    // Roughly the size of a shader, and of a large text asset
+    @Param({ "100", "100000" })
+    public int lines;
+
+    private Path m_file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        m_file = java.nio.file.Files.createTempFile("crystal-bench", ".txt");
+
+        try (BufferedWriter writer = java.nio.file.Files.newBufferedWriter(m_file, StandardCharsets.UTF_8)) {
+            for(int i = 0; i < lines; i++)
+                writer.write(String.format("v %d.000000 %d.500000 -%d.250000%n", i, i % 97, i % 13));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        java.nio.file.Files.deleteIfExists(m_file);
+    }
+
+    @Benchmark
+    public List<String> readAllLines() {
+        return Files.readAllLines(m_file.toString(), false);
+    }
+
+    @Benchmark
+    public String readFileToString() {
+        return Files.readFileToString(m_file.toString(), false);
+    }
+
+    @Benchmark
+    public List<String> jdkReadAllLines() throws IOException {
+        return java.nio.file.Files.readAllLines(m_file, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String jdkReadString() throws IOException {
+        return java.nio.file.Files.readString(m_file, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,52 @@
+package git.crystal.benchmarks;
+
+import org.lwjgl.glfw.GLFWErrorCallback;
+import org.lwjgl.opengl.GL;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.system.MemoryUtil.NULL;
+
+/**
+ * Creates an invisible window so benchmarks that need OpenGL have a context to work with. The context is only
+ * current on the thread that created it, so benchmarks using this should keep their state per thread.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class GLContext {
+
+    private final long m_Window;
+    private final GLFWErrorCallback m_ErrorCallback;
+
+    public GLContext() {
+        m_ErrorCallback = GLFWErrorCallback.createPrint(System.err);
+        glfwSetErrorCallback(m_ErrorCallback);
+
+        if(!glfwInit())
+            throw new IllegalStateException("GLFW failed to initialize, benchmarks that need OpenGL require a display!");
+
+        glfwDefaultWindowHints();
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
+        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
+        glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
+
+        m_Window = glfwCreateWindow(64, 64, "Benchmark", NULL, NULL);
+        if(m_Window == NULL)
+            throw new IllegalStateException("Failed to create a window for our OpenGL context!");
+
+        glfwMakeContextCurrent(m_Window);
+        glfwSwapInterval(0);
+        GL.createCapabilities();
+    }
+
+    public void destroy() {
+        GL.setCapabilities(null);
+        glfwDestroyWindow(m_Window);
+        glfwTerminate();
+        m_ErrorCallback.free();
+    }
+
+}
@@ -0,0 +1,48 @@
+package git.crystal.benchmarks;
+
+import git.crystal.engine.input.KeyboardInput;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * Measures asking KeyboardInput about every key a game would check in a tick. No window is needed, the keys
+ * simply all read as released.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyboardInputBenchmark {
+
+    // The keys our example checks every tick
+    private final int[] m_Keys = {
+            GLFW_KEY_ESCAPE, GLFW_KEY_UP, GLFW_KEY_DOWN, GLFW_KEY_LEFT, GLFW_KEY_RIGHT,
+            GLFW_KEY_W, GLFW_KEY_S, GLFW_KEY_A, GLFW_KEY_D, GLFW_KEY_Q, GLFW_KEY_E, GLFW_KEY_SPACE
+    };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        KeyboardInput.Instance();
+    }
+
+    @Benchmark
+    public int isKeyPressed() {
+        int pressed = 0;
+        for(int key : m_Keys) {
+            if(KeyboardInput.isKeyPressed(key))
+                pressed++;
+        }
+
+        return pressed;
+    }
+
+}
@@ -0,0 +1,94 @@
+package git.crystal.benchmarks;
+
+import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.render.mesh.MeshCache;
+import git.crystal.engine.render.mesh.OBJLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures OBJLoader.loadMesh from start to finish, reading, parsing and uploading to OpenGL, on a small model
+ * within our jar and a huge one on disk. With cached set, the MeshCache is allowed to skip parsing, which is
+ * what every load after the first one would look like in a game.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeshLoadBenchmark {
+
+    private static final String SMALL_MODEL = "/models/cube.obj";
+
+    @Param({ "small", "huge" })
+    public String model;
+
+    @Param({ "false", "true" })
+    public boolean cached;
+
+    @Param({ "64" })
+    public int hugeMegabytes;
+
+    private GLContext m_context;
+    private Path m_cacheDirectory, m_hugeFile;
+
+    private String m_path;
+    private boolean m_internal;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        m_context = new GLContext();
+
+        // Our own cache, so neither a stale cache from a game nor a previous run decides what we measure
+        m_cacheDirectory = java.nio.file.Files.createTempDirectory("crystal-bench-meshes");
+        MeshCache.setDirectory(m_cacheDirectory);
+        MeshCache.setEnabled(cached);
+
+        if(model.equals("huge")) {
+            m_hugeFile = java.nio.file.Files.createTempFile("crystal-bench", ".obj");
+            ObjLoaderParallelBenchmark.ObjGenerator.write(m_hugeFile, (long) hugeMegabytes << 20);
+
+            m_path = m_hugeFile.toString();
+            m_internal = false;
+        } else {
+            m_path = SMALL_MODEL;
+            m_internal = true;
+        }
+
+        // Fills the cache when it's enabled, so every measured load finds it
+        OBJLoader.loadMesh(m_path, m_internal).cleanup();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        m_context.destroy();
+
+        if(m_hugeFile != null)
+            java.nio.file.Files.deleteIfExists(m_hugeFile);
+
+        try (Stream<Path> files = java.nio.file.Files.walk(m_cacheDirectory)) {
+            for(Path file : files.sorted(Comparator.reverseOrder()).toList())
+                java.nio.file.Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public int loadMesh() {
+        Mesh mesh = OBJLoader.loadMesh(m_path, m_internal);
+        int vertices = mesh.getVertexCount();
+        mesh.cleanup();
+
+        return vertices;
+    }
+
+}
@@ -0,0 +1,114 @@
+package git.crystal.benchmarks;
+
+import git.crystal.engine.render.mesh.MeshData;
+import git.crystal.engine.render.mesh.OBJLoader;
+import git.crystal.engine.utils.Files;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a huge OBJ file on 1, 2, 4 and 8 threads. The file is generated once per trial as a
+ * grid of quads with positions, texture coordinates and normals, and is then memory mapped the same way
+ * OBJLoader would map it.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ObjLoaderParallelBenchmark {
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "300" })
+    public int megabytes;
+
+    private Path m_file;
+    private ByteBuffer m_buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        m_file = java.nio.file.Files.createTempFile("crystal-bench", ".obj");
+        ObjGenerator.write(m_file, (long) megabytes << 20);
+
+        m_buffer = Files.readToBuffer(m_file.toString(), false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        m_buffer = null;
+        java.nio.file.Files.deleteIfExists(m_file);
+    }
+
+    @Benchmark
+    public MeshData parse() {
+        return OBJLoader.parse(m_buffer.duplicate(), threads);
+    }
+
+    /**
+     * Writes out OBJ files of roughly any size we ask for.
+     */
+    static class ObjGenerator {
+
+        static void write(Path file, long targetBytes) throws IOException {
+            try (BufferedWriter writer = java.nio.file.Files.newBufferedWriter(file)) {
+                writer.write("# Generated by ObjLoaderParallelBenchmark\n");
+
+                long written = 0;
+                int row = 0;
+                final int columns = 1024;
+
+                // Each row of the grid shares its top edge with the bottom edge of the next one
+                written += writeRow(writer, row++, columns);
+                while(written < targetBytes) {
+                    written += writeRow(writer, row, columns);
+                    written += writeFaces(writer, row, columns);
+                    row++;
+                }
+            }
+        }
+
+        private static long writeRow(BufferedWriter writer, int row, int columns) throws IOException {
+            long written = 0;
+            for(int x = 0; x <= columns; x++) {
+                String line = String.format(Locale.ROOT, "v %.6f %.6f %.6f%nvt %.6f %.6f%nvn 0.0000 1.0000 0.0000%n",
+                        x * 0.5f, (float) Math.sin(x * 0.1f + row * 0.1f), row * 0.5f, x / (float) columns, (row % 1024) / 1024f);
+                writer.write(line);
+                written += line.length();
+            }
+
+            return written;
+        }
+
+        private static long writeFaces(BufferedWriter writer, int row, int columns) throws IOException {
+            long written = 0;
+            int stride = columns + 1;
+            for(int x = 0; x < columns; x++) {
+                int a = (row - 1) * stride + x + 1;
+                int b = a + 1;
+                int c = row * stride + x + 2;
+                int d = c - 1;
+
+                String line = String.format(Locale.ROOT, "f %d/%d/%d %d/%d/%d %d/%d/%d %d/%d/%d%n", a, a, a, b, b, b, c, c, c, d, d, d);
+                writer.write(line);
+                written += line.length();
+            }
+
+            return written;
+        }
+
+    }
+
+}
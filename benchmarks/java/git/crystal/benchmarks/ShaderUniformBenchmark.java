@@ -0,0 +1,77 @@
+package git.crystal.benchmarks;
+
+import git.crystal.engine.render.Shader;
+import git.crystal.engine.render.uniform.UniformInt;
+import git.crystal.engine.render.uniform.UniformMat4;
+import git.crystal.engine.render.uniform.UniformVec3;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares setting uniforms through their name, which goes through the HashMap of our Shader every time,
+ * against setting them through the typed handles that hold on to their location.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShaderUniformBenchmark {
+
+    private GLContext m_context;
+    private Shader m_shader;
+
+    private UniformMat4 m_modelViewMatrix;
+    private UniformVec3 m_color;
+    private UniformInt m_useTexture;
+
+    private final Matrix4f m_Matrix = new Matrix4f().translation(1f, 2f, 3f).rotateY(0.5f);
+    private final Vector3f m_Color = new Vector3f(0.5f, 0.25f, 0.5f);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        m_context = new GLContext();
+
+        m_shader = new Shader("/shaders/uniforms.vert", "/shaders/uniforms.frag");
+        m_shader.create();
+
+        m_shader.createUniform("uModelViewMatrix");
+        m_shader.createUniform("uColor");
+        m_shader.createUniform("uUseTexture");
+
+        m_modelViewMatrix = m_shader.createMat4Uniform("uModelViewMatrix");
+        m_color = m_shader.createVec3Uniform("uColor");
+        m_useTexture = m_shader.createIntUniform("uUseTexture");
+
+        m_shader.bind();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        m_shader.cleanup();
+        m_context.destroy();
+    }
+
+    @Benchmark
+    public void stringPath() {
+        m_shader.setUniform("uModelViewMatrix", m_Matrix);
+        m_shader.setUniform("uColor", m_Color);
+        m_shader.setUniform("uUseTexture", 1);
+    }
+
+    @Benchmark
+    public void handlePath() {
+        m_modelViewMatrix.set(m_Matrix);
+        m_color.set(m_Color);
+        m_useTexture.set(1);
+    }
+
+}
@@ -0,0 +1,88 @@
+package git.crystal.benchmarks;
+
+import git.crystal.engine.GameObject;
+import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.render.mesh.OBJLoader;
+import git.crystal.engine.render.util.Transformation;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the model view matrix of every object in a scene once, the way the Renderer does every
+ * frame. Still objects only multiply with the view matrix, moving ones rebuild their model matrix and bounds
+ * first. Our objects need a Mesh for their bounds, which is why this needs OpenGL at all.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformationBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int objects;
+
+    private GLContext m_context;
+    private Mesh m_mesh;
+    private Transformation m_transformation;
+    private GameObject[] m_objects;
+    private Matrix4f m_viewMatrix;
+
+    private final Matrix4f m_Dest = new Matrix4f();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        m_context = new GLContext();
+        m_mesh = OBJLoader.loadInternalMesh("/models/cube.obj");
+
+        m_transformation = new Transformation();
+        m_viewMatrix = new Matrix4f(m_transformation.getViewMatrix(new Vector3f(0, 2, 10), new Vector3f(15, 30, 0)));
+
+        // Always the same scene, so every run measures the same thing
+        Random random = new Random(17);
+        m_objects = new GameObject[objects];
+        for(int i = 0; i < objects; i++) {
+            m_objects[i] = new GameObject(m_mesh);
+            m_objects[i].setPosition(random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50, random.nextFloat() * -100);
+            m_objects[i].setRotation(random.nextFloat() * 360, random.nextFloat() * 360, random.nextFloat() * 360);
+            m_objects[i].setScale(1 + random.nextFloat(), 1 + random.nextFloat(), 1 + random.nextFloat());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        m_mesh.cleanup();
+        m_context.destroy();
+    }
+
+    @Benchmark
+    public void stillObjects(Blackhole blackhole) {
+        for(GameObject object : m_objects)
+            blackhole.consume(m_transformation.getModelViewMatrix(object, m_viewMatrix));
+    }
+
+    @Benchmark
+    public void stillObjectsIntoDest(Blackhole blackhole) {
+        for(GameObject object : m_objects)
+            blackhole.consume(m_transformation.getModelViewMatrix(object, m_viewMatrix, m_Dest));
+    }
+
+    @Benchmark
+    public void movingObjects(Blackhole blackhole) {
+        for(GameObject object : m_objects) {
+            object.moveRotation(0, 1, 0);
+            blackhole.consume(m_transformation.getModelViewMatrix(object, m_viewMatrix));
+        }
+    }
+
+}
@@ -0,0 +1,12 @@
+#version 330 core
+
+in vec3 fColor;
+
+uniform int uUseTexture;
+
+out vec4 oColor;
+
+void main()
+{
+    oColor = vec4(fColor * float(uUseTexture), 1.0);
+}
\ No newline at end of file
@@ -1,15 +1,15 @@
 #version 330 core
 
 layout (location=0) in vec3 aPosition;
-layout (location=1) in vec2 aTextureCoords;
 
 uniform mat4 uModelViewMatrix;
 uniform mat4 uProjectionMatrix;
+uniform vec3 uColor;
 
-out vec2 fTextureCoords;
+out vec3 fColor;
 
 void main()
 {
     gl_Position = uProjectionMatrix * uModelViewMatrix * vec4(aPosition, 1.0);
-    fTextureCoords = aTextureCoords;
+    fColor = uColor;
 }
\ No newline at end of file
@@ -0,0 +1,277 @@
+package git.crystal.engine;
+
+import git.crystal.engine.render.Renderer;
+import git.crystal.engine.render.ui.Window;
+import git.crystal.engine.utils.Profiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Runs a game for a fixed number of frames as fast as it can, and writes out how that went as JSON. With a
+ * Benchmark set, {@link CrystalEngine} renders into a window that is never shown, without vsync or any sleeping,
+ * ticks exactly once per frame so every run simulates the same thing, and quits once we're done.
+ *
+ * The report holds frame time percentiles, draw calls and visible objects per frame, how many bytes the thread
+ * that renders allocated and how often the GC ran, and the stats of every Profiler scope. Warmup frames run
+ * first and are left out, so class loading, shader compilation and the JIT don't end up in the numbers.
+ *
+ * On a machine without a display, set {@link Window.Settings#contextApi} to GLFW_EGL_CONTEXT_API (Mesa
+ * surfaceless) or GLFW_OSMESA_CONTEXT_API before {@link #configure(Window.Settings)}.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class Benchmark {
+
+    public static final int DEFAULT_WARMUP_FRAMES = 120;
+
+    private final int m_Frames;
+    private final Path m_ReportPath;
+    private final long[] m_FrameNanos;
+    private final long[] m_DrawCalls;
+
+    private int m_warmupFrames;
+    private int m_frame;
+    private long m_frameStart, m_drawCallsBefore;
+
+    // What the JVM had allocated and collected when we started measuring
+    private long m_startNanos, m_startAllocated, m_startGcCount, m_startGcMillis;
+    private long m_endNanos, m_endAllocated, m_endGcCount, m_endGcMillis;
+    private String m_renderer, m_version;
+
+    /**
+     * @param frames how many frames to measure, not counting warmup frames
+     * @param reportPath where to write the report once we're done
+     */
+    public Benchmark(int frames, Path reportPath) {
+        m_Frames = Math.max(frames, 1);
+        m_ReportPath = reportPath;
+        m_FrameNanos = new long[m_Frames];
+        m_DrawCalls = new long[m_Frames];
+        m_warmupFrames = DEFAULT_WARMUP_FRAMES;
+    }
+
+    /**
+     * Sets up a window the way a benchmark needs it: never shown, without vsync and rendering on the same thread
+     * as everything else.
+     */
+    public void configure(Window.Settings settings) {
+        settings.headless = true;
+        settings.useVSync = false;
+        settings.fullscreen = false;
+        settings.threadedRendering = false;
+    }
+
+    /**
+     * Call this right before every frame, on the thread that renders.
+     */
+    public void beginFrame() {
+        // Everything before this was warming up
+        if(m_frame == m_warmupFrames)
+            start();
+
+        m_drawCallsBefore = Profiler.Instance().getCount(Renderer.DRAW_CALLS);
+        m_frameStart = System.nanoTime();
+    }
+
+    /**
+     * Call this right after every frame, once it's swapped.
+     */
+    public void endFrame() {
+        long frameNanos = System.nanoTime() - m_frameStart;
+
+        int measured = m_frame - m_warmupFrames;
+        if(measured >= 0 && measured < m_Frames) {
+            m_FrameNanos[measured] = frameNanos;
+            m_DrawCalls[measured] = Profiler.Instance().getCount(Renderer.DRAW_CALLS) - m_drawCallsBefore;
+        }
+
+        m_frame++;
+        if(isDone() && m_endNanos == 0)
+            stop();
+    }
+
+    public boolean isDone() {
+        return m_frame >= m_warmupFrames + m_Frames;
+    }
+
+    private void start() {
+        // Shaders and uploads from warming up shouldn't count
+        Profiler.Instance().reset();
+
+        m_renderer = glGetString(GL_RENDERER);
+        m_version = glGetString(GL_VERSION);
+
+        m_startNanos = System.nanoTime();
+        m_startAllocated = getAllocatedBytes();
+        m_startGcCount = getGcCount();
+        m_startGcMillis = getGcMillis();
+    }
+
+    private void stop() {
+        // Everything we issued should be done before we call it, the last frames would look cheaper otherwise
+        glFinish();
+
+        m_endNanos = System.nanoTime();
+        m_endAllocated = getAllocatedBytes();
+        m_endGcCount = getGcCount();
+        m_endGcMillis = getGcMillis();
+    }
+
+    /**
+     * Writes our report to the path we were given, and says where on System.err like everything else we report.
+     * Failing to write is not fatal, the report is printed instead.
+     */
+    public void writeReport() {
+        String report = getReport();
+
+        try {
+            if(m_ReportPath.getParent() != null)
+                Files.createDirectories(m_ReportPath.getParent());
+
+            try (Writer writer = Files.newBufferedWriter(m_ReportPath, StandardCharsets.UTF_8)) {
+                writer.write(report);
+            }
+
+            System.err.printf("Benchmark report written to [%s]%n", m_ReportPath);
+        } catch (IOException e) {
+            System.err.printf("Failed to write benchmark report [%s]: %s%n%s", m_ReportPath, e.getMessage(), report);
+        }
+    }
+
+    /**
+     * @return our report as JSON, only complete once we're done
+     */
+    public String getReport() {
+        int frames = Math.min(Math.max(m_frame - m_warmupFrames, 0), m_Frames);
+        long[] sorted = Arrays.copyOf(m_FrameNanos, frames);
+        Arrays.sort(sorted);
+
+        long totalDrawCalls = 0, maxDrawCalls = 0;
+        for(int i = 0; i < frames; i++) {
+            totalDrawCalls += m_DrawCalls[i];
+            maxDrawCalls = Math.max(maxDrawCalls, m_DrawCalls[i]);
+        }
+
+        Profiler profiler = Profiler.Instance();
+        double seconds = (m_endNanos - m_startNanos) / 1e9;
+        long allocated = m_endAllocated - m_startAllocated;
+
+        StringBuilder json = new StringBuilder("{\n");
+        json.append(String.format(Locale.ROOT, "  \"renderer\": \"%s\",%n", escape(m_renderer)));
+        json.append(String.format(Locale.ROOT, "  \"version\": \"%s\",%n", escape(m_version)));
+        json.append(String.format(Locale.ROOT, "  \"frames\": %d,%n  \"warmupFrames\": %d,%n  \"seconds\": %.3f,%n", frames, m_warmupFrames, seconds));
+        json.append(String.format(Locale.ROOT, "  \"fps\": %.2f,%n", seconds > 0 ? frames / seconds : 0.0));
+
+        json.append(String.format(Locale.ROOT, "  \"frameTimeMs\": {\"min\": %.4f, \"avg\": %.4f, \"p50\": %.4f, \"p90\": %.4f, \"p95\": %.4f, \"p99\": %.4f, \"max\": %.4f},%n",
+                percentile(sorted, 0.0), average(sorted), percentile(sorted, 0.5), percentile(sorted, 0.9),
+                percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0)));
+
+        json.append(String.format(Locale.ROOT, "  \"drawCalls\": {\"total\": %d, \"perFrame\": %.2f, \"max\": %d},%n",
+                totalDrawCalls, frames > 0 ? (double) totalDrawCalls / frames : 0.0, maxDrawCalls));
+        json.append(String.format(Locale.ROOT, "  \"visibleObjectsPerFrame\": %.2f,%n  \"culledObjectsPerFrame\": %.2f,%n",
+                perFrame(profiler.getCount(Renderer.VISIBLE_OBJECTS), frames), perFrame(profiler.getCount(Renderer.CULLED_OBJECTS), frames)));
+
+        json.append(String.format(Locale.ROOT, "  \"allocation\": {\"bytes\": %d, \"bytesPerFrame\": %.1f, \"mbPerSecond\": %.3f},%n",
+                allocated, perFrame(allocated, frames), seconds > 0 ? allocated / seconds / (1024.0 * 1024.0) : 0.0));
+        json.append(String.format(Locale.ROOT, "  \"gc\": {\"count\": %d, \"timeMs\": %d},%n", m_endGcCount - m_startGcCount, m_endGcMillis - m_startGcMillis));
+
+        json.append("  \"scopes\": {");
+        String separator = "\n";
+        for(Map.Entry<String, Profiler.Stats> scope : profiler.getAllStats().entrySet()) {
+            Profiler.Stats stats = scope.getValue();
+            json.append(separator).append(String.format(Locale.ROOT, "    \"%s\": {\"min\": %.4f, \"avg\": %.4f, \"p99\": %.4f, \"max\": %.4f}",
+                    escape(scope.getKey()), stats.getMin(), stats.getAverage(), stats.getP99(), stats.getMax()));
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+
+        return json.toString();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if(sorted.length == 0)
+            return 0.0;
+
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.min(Math.max(index, 0), sorted.length - 1)] / 1e6;
+    }
+
+    private static double average(long[] values) {
+        if(values.length == 0)
+            return 0.0;
+
+        long sum = 0;
+        for(long value : values)
+            sum += value;
+
+        return sum / 1e6 / values.length;
+    }
+
+    private static double perFrame(long total, int frames) {
+        return frames > 0 ? (double) total / frames : 0.0;
+    }
+
+    /**
+     * Only counts the thread we're called on, the one that updates and renders. Summing every thread alive would
+     * lose whatever threads that finish in between had allocated, and count threads that started in between
+     * from their very first byte.
+     *
+     * @return how many bytes this thread has allocated so far, or 0 if the JVM can't tell us
+     */
+    private static long getAllocatedBytes() {
+        if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) || !threads.isThreadAllocatedMemorySupported())
+            return 0;
+
+        return Math.max(threads.getCurrentThreadAllocatedBytes(), 0);
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(collector.getCollectionCount(), 0);
+
+        return count;
+    }
+
+    private static long getGcMillis() {
+        long millis = 0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(collector.getCollectionTime(), 0);
+
+        return millis;
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    public void setWarmupFrames(int warmupFrames) {
+        m_warmupFrames = Math.max(warmupFrames, 0);
+    }
+
+    public int getWarmupFrames() {
+        return m_warmupFrames;
+    }
+
+    public int getFrames() {
+        return m_Frames;
+    }
+
+    public Path getReportPath() {
+        return m_ReportPath;
+    }
+
+}
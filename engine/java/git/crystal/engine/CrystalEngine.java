@@ -1,16 +1,25 @@
 package git.crystal.engine;
 
+import git.crystal.engine.assets.AssetManager;
+import git.crystal.engine.assets.ResourceCache;
+import git.crystal.engine.ecs.SystemScheduler;
 import git.crystal.engine.input.KeyboardInput;
 import git.crystal.engine.input.MouseInput;
+import git.crystal.engine.render.RenderSnapshot;
+import git.crystal.engine.render.ShaderVariants;
+import git.crystal.engine.render.SnapshotBuffer;
 import git.crystal.engine.render.ui.Window;
+import git.crystal.engine.utils.Profiler;
 import git.crystal.engine.utils.Timer;
 import org.lwjgl.glfw.GLFWErrorCallback;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static org.lwjgl.glfw.GLFW.glfwSetErrorCallback;
 import static org.lwjgl.glfw.GLFW.glfwTerminate;
+import static org.lwjgl.opengl.GL.createCapabilities;
 import static org.lwjgl.opengl.GL11.*;
 
 /**
@@ -20,6 +29,16 @@ import static org.lwjgl.opengl.GL11.*;
  *
  * It's important to know that this Engine operates with a Fixed Time Loop
  *
+ * With Window.Settings.threadedRendering turned on, rendering moves to a "Render_Thread" of its own. The update
+ * thread keeps ticking at a fixed rate and publishes a RenderSnapshot after every tick, which the render thread
+ * draws blended between the last two. A slow swap or a vsync wait then never holds up our simulation.
+ *
+ * Every phase of a frame, updating, uploading assets, rendering, swapping and syncing, is measured by the
+ * Profiler, rendering and uploads on the GPU as well.
+ *
+ * With a Benchmark set, we run headless for a fixed number of frames as fast as we can and write a report once
+ * done, see {@link Benchmark}.
+ *
  * @author Tahnner Shambaugh (ArcaneSunku)
  * @date 4/16/2022
  */
@@ -31,11 +50,18 @@ public class CrystalEngine implements Runnable {
 
     private final Timer m_Timer;
     private final Window m_Window;
+    private final Profiler m_Profiler;
 
     private IGame m_game;
     private Thread m_gameThread;
     private GLFWErrorCallback m_errorCallback;
 
+    private Thread m_renderThread;
+    private SnapshotBuffer m_snapshots;
+    private final AtomicInteger m_RenderedFrames;
+    private SystemScheduler m_scheduler;
+    private Benchmark m_benchmark;
+
     private volatile boolean mv_running;
 
     /**
@@ -56,6 +82,8 @@ public class CrystalEngine implements Runnable {
         m_Window.setSettings(settings);
 
         m_Timer = new Timer();
+        m_Profiler = Profiler.Instance();
+        m_RenderedFrames = new AtomicInteger();
         mv_running = false;
     }
 
@@ -113,6 +141,20 @@ public class CrystalEngine implements Runnable {
     }
 
     private void gameLoop() {
+        if(m_benchmark != null) {
+            benchmarkLoop();
+            return;
+        }
+
+        if(m_Window.getSettings().threadedRendering) {
+            if(supportsSnapshots()) {
+                threadedLoop();
+                return;
+            }
+
+            System.err.println("The game doesn't implement IGame.snapshot, falling back to rendering on the update thread!");
+        }
+
         // Set up variables for our Fixed Time Loop
         float delta, alpha;
         float accumulator = 0f;
@@ -120,6 +162,7 @@ public class CrystalEngine implements Runnable {
         boolean shouldRender = true;
 
         while(mv_running) {
+            m_Profiler.beginFrame();
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
             if(m_Window.shouldClose()) {
                 mv_running = false;
@@ -129,7 +172,10 @@ public class CrystalEngine implements Runnable {
             accumulator += delta;
 
             while(accumulator >= interval) {
+                m_Profiler.begin("update");
                 update(interval);
+                m_Profiler.end();
+
                 m_Timer.updateUPS();
                 accumulator -= interval;
                 shouldRender = true;
@@ -146,35 +192,261 @@ public class CrystalEngine implements Runnable {
             m_Timer.update();
 
             if(m_Timer.getTimerCount() >= 100) {
-                String newTitle = String.format("%s | FPS: %d, UPS: %d", Window.Instance().getSettings().title, m_Timer.getFPS(), m_Timer.getUPS());
-                Window.Instance().updateDisplayTitle(newTitle);
+                updateTitle();
                 m_Timer.resetTimer();
             }
 
             // Always update our window so we can utilize Double Buffering
+            m_Profiler.begin("swap");
             m_Window.update();
+            m_Profiler.end();
 
-            if(!m_Window.getSettings().useVSync)
+            if(!m_Window.getSettings().useVSync) {
+                m_Profiler.begin("sync");
                 sync();
+                m_Profiler.end();
+            }
 
+            m_Profiler.endFrame();
         }
     }
 
+    /**
+     * Our loop when rendering happens on its own thread. All that's left for us is handling events, ticking our
+     * simulation and publishing what it looks like after every tick.
+     */
+    private void threadedLoop() {
+        float delta;
+        float accumulator = 0f;
+        float interval = 1f / TARGET_UPS;
+
+        m_snapshots = new SnapshotBuffer();
+        publishSnapshot();
+
+        // A context can only be current on one thread at a time, so we hand ours over
+        m_Window.makeContextCurrent(false);
+        m_renderThread = new Thread(this::renderLoop, "Render_Thread");
+        m_renderThread.start();
+
+        while(mv_running) {
+            m_Window.pollEvents();
+            if(m_Window.shouldClose()) {
+                mv_running = false;
+            }
+
+            delta = m_Timer.getDelta();
+            accumulator += delta;
+
+            while(accumulator >= interval) {
+                m_Profiler.begin("update");
+                update(interval);
+                publishSnapshot();
+                m_Profiler.end();
+
+                m_Timer.updateUPS();
+                accumulator -= interval;
+            }
+
+            m_Timer.updateFPS(m_RenderedFrames.getAndSet(0));
+            m_Timer.update();
+
+            if(m_Timer.getTimerCount() >= 100) {
+                updateTitle();
+                m_Timer.resetTimer();
+            }
+
+            // Sleep until our next tick is due, there is nothing else for this thread to do
+            long sleepMillis = (long) ((interval - accumulator) * 1000f);
+            if(sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Logger.getLogger(CrystalEngine.class.getName()).log(Level.SEVERE, null, e);
+                }
+            }
+        }
+
+        try {
+            m_renderThread.join();
+        } catch (InterruptedException e) {
+            Logger.getLogger(CrystalEngine.class.getName()).log(Level.SEVERE, null, e);
+        }
+
+        // Take our context back, our game still needs it to dispose of everything
+        m_Window.makeContextCurrent(true);
+        createCapabilities();
+    }
+
+    private void renderLoop() {
+        m_Window.makeContextCurrent(true);
+        createCapabilities();
+
+        float interval = 1f / TARGET_UPS;
+        double lastFrame = m_Timer.getTime();
+
+        while(mv_running) {
+            if(!m_snapshots.acquire()) {
+                Thread.yield();
+                continue;
+            }
+
+            m_Profiler.beginFrame();
+            RenderSnapshot current = m_snapshots.getCurrent();
+            float alpha = (float) ((m_Timer.getTime() - current.getTime()) / interval);
+
+            m_Window.updateViewport();
+            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+            processUploads();
+
+            m_Profiler.beginGpu("render");
+            m_game.render(m_snapshots.getPrevious(), current, Math.min(Math.max(alpha, 0f), 1f));
+            m_Profiler.end();
+
+            m_Profiler.begin("swap");
+            m_Window.swapBuffers();
+            m_Profiler.end();
+            m_RenderedFrames.incrementAndGet();
+
+            if(!m_Window.getSettings().useVSync) {
+                m_Profiler.begin("sync");
+                lastFrame = syncFrame(lastFrame);
+                m_Profiler.end();
+            }
+
+            m_Profiler.endFrame();
+        }
+
+        m_Window.makeContextCurrent(false);
+    }
+
+    private void publishSnapshot() {
+        m_game.snapshot(m_snapshots.beginWrite());
+        m_snapshots.publish(m_Timer.getTime());
+    }
+
+    /**
+     * @return whether our game fills in snapshots, without which the render thread would have nothing to draw
+     */
+    private boolean supportsSnapshots() {
+        try {
+            return m_game.getClass().getMethod("snapshot", RenderSnapshot.class).getDeclaringClass() != IGame.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Our loop while benchmarking. Every frame ticks exactly once with a fixed delta and renders right after it,
+     * without syncing to anything, so every run does the same work and only how long it took can differ.
+     */
+    private void benchmarkLoop() {
+        float interval = 1f / TARGET_UPS;
+
+        while(mv_running && !m_benchmark.isDone()) {
+            m_benchmark.beginFrame();
+            m_Profiler.beginFrame();
+            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+
+            m_Profiler.begin("update");
+            update(interval);
+            m_Profiler.end();
+
+            render(1f);
+
+            m_Profiler.begin("swap");
+            m_Window.update();
+            m_Profiler.end();
+
+            m_Profiler.endFrame();
+            m_benchmark.endFrame();
+
+            if(m_Window.shouldClose())
+                mv_running = false;
+        }
+
+        m_benchmark.writeReport();
+    }
+
     private void update(float deltaTime) {
         MouseInput.Instance().update();
         m_game.update(deltaTime);
+
+        // Our systems finish within the tick, so rendering never sees a half updated world
+        if(m_scheduler != null)
+            m_scheduler.update(deltaTime);
+
         m_Timer.updateTimerCount();
     }
 
     private void render(float alpha) {
+        m_Window.updateViewport();
+
+        // Finish whatever assets were loaded in the background before the game draws
+        processUploads();
+
+        m_Profiler.beginGpu("render");
         m_game.render(alpha);
+        m_Profiler.end();
+    }
+
+    private void processUploads() {
+        m_Profiler.beginGpu("uploads");
+        AssetManager.Instance().processUploads();
+        // Finishes the Shaders the driver compiled in the meantime, without waiting on the ones it didn't
+        ShaderVariants.pollAll();
+        m_Profiler.end();
+    }
+
+    private void updateTitle() {
+        Profiler.Stats frame = m_Profiler.getStats(Profiler.FRAME);
+        double frameMillis = frame == null ? 0.0 : frame.getAverage();
+
+        String newTitle = String.format("%s | FPS: %d, UPS: %d, Frame: %.2f ms", m_Window.getSettings().title, m_Timer.getFPS(), m_Timer.getUPS(), frameMillis);
+        m_Window.updateDisplayTitle(newTitle);
     }
 
     private void dispose() {
         m_game.dispose();
+
+        if(m_scheduler != null)
+            m_scheduler.cleanup();
+
+        AssetManager.Instance().cleanup();
+        ResourceCache.Instance().cleanup();
+        m_Profiler.cleanup();
         stop();
     }
 
+    /**
+     * Lets the engine run a SystemScheduler every fixed tick, right after the update of our game.
+     *
+     * @param scheduler the scheduler to run, or null to stop running one
+     */
+    public void setSystemScheduler(SystemScheduler scheduler) {
+        m_scheduler = scheduler;
+    }
+
+    public SystemScheduler getSystemScheduler() {
+        return m_scheduler;
+    }
+
+    /**
+     * Makes the engine run a benchmark instead of the game loop. This has to happen before {@link #start(IGame)},
+     * as it changes how our window is created.
+     *
+     * @param benchmark the benchmark to run, or null to run normally
+     */
+    public void setBenchmark(Benchmark benchmark) {
+        m_benchmark = benchmark;
+
+        if(benchmark != null)
+            benchmark.configure(m_Window.getSettings());
+    }
+
+    public Benchmark getBenchmark() {
+        return m_benchmark;
+    }
+
     @Override
     public void run() {
         initialize();
@@ -182,6 +454,29 @@ public class CrystalEngine implements Runnable {
         dispose();
     }
 
+    /**
+     * Holds the render thread back to our target frame rate.
+     *
+     * @param lastFrame the time our last frame finished at
+     * @return the time this frame finished at
+     */
+    private double syncFrame(double lastFrame) {
+        double targetTime = 1.0 / CrystalEngine.TARGET_FPS;
+        double now = m_Timer.getTime();
+
+        while(now - lastFrame < targetTime) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Logger.getLogger(CrystalEngine.class.getName()).log(Level.SEVERE, null, e);
+            }
+
+            now = m_Timer.getTime();
+        }
+
+        return now;
+    }
+
     private void sync() {
         double lastLoopTime = m_Timer.lastLoopTime();
         double now = m_Timer.getTime();
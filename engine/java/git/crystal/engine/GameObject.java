@@ -1,7 +1,11 @@
 package git.crystal.engine;
 
 import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.render.util.BoundingVolume;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
 import org.joml.Vector3f;
+import org.joml.Vector3fc;
 
 /**
  * Replace with description for GameObject
@@ -15,9 +19,20 @@ public class GameObject {
     private final Mesh m_Mesh;
     private final Vector3f m_Position, m_Scale, m_Rotation;
 
+    // Only rebuilt when one of our setters changed something since the last time they were asked for
+    private final Matrix4f m_ModelMatrix;
+    private final BoundingVolume m_WorldBounds;
+    private boolean m_dirty;
+    // Goes up every time our transform changes, for anyone who caches something built from it
+    private int m_version;
+
     public GameObject(Mesh mesh) {
         m_Mesh = mesh;
 
+        m_ModelMatrix = new Matrix4f();
+        m_WorldBounds = new BoundingVolume();
+        m_dirty = true;
+
         m_Position = new Vector3f();
         m_Rotation = new Vector3f();
 
@@ -28,46 +43,114 @@ public class GameObject {
         m_Position.x = x;
         m_Position.y = y;
         m_Position.z = z;
+        markDirty();
     }
 
     public void setScale(float scaleX, float scaleY, float scaleZ) {
         m_Scale.x = scaleX;
         m_Scale.y = scaleY;
         m_Scale.z = scaleZ;
+        markDirty();
     }
 
     public void setRotation(float rotateX, float rotateY, float rotateZ) {
         m_Rotation.x = rotateX;
         m_Rotation.y = rotateY;
         m_Rotation.z = rotateZ;
+        markDirty();
     }
 
-    public void setPosition(Vector3f position) {
+    public void setPosition(Vector3fc position) {
         setPosition(position.x(), position.y(), position.z());
     }
 
-    public void setScale(Vector3f scale) {
+    public void setScale(Vector3fc scale) {
         setScale(scale.x(), scale.y(), scale.z());
     }
 
-    public void setRotation(Vector3f rotation) {
+    public void setRotation(Vector3fc rotation) {
         setRotation(rotation.x(), rotation.y(), rotation.z());
     }
 
-    public Vector3f getPosition() {
+    public void movePosition(float xOffs, float yOffs, float zOffs) {
+        setPosition(m_Position.x + xOffs, m_Position.y + yOffs, m_Position.z + zOffs);
+    }
+
+    public void moveRotation(float xOffs, float yOffs, float zOffs) {
+        setRotation(m_Rotation.x + xOffs, m_Rotation.y + yOffs, m_Rotation.z + zOffs);
+    }
+
+    /**
+     * Our transform is read-only from the outside, change it through our setters so the model matrix
+     * knows it has to be rebuilt.
+     */
+    public Vector3fc getPosition() {
         return m_Position;
     }
 
-    public Vector3f getScale() {
+    public Vector3fc getScale() {
         return m_Scale;
     }
 
-    public Vector3f getRotation() {
+    public Vector3fc getRotation() {
         return m_Rotation;
     }
 
+    /**
+     * The matrix that takes our Mesh from its own local space into the world, built from our position,
+     * rotation and scale. It is cached, so asking for it while we don't move costs nothing.
+     *
+     * @return the model matrix of this GameObject
+     */
+    public Matrix4fc getModelMatrix() {
+        if(m_dirty)
+            rebuild();
+
+        return m_ModelMatrix;
+    }
+
+    /**
+     * @return the bounds of our Mesh once we've moved, rotated and scaled it into the world
+     */
+    public BoundingVolume getWorldBounds() {
+        if(m_dirty)
+            rebuild();
+
+        return m_WorldBounds;
+    }
+
+    /**
+     * @return whether our transform changed since our model matrix was last built
+     */
+    public boolean isDirty() {
+        return m_dirty;
+    }
+
+    /**
+     * @return a number that changes every time our transform does
+     */
+    public int getVersion() {
+        return m_version;
+    }
+
     public Mesh getMesh() {
         return m_Mesh;
     }
 
+    private void markDirty() {
+        m_dirty = true;
+        m_version++;
+    }
+
+    private void rebuild() {
+        m_ModelMatrix.translation(m_Position)
+                .rotateX((float) Math.toRadians(-m_Rotation.x()))
+                .rotateY((float) Math.toRadians(-m_Rotation.y()))
+                .rotateZ((float) Math.toRadians(-m_Rotation.z()))
+                .scale(m_Scale);
+
+        m_Mesh.getBounds().transform(m_ModelMatrix, m_WorldBounds);
+        m_dirty = false;
+    }
+
 }
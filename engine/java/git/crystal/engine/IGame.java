@@ -1,5 +1,7 @@
 package git.crystal.engine;
 
+import git.crystal.engine.render.RenderSnapshot;
+
 /**
  * A simple interface that lets us inject our custom logic into our Game Engine.
  * This gives us the necessary control we need to create a game.
@@ -31,6 +33,28 @@ public interface IGame {
      */
     void render(float alpha);
 
+    /**
+     * Only used when rendering on its own thread, see Window.Settings.threadedRendering. This is called on the
+     * update thread right after every update, fill the snapshot in with everything the renderer should draw.
+     * Anything you put in here is what the render thread sees, it must not touch your game directly.
+     *
+     * @param snapshot an empty snapshot to fill in
+     */
+    default void snapshot(RenderSnapshot snapshot) {
+    }
+
+    /**
+     * Only used when rendering on its own thread, in place of {@link #render(float)}. This is called on the render
+     * thread, which is the only thread allowed to use OpenGL while the game runs.
+     *
+     * @param previous the snapshot of the tick before current, may be null
+     * @param current the snapshot of the latest tick
+     * @param alpha how far we are from previous to current, from 0 to 1
+     */
+    default void render(RenderSnapshot previous, RenderSnapshot current, float alpha) {
+        render(alpha);
+    }
+
     /**
      * This method is meant to handle disposing everything for your personal project. Implementing this will have everything in your
      * project disposed before our systems and everything shut down.
@@ -0,0 +1,377 @@
+package git.crystal.engine.assets;
+
+import git.crystal.engine.render.ImageData;
+import git.crystal.engine.render.Shader;
+import git.crystal.engine.render.Texture;
+import git.crystal.engine.render.TextureCache;
+import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.render.mesh.MeshCache;
+import git.crystal.engine.render.mesh.MeshData;
+import git.crystal.engine.render.mesh.OBJLoader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads our assets without freezing the game. Every load returns a future right away, reading the file,
+ * decoding images and parsing models happens on a pool of background threads. What's left after that is
+ * handing the data over to OpenGL, which has to happen on the thread that renders.
+ *
+ * That thread calls {@link #processUploads()} once per frame, which uploads finished assets until it runs out
+ * of its budget of time or bytes for the frame. A single upload that is larger than the whole budget still goes
+ * through on its own, so nothing ever gets stuck in the queue.
+ *
+ * Futures are completed on the render thread. If your game updates on a different thread, check them with
+ * isDone or getNow instead of attaching callbacks that touch the game.
+ *
+ * Every load hands back a copy of its own that belongs to whoever asked for it, asking for the same file twice
+ * loads it twice. To share one copy, and to never load the same file twice at once, go through the async loads
+ * of the {@link ResourceCache} instead.
+ *
+ * Once we're cleaned up, every future still waiting is cancelled and nothing new is loaded anymore.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class AssetManager {
+
+    private static AssetManager s_Instance = null;
+    public static AssetManager Instance() {
+        if(s_Instance == null)
+            s_Instance = new AssetManager();
+
+        return s_Instance;
+    }
+
+    private final ExecutorService m_Pool;
+    private final ConcurrentLinkedQueue<Upload<?>> m_Uploads;
+    private final AtomicInteger m_QueueDepth, m_PendingLoads;
+
+    // Set once we're cleaned up, from then on loads are refused and late uploads are freed right away
+    private volatile boolean mv_closed;
+
+    private float m_uploadBudgetMillis;
+    private long m_uploadBudgetBytes;
+
+    // What happened during the last call to processUploads
+    private int m_lastUploadCount;
+    private long m_lastUploadBytes;
+    private float m_lastUploadMillis;
+    private long m_totalUploadBytes;
+
+    private AssetManager() {
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        m_Pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, String.format("Asset_Loader-%d", threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        m_Uploads = new ConcurrentLinkedQueue<>();
+        m_QueueDepth = new AtomicInteger();
+        m_PendingLoads = new AtomicInteger();
+
+        m_uploadBudgetMillis = 2f;
+        m_uploadBudgetBytes = 16L * 1024 * 1024;
+    }
+
+    public CompletableFuture<Texture> loadInternalTexture(String filePath) {
+        return loadTexture(filePath, true);
+    }
+
+    /**
+     * Starts loading a Texture. With our TextureCache on, the mipmaps are read from it or built on the
+     * background thread as well, so the upload never has to generate them.
+     *
+     * @param filePath the path of the image file
+     * @param internal whether the file is within the jar file or not
+     * @return a future that completes once the Texture is uploaded
+     */
+    public CompletableFuture<Texture> loadTexture(String filePath, boolean internal) {
+        return submit(() -> {
+            if(TextureCache.isEnabled()) {
+                TextureCache.CachedTexture cached = TextureCache.prepare(filePath, internal);
+                return new Upload<>(cached.getByteSize(), () -> {
+                    try {
+                        return cached.toTexture();
+                    } finally {
+                        cached.free();
+                    }
+                }, cached::free);
+            }
+
+            ImageData image = ImageData.load(filePath, internal);
+            return new Upload<>(image.getByteSize(), () -> {
+                try {
+                    return Texture.createTexture(image);
+                } finally {
+                    image.free();
+                }
+            }, image::free);
+        });
+    }
+
+    public CompletableFuture<Mesh> loadInternalMesh(String filePath) {
+        return loadMesh(filePath, true);
+    }
+
+    /**
+     * Starts loading a Mesh from an OBJ file, or from our MeshCache if it was loaded before.
+     *
+     * @param filePath the path of the OBJ file
+     * @param internal whether the file is within the jar file or not
+     * @return a future that completes once the Mesh is uploaded
+     */
+    public CompletableFuture<Mesh> loadMesh(String filePath, boolean internal) {
+        return submit(() -> {
+            MeshCache.CachedMesh cached = MeshCache.read(filePath, internal);
+            if(cached != null)
+                return new Upload<>(cached.getByteSize(), cached::toMesh, null);
+
+            MeshData data = OBJLoader.loadMeshDataParallel(filePath, internal);
+            MeshCache.write(filePath, internal, data);
+
+            return new Upload<>(data.getByteSize(), data::toMesh, null);
+        });
+    }
+
+    /**
+     * Starts loading a Shader Program out of two files within the jar file.
+     *
+     * @return a future that completes once the program is compiled and linked
+     */
+    public CompletableFuture<Shader> loadShader(String vertexFile, String fragmentFile) {
+        return submit(() -> {
+            Shader shader = new Shader(vertexFile, fragmentFile);
+            String[] sources = shader.readSources();
+
+            return new Upload<>(sources[0].length() + sources[1].length(), () -> {
+                shader.create(sources[0], sources[1]);
+                return shader;
+            }, null);
+        });
+    }
+
+    /**
+     * Uploads finished assets to OpenGL until this frame's budget runs out. Call this once per frame on the
+     * thread that renders, the engine already does so for you.
+     */
+    public void processUploads() {
+        long start = System.nanoTime();
+        long budgetNanos = (long) (m_uploadBudgetMillis * 1_000_000L);
+
+        int count = 0;
+        long bytes = 0;
+
+        Upload<?> upload;
+        while((upload = m_Uploads.peek()) != null) {
+            // The first upload always goes through, even when it's bigger than the whole budget
+            if(count > 0 && (bytes + upload.m_Bytes > m_uploadBudgetBytes || System.nanoTime() - start >= budgetNanos))
+                break;
+
+            m_Uploads.poll();
+            m_QueueDepth.decrementAndGet();
+
+            upload.run();
+            count++;
+            bytes += upload.m_Bytes;
+        }
+
+        m_lastUploadCount = count;
+        m_lastUploadBytes = bytes;
+        m_lastUploadMillis = (System.nanoTime() - start) / 1_000_000f;
+        m_totalUploadBytes += bytes;
+    }
+
+    /**
+     * Limits how much work {@link #processUploads()} does per frame.
+     *
+     * @param millis how many milliseconds a frame may spend uploading
+     * @param bytes how many bytes a frame may upload
+     */
+    public void setUploadBudget(float millis, long bytes) {
+        m_uploadBudgetMillis = millis;
+        m_uploadBudgetBytes = bytes;
+    }
+
+    /**
+     * Stops loading anything new, and throws away whatever was still waiting to be uploaded. Every future that
+     * won't complete anymore is cancelled.
+     */
+    public void cleanup() {
+        mv_closed = true;
+
+        // Loads that never got to start are handed back to us
+        for(Runnable dropped : m_Pool.shutdownNow()) {
+            if(dropped instanceof Load<?> load)
+                load.cancel();
+        }
+
+        Upload<?> upload;
+        while((upload = m_Uploads.poll()) != null) {
+            m_QueueDepth.decrementAndGet();
+            upload.discard();
+        }
+    }
+
+    /**
+     * @return how many loaded assets are waiting to be uploaded
+     */
+    public int getQueueDepth() {
+        return m_QueueDepth.get();
+    }
+
+    /**
+     * @return how many assets are still being read or decoded in the background
+     */
+    public int getPendingLoads() {
+        return m_PendingLoads.get();
+    }
+
+    public int getLastUploadCount() {
+        return m_lastUploadCount;
+    }
+
+    public long getLastUploadBytes() {
+        return m_lastUploadBytes;
+    }
+
+    public float getLastUploadMillis() {
+        return m_lastUploadMillis;
+    }
+
+    public long getTotalUploadBytes() {
+        return m_totalUploadBytes;
+    }
+
+    public float getUploadBudgetMillis() {
+        return m_uploadBudgetMillis;
+    }
+
+    public long getUploadBudgetBytes() {
+        return m_uploadBudgetBytes;
+    }
+
+    /**
+     * Runs the background half of a load on our pool, and queues up whatever it hands back for uploading.
+     */
+    private <T> CompletableFuture<T> submit(Callable<Upload<T>> load) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if(mv_closed) {
+            result.completeExceptionally(new IllegalStateException("The AssetManager has already been cleaned up!"));
+            return result;
+        }
+
+        m_PendingLoads.incrementAndGet();
+        try {
+            m_Pool.execute(new Load<>(load, result));
+        } catch (RejectedExecutionException e) {
+            m_PendingLoads.decrementAndGet();
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Queues up an upload, unless we're already cleaned up, in which case it is freed instead.
+     */
+    private void enqueue(Upload<?> upload) {
+        m_QueueDepth.incrementAndGet();
+        m_Uploads.add(upload);
+
+        // If cleanup drained the queue before we added to it, nobody else is going to take it out again.
+        // Whoever removes it first frees it, so it can't be freed twice
+        if(mv_closed && m_Uploads.remove(upload)) {
+            m_QueueDepth.decrementAndGet();
+            upload.discard();
+        }
+    }
+
+    /**
+     * The background half of a load, kept as a class of its own so that cleanup can cancel it if it never ran.
+     */
+    private class Load<T> implements Runnable {
+
+        private final Callable<Upload<T>> m_Load;
+        private final CompletableFuture<T> m_Result;
+
+        public Load(Callable<Upload<T>> load, CompletableFuture<T> result) {
+            m_Load = load;
+            m_Result = result;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Upload<T> upload = m_Load.call();
+                upload.m_result = m_Result;
+
+                enqueue(upload);
+            } catch (Throwable e) {
+                // Errors too, an OutOfMemoryError while decoding would leave our future waiting forever otherwise
+                m_Result.completeExceptionally(e);
+            } finally {
+                m_PendingLoads.decrementAndGet();
+            }
+        }
+
+        public void cancel() {
+            m_Result.cancel(false);
+            m_PendingLoads.decrementAndGet();
+        }
+
+    }
+
+    /**
+     * The part of a load that has to happen on the render thread.
+     */
+    private static class Upload<T> {
+
+        private final long m_Bytes;
+        private final Supplier<T> m_Upload;
+        private final Runnable m_Discard;
+        private CompletableFuture<T> m_result;
+
+        /**
+         * @param bytes roughly how many bytes this hands over to OpenGL
+         * @param upload creates the asset, this is where the GL calls happen
+         * @param discard frees anything we were holding on to if we never get uploaded, may be null
+         */
+        public Upload(long bytes, Supplier<T> upload, Runnable discard) {
+            m_Bytes = bytes;
+            m_Upload = upload;
+            m_Discard = discard;
+        }
+
+        public void run() {
+            try {
+                m_result.complete(m_Upload.get());
+            } catch (RuntimeException e) {
+                m_result.completeExceptionally(e);
+            } catch (Error e) {
+                // Nobody waiting on us should hang, but an Error is still not ours to swallow
+                m_result.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        public void discard() {
+            if(m_Discard != null)
+                m_Discard.run();
+
+            m_result.cancel(false);
+        }
+
+    }
+
+}
@@ -0,0 +1,467 @@
+package git.crystal.engine.assets;
+
+import git.crystal.engine.render.Shader;
+import git.crystal.engine.render.Texture;
+import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.render.mesh.OBJLoader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Makes sure every resource is only loaded once. Resources are looked up by what they were loaded from, the path
+ * of a file plus anything else that changes the result, and handed out as {@link Handle}s. Every Handle counts
+ * as one reference, so the same Texture can be used by as many objects as we like.
+ *
+ * Once the last Handle of a resource is released it isn't freed right away, it is kept around in case it gets
+ * asked for again. Unused resources are freed least recently used first, as soon as they take up more memory
+ * than our budget allows. A budget of 0 frees resources the moment their last Handle is released.
+ *
+ * Every load also has an async version that goes through the {@link AssetManager}. Asking for a resource that is
+ * still loading doesn't load it again, everyone asking gets a Handle once that one load is done.
+ *
+ * Resources own GL objects, so the cache should only be used on the thread that renders.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class ResourceCache {
+
+    private static ResourceCache s_Instance = null;
+    public static ResourceCache Instance() {
+        if(s_Instance == null)
+            s_Instance = new ResourceCache();
+
+        return s_Instance;
+    }
+
+    private final Map<String, Entry<?>> m_Entries;
+    // Resources the AssetManager is still loading, so asking for them again waits on the same load
+    private final Map<String, CompletableFuture<Entry<?>>> m_Loading;
+    // Resources without any Handles, ordered from least to most recently used
+    private final LinkedHashMap<String, Entry<?>> m_Unused;
+
+    private long m_memoryBudget;
+    private long m_residentBytes, m_unusedBytes;
+    private long m_hits, m_misses, m_evictions;
+
+    private ResourceCache() {
+        m_Entries = new HashMap<>();
+        m_Loading = new HashMap<>();
+        m_Unused = new LinkedHashMap<>(16, 0.75f, true);
+
+        m_memoryBudget = 64L * 1024 * 1024;
+    }
+
+    public Handle<Texture> loadInternalTexture(String filePath) {
+        return loadTexture(filePath, true);
+    }
+
+    /**
+     * @param filePath the path of the image file
+     * @param internal whether the file is within the jar file or not
+     * @return a new Handle to the Texture of this file
+     */
+    public Handle<Texture> loadTexture(String filePath, boolean internal) {
+        return acquire(String.format("texture:%s:%b", filePath, internal),
+                () -> internal ? Texture.loadInternalTexture(filePath) : Texture.loadTexture(filePath),
+                Texture::cleanup, Texture::getByteSize);
+    }
+
+    /**
+     * Same as {@link #loadTexture(String, boolean)}, but decoding happens on the AssetManager's threads.
+     *
+     * @return a future that completes with a new Handle once the Texture is uploaded
+     */
+    public CompletableFuture<Handle<Texture>> loadTextureAsync(String filePath, boolean internal) {
+        return acquireAsync(String.format("texture:%s:%b", filePath, internal),
+                () -> AssetManager.Instance().loadTexture(filePath, internal),
+                Texture::cleanup, Texture::getByteSize);
+    }
+
+    public Handle<Mesh> loadInternalMesh(String filePath) {
+        return loadMesh(filePath, true);
+    }
+
+    /**
+     * Hands out a Mesh shared by everyone who asks for the same file. To give the Mesh your own color or
+     * Texture, draw a copy of it instead, see {@link Mesh#Mesh(Mesh)}.
+     *
+     * @param filePath the path of the OBJ file
+     * @param internal whether the file is within the jar file or not
+     * @return a new Handle to the Mesh of this file
+     */
+    public Handle<Mesh> loadMesh(String filePath, boolean internal) {
+        return acquire(String.format("mesh:%s:%b", filePath, internal),
+                () -> OBJLoader.loadMesh(filePath, internal),
+                Mesh::cleanup, Mesh::getByteSize);
+    }
+
+    /**
+     * Same as {@link #loadMesh(String, boolean)}, but parsing happens on the AssetManager's threads.
+     *
+     * @return a future that completes with a new Handle once the Mesh is uploaded
+     */
+    public CompletableFuture<Handle<Mesh>> loadMeshAsync(String filePath, boolean internal) {
+        return acquireAsync(String.format("mesh:%s:%b", filePath, internal),
+                () -> AssetManager.Instance().loadMesh(filePath, internal),
+                Mesh::cleanup, Mesh::getByteSize);
+    }
+
+    /**
+     * @return a new Handle to the Shader Program made out of these two files within the jar file
+     */
+    public Handle<Shader> loadShader(String vertexFile, String fragmentFile) {
+        return acquire(String.format("shader:%s:%s", vertexFile, fragmentFile), () -> {
+            Shader shader = new Shader(vertexFile, fragmentFile);
+            shader.create();
+            return shader;
+        }, Shader::cleanup, Shader::getByteSize);
+    }
+
+    /**
+     * Same as {@link #loadShader(String, String)}, but reading the sources happens on the AssetManager's threads.
+     *
+     * @return a future that completes with a new Handle once the program is linked
+     */
+    public CompletableFuture<Handle<Shader>> loadShaderAsync(String vertexFile, String fragmentFile) {
+        return acquireAsync(String.format("shader:%s:%s", vertexFile, fragmentFile),
+                () -> AssetManager.Instance().loadShader(vertexFile, fragmentFile),
+                Shader::cleanup, Shader::getByteSize);
+    }
+
+    /**
+     * Looks up a resource, or loads it if we don't have it yet. Nothing is locked while the loader runs, so it may
+     * acquire other resources itself. If someone else loaded the same resource in the meantime, theirs is kept and
+     * ours is freed again.
+     *
+     * @param key everything the resource was loaded from, two resources with the same key are the same resource
+     * @param loader loads the resource when we don't have it
+     * @param freer frees the resource once it gets evicted
+     * @param sizer tells us how many bytes the resource takes up
+     * @return a new Handle to the resource
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Handle<T> acquire(String key, Supplier<T> loader, Consumer<T> freer, ToLongFunction<T> sizer) {
+        synchronized(this) {
+            Entry<T> entry = (Entry<T>) m_Entries.get(key);
+            if(entry != null) {
+                m_hits++;
+                return reference(entry);
+            }
+
+            m_misses++;
+        }
+
+        T resource = loader.get();
+
+        Handle<T> handle;
+        Entry<T> entry;
+        synchronized(this) {
+            entry = insert(key, resource, freer, sizer);
+            handle = reference(entry);
+        }
+
+        if(entry.m_Resource != resource)
+            freer.accept(resource);
+
+        return handle;
+    }
+
+    /**
+     * Looks up a resource, or starts loading it if we don't have it yet. While it is loading, everyone asking for
+     * the same key waits on that one load instead of starting another.
+     *
+     * @param key everything the resource was loaded from, two resources with the same key are the same resource
+     * @param loader starts loading the resource when we don't have it, its future should complete on the thread
+     *               that renders, the way the AssetManager's do
+     * @param freer frees the resource once it gets evicted
+     * @param sizer tells us how many bytes the resource takes up
+     * @return a future that completes with a new Handle to the resource
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<Handle<T>> acquireAsync(String key, Supplier<CompletableFuture<T>> loader, Consumer<T> freer, ToLongFunction<T> sizer) {
+        CompletableFuture<Entry<?>> loading;
+
+        synchronized(this) {
+            Entry<T> entry = (Entry<T>) m_Entries.get(key);
+            if(entry != null) {
+                m_hits++;
+                return CompletableFuture.completedFuture(reference(entry));
+            }
+
+            loading = m_Loading.get(key);
+            if(loading != null) {
+                m_hits++;
+                return loading.thenApply(loaded -> reference((Entry<T>) loaded));
+            }
+
+            m_misses++;
+            loading = new CompletableFuture<>();
+            m_Loading.put(key, loading);
+        }
+
+        CompletableFuture<Entry<?>> pending = loading;
+        try {
+            loader.get().whenComplete((resource, error) -> finish(key, pending, resource, error, freer, sizer));
+        } catch (RuntimeException e) {
+            finish(key, pending, null, e, freer, sizer);
+        }
+
+        return loading.thenApply(loaded -> reference((Entry<T>) loaded));
+    }
+
+    /**
+     * Sets how many bytes unused resources may take up before we start freeing them.
+     */
+    public synchronized void setMemoryBudget(long bytes) {
+        m_memoryBudget = Math.max(bytes, 0);
+        trim();
+    }
+
+    /**
+     * Frees every resource that doesn't have any Handles left, no matter our budget.
+     */
+    public synchronized void evictUnused() {
+        evictWhile(() -> !m_Unused.isEmpty());
+    }
+
+    /**
+     * Frees every resource we hold, including the ones that still have Handles. Only call this on shutdown,
+     * releasing any Handle afterwards does nothing.
+     */
+    public synchronized void cleanup() {
+        List<Entry<?>> entries = new ArrayList<>(m_Entries.values());
+        for(Entry<?> entry : entries)
+            entry.free();
+
+        // Loads still running are freed as soon as they arrive
+        m_Entries.clear();
+        m_Loading.clear();
+        m_Unused.clear();
+        m_residentBytes = 0;
+        m_unusedBytes = 0;
+    }
+
+    public synchronized boolean contains(String key) {
+        return m_Entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return m_Entries.size();
+    }
+
+    public synchronized long getHits() {
+        return m_hits;
+    }
+
+    public synchronized long getMisses() {
+        return m_misses;
+    }
+
+    public synchronized long getEvictions() {
+        return m_evictions;
+    }
+
+    /**
+     * @return how many bytes every resource we hold takes up, used or not
+     */
+    public synchronized long getResidentBytes() {
+        return m_residentBytes;
+    }
+
+    /**
+     * @return how many bytes the resources without any Handles take up
+     */
+    public synchronized long getUnusedBytes() {
+        return m_unusedBytes;
+    }
+
+    public synchronized long getMemoryBudget() {
+        return m_memoryBudget;
+    }
+
+    /**
+     * Adds a freshly loaded resource, unless we already have one under the same key, in which case that one is
+     * returned instead. A new entry starts out without any Handles, whoever loaded it has to reference it.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Entry<T> insert(String key, T resource, Consumer<T> freer, ToLongFunction<T> sizer) {
+        Entry<T> entry = (Entry<T>) m_Entries.get(key);
+        if(entry != null)
+            return entry;
+
+        entry = new Entry<>(key, resource, freer, sizer.applyAsLong(resource));
+        m_Entries.put(key, entry);
+        m_residentBytes += entry.m_Bytes;
+
+        // Unused until referenced, but not trimmed yet, so nobody waiting on it can lose it before they get to it
+        m_Unused.put(key, entry);
+        m_unusedBytes += entry.m_Bytes;
+        return entry;
+    }
+
+    private synchronized <T> Handle<T> reference(Entry<T> entry) {
+        if(entry.m_freed)
+            throw new IllegalStateException(String.format("[%s] was freed before it could be used!", entry.m_Key));
+
+        if(entry.m_references++ == 0 && m_Unused.remove(entry.m_Key) != null)
+            m_unusedBytes -= entry.m_Bytes;
+
+        return new Handle<>(this, entry);
+    }
+
+    /**
+     * Called once an async load is done, hands its resource to everyone waiting on it.
+     */
+    private <T> void finish(String key, CompletableFuture<Entry<?>> loading, T resource, Throwable error, Consumer<T> freer, ToLongFunction<T> sizer) {
+        Entry<T> entry = null;
+        boolean cleanedUp;
+
+        synchronized(this) {
+            cleanedUp = m_Loading.get(key) != loading;
+            if(!cleanedUp)
+                m_Loading.remove(key);
+
+            if(error == null && !cleanedUp)
+                entry = insert(key, resource, freer, sizer);
+        }
+
+        if(error != null) {
+            loading.completeExceptionally(error);
+            return;
+        }
+
+        // Either the cache was cleaned up while we were loading, or someone loaded the same resource without us
+        if(entry == null || entry.m_Resource != resource)
+            freer.accept(resource);
+
+        if(entry == null)
+            loading.completeExceptionally(new IllegalStateException(String.format("The ResourceCache was cleaned up while [%s] was loading!", key)));
+        else
+            loading.complete(entry);
+    }
+
+    private synchronized void release(Entry<?> entry) {
+        // Handles can outlive a cleanup, their resource is already gone by then
+        if(entry.m_freed || --entry.m_references > 0)
+            return;
+
+        m_Unused.put(entry.m_Key, entry);
+        m_unusedBytes += entry.m_Bytes;
+        trim();
+    }
+
+    private void trim() {
+        evictWhile(() -> m_unusedBytes > m_memoryBudget || (m_memoryBudget == 0 && !m_Unused.isEmpty()));
+    }
+
+    private void evictWhile(Supplier<Boolean> condition) {
+        Iterator<Entry<?>> iterator = m_Unused.values().iterator();
+
+        while(iterator.hasNext() && condition.get()) {
+            Entry<?> entry = iterator.next();
+            iterator.remove();
+
+            m_Entries.remove(entry.m_Key);
+            m_unusedBytes -= entry.m_Bytes;
+            m_residentBytes -= entry.m_Bytes;
+            m_evictions++;
+
+            entry.free();
+        }
+    }
+
+    /**
+     * One reference to a resource of our cache. Release it once you no longer need the resource, after which
+     * it can't be used anymore.
+     */
+    public static class Handle<T> {
+
+        private final ResourceCache m_Cache;
+        private final Entry<T> m_Entry;
+        private boolean m_released;
+
+        private Handle(ResourceCache cache, Entry<T> entry) {
+            m_Cache = cache;
+            m_Entry = entry;
+        }
+
+        public T get() {
+            if(m_released)
+                throw new IllegalStateException(String.format("The Handle to [%s] has already been released!", m_Entry.m_Key));
+
+            return m_Entry.m_Resource;
+        }
+
+        /**
+         * @return another Handle to the same resource, which has to be released on its own
+         */
+        public Handle<T> retain() {
+            if(m_released)
+                throw new IllegalStateException(String.format("The Handle to [%s] has already been released!", m_Entry.m_Key));
+
+            synchronized(m_Cache) {
+                m_Entry.m_references++;
+            }
+
+            return new Handle<>(m_Cache, m_Entry);
+        }
+
+        /**
+         * Gives our reference back to the cache. Releasing the same Handle twice does nothing.
+         */
+        public void release() {
+            if(m_released)
+                return;
+
+            m_released = true;
+            m_Cache.release(m_Entry);
+        }
+
+        public boolean isReleased() {
+            return m_released;
+        }
+
+        public String getKey() {
+            return m_Entry.m_Key;
+        }
+
+    }
+
+    private static class Entry<T> {
+
+        private final String m_Key;
+        private final T m_Resource;
+        private final Consumer<T> m_Freer;
+        private final long m_Bytes;
+        private int m_references;
+        private boolean m_freed;
+
+        public Entry(String key, T resource, Consumer<T> freer, long bytes) {
+            m_Key = key;
+            m_Resource = resource;
+            m_Freer = freer;
+            m_Bytes = bytes;
+        }
+
+        public void free() {
+            if(m_freed)
+                return;
+
+            m_freed = true;
+            m_Freer.accept(m_Resource);
+        }
+
+    }
+
+}
@@ -0,0 +1,17 @@
+package git.crystal.engine.ecs;
+
+import com.badlogic.ashley.core.Component;
+
+/**
+ * The only component that lives on an Ashley Entity itself. It points to the slot in our EntityStore where
+ * all the actual data of the Entity sits.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class EntityIndex implements Component {
+
+    public int index;
+
+}
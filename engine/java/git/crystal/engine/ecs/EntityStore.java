@@ -0,0 +1,327 @@
+package git.crystal.engine.ecs;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.Family;
+import git.crystal.engine.render.mesh.Mesh;
+import org.joml.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the hot components of our entities in flat primitive arrays instead of on the entities themselves. All
+ * the positions sit next to each other, all the velocities sit next to each other and so on, so a system that
+ * only touches positions and velocities walks two arrays from front to back and nothing else.
+ *
+ * Entities are still regular Ashley Entities, they just carry a single {@link EntityIndex} pointing at their slot.
+ * Slots are kept packed: removing an Entity moves the last one into its place, so the first {@link #size()}
+ * slots are always alive and can be iterated without any gaps.
+ *
+ * Which components an Entity actually has is stored as a bit mask per slot, see the constants below.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class EntityStore implements EntityListener {
+
+    public static final int POSITION = 1;
+    public static final int ROTATION = 1 << 1;
+    public static final int SCALE = 1 << 2;
+    public static final int VELOCITY = 1 << 3;
+    public static final int RENDER = 1 << 4;
+    // The world matrix built out of position, rotation and scale, every Entity with a position has one
+    public static final int TRANSFORM = 1 << 5;
+
+    public static final int NO_MESH = -1;
+
+    private static final ComponentMapper<EntityIndex> s_Index = ComponentMapper.getFor(EntityIndex.class);
+
+    private final Engine m_Engine;
+    private final List<Mesh> m_Meshes;
+    private final Matrix4f m_Scratch;
+
+    private float[] m_positions, m_rotations, m_scales, m_velocities;
+    private float[] m_transforms;
+    private int[] m_meshHandles;
+    private int[] m_masks;
+    private boolean[] m_dirty;
+    private Entity[] m_entities;
+    private int m_size;
+
+    public EntityStore(Engine engine) {
+        this(engine, 1024);
+    }
+
+    public EntityStore(Engine engine, int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+
+        m_Engine = engine;
+        m_Meshes = new ArrayList<>();
+        m_Scratch = new Matrix4f();
+
+        m_positions = new float[capacity * 3];
+        m_rotations = new float[capacity * 3];
+        m_scales = new float[capacity * 3];
+        m_velocities = new float[capacity * 3];
+        m_transforms = new float[capacity * 16];
+        m_meshHandles = new int[capacity];
+        m_masks = new int[capacity];
+        m_dirty = new boolean[capacity];
+        m_entities = new Entity[capacity];
+
+        m_Engine.addEntityListener(Family.all(EntityIndex.class).get(), this);
+    }
+
+    /**
+     * Creates an Entity and adds it to our Ashley Engine.
+     *
+     * @param components the components the Entity starts out with, like POSITION | VELOCITY
+     * @return the new Entity
+     */
+    public Entity create(int components) {
+        if(m_size == m_masks.length)
+            grow();
+
+        int index = m_size++;
+        Arrays.fill(m_positions, index * 3, index * 3 + 3, 0f);
+        Arrays.fill(m_rotations, index * 3, index * 3 + 3, 0f);
+        Arrays.fill(m_scales, index * 3, index * 3 + 3, 1f);
+        Arrays.fill(m_velocities, index * 3, index * 3 + 3, 0f);
+        m_meshHandles[index] = NO_MESH;
+        m_masks[index] = components;
+        m_dirty[index] = true;
+
+        Entity entity = m_Engine.createEntity();
+        EntityIndex handle = m_Engine.createComponent(EntityIndex.class);
+        handle.index = index;
+        entity.add(handle);
+
+        m_entities[index] = entity;
+        m_Engine.addEntity(entity);
+
+        return entity;
+    }
+
+    /**
+     * Removes an Entity from our Ashley Engine, its slot is freed once the Engine lets us know it's gone.
+     */
+    public void destroy(Entity entity) {
+        m_Engine.removeEntity(entity);
+    }
+
+    @Override
+    public void entityAdded(Entity entity) {
+        // Our slot was already set up when the Entity was created
+    }
+
+    @Override
+    public void entityRemoved(Entity entity) {
+        int index = indexOf(entity);
+        int last = --m_size;
+
+        // Keep our slots packed by moving the last Entity into the hole
+        if(index != last) {
+            System.arraycopy(m_positions, last * 3, m_positions, index * 3, 3);
+            System.arraycopy(m_rotations, last * 3, m_rotations, index * 3, 3);
+            System.arraycopy(m_scales, last * 3, m_scales, index * 3, 3);
+            System.arraycopy(m_velocities, last * 3, m_velocities, index * 3, 3);
+            System.arraycopy(m_transforms, last * 16, m_transforms, index * 16, 16);
+            m_meshHandles[index] = m_meshHandles[last];
+            m_masks[index] = m_masks[last];
+            m_dirty[index] = m_dirty[last];
+            m_entities[index] = m_entities[last];
+
+            s_Index.get(m_entities[index]).index = index;
+        }
+
+        m_entities[last] = null;
+    }
+
+    /**
+     * Makes a Mesh available to our entities.
+     *
+     * @return the handle entities use to refer to this Mesh
+     */
+    public int registerMesh(Mesh mesh) {
+        m_Meshes.add(mesh);
+        return m_Meshes.size() - 1;
+    }
+
+    public Mesh getMesh(int handle) {
+        return handle == NO_MESH ? null : m_Meshes.get(handle);
+    }
+
+    public void setPosition(Entity entity, float x, float y, float z) {
+        set(m_positions, indexOf(entity), x, y, z);
+    }
+
+    /**
+     * Rotations are in degrees, the same way GameObject uses them.
+     */
+    public void setRotation(Entity entity, float x, float y, float z) {
+        set(m_rotations, indexOf(entity), x, y, z);
+    }
+
+    public void setScale(Entity entity, float x, float y, float z) {
+        set(m_scales, indexOf(entity), x, y, z);
+    }
+
+    public void setVelocity(Entity entity, float x, float y, float z) {
+        int index = indexOf(entity);
+
+        m_velocities[index * 3] = x;
+        m_velocities[index * 3 + 1] = y;
+        m_velocities[index * 3 + 2] = z;
+    }
+
+    public void setMesh(Entity entity, int meshHandle) {
+        m_meshHandles[indexOf(entity)] = meshHandle;
+    }
+
+    public void addComponents(Entity entity, int components) {
+        int index = indexOf(entity);
+
+        m_masks[index] |= components;
+        m_dirty[index] = true;
+    }
+
+    public void removeComponents(Entity entity, int components) {
+        int index = indexOf(entity);
+
+        m_masks[index] &= ~components;
+        m_dirty[index] = true;
+    }
+
+    public boolean has(Entity entity, int components) {
+        return (m_masks[indexOf(entity)] & components) == components;
+    }
+
+    /**
+     * Lets us know the position, rotation or scale in a slot was changed by writing to our arrays directly,
+     * so its world matrix gets rebuilt.
+     */
+    public void markDirty(int index) {
+        m_dirty[index] = true;
+    }
+
+    /**
+     * Rebuilds the world matrix of every Entity whose transform changed.
+     */
+    public void updateTransforms() {
+        updateTransforms(0, m_size, m_Scratch);
+    }
+
+    /**
+     * Rebuilds the world matrix of every Entity whose transform changed within a range of slots. Ranges that
+     * don't overlap can be updated at the same time, as long as each one uses its own scratch matrix.
+     *
+     * @param from the first slot to update
+     * @param to the slot right after the last one to update
+     * @param scratch a matrix we can build into
+     */
+    public void updateTransforms(int from, int to, Matrix4f scratch) {
+        for(int i = from; i < to; i++) {
+            int mask = m_masks[i];
+            if(!m_dirty[i] || (mask & POSITION) == 0)
+                continue;
+
+            scratch.translation(m_positions[i * 3], m_positions[i * 3 + 1], m_positions[i * 3 + 2]);
+
+            if((mask & ROTATION) != 0) {
+                scratch.rotateX((float) Math.toRadians(-m_rotations[i * 3]))
+                       .rotateY((float) Math.toRadians(-m_rotations[i * 3 + 1]))
+                       .rotateZ((float) Math.toRadians(-m_rotations[i * 3 + 2]));
+            }
+
+            if((mask & SCALE) != 0)
+                scratch.scale(m_scales[i * 3], m_scales[i * 3 + 1], m_scales[i * 3 + 2]);
+
+            scratch.get(m_transforms, i * 16);
+            m_dirty[i] = false;
+        }
+    }
+
+    public int indexOf(Entity entity) {
+        EntityIndex handle = s_Index.get(entity);
+        if(handle == null)
+            throw new IllegalArgumentException("This Entity doesn't belong to an EntityStore!");
+
+        return handle.index;
+    }
+
+    public Entity getEntity(int index) {
+        return m_entities[index];
+    }
+
+    /**
+     * The arrays below give direct access to our storage. Only the first {@link #size()} slots are valid,
+     * and they may be replaced when the store grows, so don't hold on to them across frames.
+     *
+     * @return x, y and z of every slot after each other
+     */
+    public float[] getPositions() {
+        return m_positions;
+    }
+
+    public float[] getRotations() {
+        return m_rotations;
+    }
+
+    public float[] getScales() {
+        return m_scales;
+    }
+
+    public float[] getVelocities() {
+        return m_velocities;
+    }
+
+    /**
+     * @return the column-major world matrix of every slot, 16 floats each
+     */
+    public float[] getTransforms() {
+        return m_transforms;
+    }
+
+    public int[] getMeshHandles() {
+        return m_meshHandles;
+    }
+
+    public int[] getMasks() {
+        return m_masks;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public Engine getEngine() {
+        return m_Engine;
+    }
+
+    private void set(float[] array, int index, float x, float y, float z) {
+        array[index * 3] = x;
+        array[index * 3 + 1] = y;
+        array[index * 3 + 2] = z;
+        m_dirty[index] = true;
+    }
+
+    private void grow() {
+        int capacity = m_masks.length * 2;
+
+        m_positions = Arrays.copyOf(m_positions, capacity * 3);
+        m_rotations = Arrays.copyOf(m_rotations, capacity * 3);
+        m_scales = Arrays.copyOf(m_scales, capacity * 3);
+        m_velocities = Arrays.copyOf(m_velocities, capacity * 3);
+        m_transforms = Arrays.copyOf(m_transforms, capacity * 16);
+        m_meshHandles = Arrays.copyOf(m_meshHandles, capacity);
+        m_masks = Arrays.copyOf(m_masks, capacity);
+        m_dirty = Arrays.copyOf(m_dirty, capacity);
+        m_entities = Arrays.copyOf(m_entities, capacity);
+    }
+
+}
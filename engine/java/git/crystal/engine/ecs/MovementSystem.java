@@ -0,0 +1,64 @@
+package git.crystal.engine.ecs;
+
+import com.badlogic.ashley.core.EntitySystem;
+
+/**
+ * Moves every Entity that has both a position and a velocity, walking the two arrays of our EntityStore
+ * side by side. It can run on its own as an Ashley EntitySystem, or split up by a SystemScheduler.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class MovementSystem extends EntitySystem implements UpdateSystem {
+
+    private static final int REQUIRED = EntityStore.POSITION | EntityStore.VELOCITY;
+
+    private final EntityStore m_Store;
+
+    public MovementSystem(EntityStore store) {
+        this(store, 0);
+    }
+
+    public MovementSystem(EntityStore store, int priority) {
+        super(priority);
+        m_Store = store;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        update(m_Store, 0, m_Store.size(), deltaTime);
+    }
+
+    @Override
+    public void update(EntityStore store, int from, int to, float deltaTime) {
+        float[] positions = store.getPositions();
+        float[] velocities = store.getVelocities();
+        int[] masks = store.getMasks();
+
+        for(int i = from; i < to; i++) {
+            if((masks[i] & REQUIRED) != REQUIRED)
+                continue;
+
+            float vx = velocities[i * 3], vy = velocities[i * 3 + 1], vz = velocities[i * 3 + 2];
+            if(vx == 0f && vy == 0f && vz == 0f)
+                continue;
+
+            positions[i * 3] += vx * deltaTime;
+            positions[i * 3 + 1] += vy * deltaTime;
+            positions[i * 3 + 2] += vz * deltaTime;
+            store.markDirty(i);
+        }
+    }
+
+    @Override
+    public int reads() {
+        return EntityStore.POSITION | EntityStore.VELOCITY;
+    }
+
+    @Override
+    public int writes() {
+        return EntityStore.POSITION;
+    }
+
+}
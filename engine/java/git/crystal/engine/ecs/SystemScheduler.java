@@ -0,0 +1,197 @@
+package git.crystal.engine.ecs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs our UpdateSystems every fixed tick, on as many cores as it can.
+ *
+ * Systems are ordered by the components they declare: a system that writes something an earlier registered
+ * system reads or writes (or reads something it writes) always runs after it. Systems without such a conflict
+ * are put in the same stage and run at the same time. Within a stage every system is split into ranges of
+ * slots, which a work stealing pool spreads over its threads.
+ *
+ * Since conflicting systems always run in the order they were registered, and ranges never share a slot,
+ * the result of a tick is the same no matter how the threads happened to be scheduled. {@link #update(float)}
+ * only returns once every system is done.
+ *
+ * Entities must not be created or destroyed while a tick is running.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class SystemScheduler {
+
+    private final EntityStore m_Store;
+    private final ForkJoinPool m_Pool;
+    private final boolean m_OwnsPool;
+
+    private final List<UpdateSystem> m_Systems;
+    // The systems of every stage, stages run one after another
+    private final List<List<UpdateSystem>> m_Stages;
+    private final List<ForkJoinTask<?>> m_Tasks;
+    private boolean m_dirty;
+
+    public SystemScheduler(EntityStore store) {
+        this(store, ForkJoinPool.commonPool(), false);
+    }
+
+    public SystemScheduler(EntityStore store, int threads) {
+        this(store, new ForkJoinPool(threads), true);
+    }
+
+    private SystemScheduler(EntityStore store, ForkJoinPool pool, boolean ownsPool) {
+        m_Store = store;
+        m_Pool = pool;
+        m_OwnsPool = ownsPool;
+
+        m_Systems = new ArrayList<>();
+        m_Stages = new ArrayList<>();
+        m_Tasks = new ArrayList<>();
+        m_dirty = false;
+    }
+
+    /**
+     * Adds a system to the end of our order. Conflicting systems run in the order they were added.
+     */
+    public void add(UpdateSystem system) {
+        m_Systems.add(system);
+        m_dirty = true;
+    }
+
+    public void remove(UpdateSystem system) {
+        if(m_Systems.remove(system))
+            m_dirty = true;
+    }
+
+    /**
+     * Runs every system once, and waits for all of them to finish.
+     */
+    public void update(float deltaTime) {
+        if(m_dirty)
+            buildStages();
+
+        int size = m_Store.size();
+        for(List<UpdateSystem> stage : m_Stages) {
+            // A stage with a single small system isn't worth handing over to the pool
+            if(stage.size() == 1 && !shouldSplit(stage.get(0), size)) {
+                stage.get(0).update(m_Store, 0, size, deltaTime);
+                continue;
+            }
+
+            m_Tasks.clear();
+            for(UpdateSystem system : stage)
+                m_Tasks.add(new RangeTask(system, m_Store, deltaTime, 0, size));
+
+            m_Pool.invoke(new StageTask(m_Tasks));
+        }
+    }
+
+    /**
+     * Stops our pool, if we created it ourselves.
+     */
+    public void cleanup() {
+        if(m_OwnsPool)
+            m_Pool.shutdown();
+    }
+
+    public int getStageCount() {
+        if(m_dirty)
+            buildStages();
+
+        return m_Stages.size();
+    }
+
+    /**
+     * Puts every system in the earliest stage that comes after every earlier system it conflicts with.
+     */
+    private void buildStages() {
+        m_Stages.clear();
+
+        int[] stageOf = new int[m_Systems.size()];
+        for(int i = 0; i < m_Systems.size(); i++) {
+            UpdateSystem system = m_Systems.get(i);
+
+            int stage = 0;
+            for(int j = 0; j < i; j++) {
+                if(conflicts(m_Systems.get(j), system))
+                    stage = Math.max(stage, stageOf[j] + 1);
+            }
+
+            stageOf[i] = stage;
+            while(m_Stages.size() <= stage)
+                m_Stages.add(new ArrayList<>());
+
+            m_Stages.get(stage).add(system);
+        }
+
+        m_dirty = false;
+    }
+
+    private static boolean conflicts(UpdateSystem first, UpdateSystem second) {
+        return (first.writes() & (second.reads() | second.writes())) != 0 || (second.writes() & first.reads()) != 0;
+    }
+
+    private static boolean shouldSplit(UpdateSystem system, int size) {
+        return system.batchSize() > 0 && size > system.batchSize();
+    }
+
+    /**
+     * Runs every system of a stage at the same time.
+     */
+    private static class StageTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ForkJoinTask<?>> m_Tasks;
+
+        public StageTask(List<ForkJoinTask<?>> tasks) {
+            m_Tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(m_Tasks);
+        }
+
+    }
+
+    /**
+     * Splits the slots a system has to update in half until they fit in a single batch.
+     */
+    private static class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final UpdateSystem m_System;
+        private final EntityStore m_Store;
+        private final float m_DeltaTime;
+        private final int m_From, m_To;
+
+        public RangeTask(UpdateSystem system, EntityStore store, float deltaTime, int from, int to) {
+            m_System = system;
+            m_Store = store;
+            m_DeltaTime = deltaTime;
+            m_From = from;
+            m_To = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(shouldSplit(m_System, m_To - m_From)) {
+                int middle = (m_From + m_To) >>> 1;
+                invokeAll(new RangeTask(m_System, m_Store, m_DeltaTime, m_From, middle),
+                          new RangeTask(m_System, m_Store, m_DeltaTime, middle, m_To));
+                return;
+            }
+
+            m_System.update(m_Store, m_From, m_To, m_DeltaTime);
+        }
+
+    }
+
+}
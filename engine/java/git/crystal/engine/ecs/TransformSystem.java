@@ -0,0 +1,50 @@
+package git.crystal.engine.ecs;
+
+import com.badlogic.ashley.core.EntitySystem;
+import org.joml.Matrix4f;
+
+/**
+ * Rebuilds the world matrices of every Entity that moved since the last update. By default it runs after every
+ * other system, since Ashley runs lower priorities first. A SystemScheduler can split it up as well.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class TransformSystem extends EntitySystem implements UpdateSystem {
+
+    private final EntityStore m_Store;
+    // Every thread working on a range of ours needs a matrix of its own to build into
+    private final ThreadLocal<Matrix4f> m_Scratch;
+
+    public TransformSystem(EntityStore store) {
+        this(store, Integer.MAX_VALUE);
+    }
+
+    public TransformSystem(EntityStore store, int priority) {
+        super(priority);
+        m_Store = store;
+        m_Scratch = ThreadLocal.withInitial(Matrix4f::new);
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        m_Store.updateTransforms();
+    }
+
+    @Override
+    public void update(EntityStore store, int from, int to, float deltaTime) {
+        store.updateTransforms(from, to, m_Scratch.get());
+    }
+
+    @Override
+    public int reads() {
+        return EntityStore.POSITION | EntityStore.ROTATION | EntityStore.SCALE;
+    }
+
+    @Override
+    public int writes() {
+        return EntityStore.TRANSFORM;
+    }
+
+}
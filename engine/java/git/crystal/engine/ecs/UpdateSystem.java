@@ -0,0 +1,40 @@
+package git.crystal.engine.ecs;
+
+/**
+ * A system the SystemScheduler can run alongside others. It tells the scheduler which components of our
+ * EntityStore it reads and writes, using the bits from EntityStore, so systems that don't touch the same data
+ * can run at the same time.
+ *
+ * A system is handed a range of slots at a time and may only write to the slots within that range. That way
+ * a large system can be split up over every core without two threads ever writing the same slot.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public interface UpdateSystem {
+
+    /**
+     * @return the components we read, like EntityStore.POSITION | EntityStore.VELOCITY
+     */
+    int reads();
+
+    /**
+     * @return the components we write
+     */
+    int writes();
+
+    /**
+     * Updates the slots from up to, but not including, to.
+     */
+    void update(EntityStore store, int from, int to, float deltaTime);
+
+    /**
+     * @return how many slots a single task handles at most, or 0 to never split this system up. Larger ranges are
+     *         halved until they fit, so a task ends up with somewhere between half of this and this many
+     */
+    default int batchSize() {
+        return 4096;
+    }
+
+}
@@ -0,0 +1,123 @@
+package git.crystal.engine.render;
+
+import git.crystal.engine.utils.Files;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.lwjgl.stb.STBImage.*;
+import static org.lwjgl.system.MemoryStack.stackPush;
+
+/**
+ * A decoded image sitting in memory, ready to be uploaded into a Texture. Decoding doesn't need OpenGL, so this
+ * can happen on any thread. The pixels are owned by stb and have to be given back with {@link #free()}.
+ *
+ * Every image that hasn't been freed yet is counted, so a leak shows up as {@link #getLiveImages()} that keeps
+ * on growing.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class ImageData {
+
+    private static final AtomicInteger s_LiveImages = new AtomicInteger();
+    private static final AtomicLong s_LiveBytes = new AtomicLong();
+
+    private final int m_Width, m_Height;
+    private ByteBuffer m_pixels;
+
+    private ImageData(int width, int height, ByteBuffer pixels) {
+        m_Width = width;
+        m_Height = height;
+        m_pixels = pixels;
+    }
+
+    /**
+     * Decodes an image file straight out of a memory mapped view of it, without copying it anywhere first.
+     *
+     * @param filePath the path of the image file
+     * @param internal whether the file is within the jar file or not
+     * @return the decoded image
+     */
+    public static ImageData load(String filePath, boolean internal) {
+        return decode(Files.mapFile(filePath, internal), filePath);
+    }
+
+    /**
+     * Decodes an image file into RGBA pixels, flipped so the first row is the bottom of the image like OpenGL expects.
+     *
+     * @param encoded the contents of an image file, like a png or jpg, in a direct buffer
+     * @param name what to call the image if decoding fails
+     * @return the decoded image
+     */
+    public static ImageData decode(ByteBuffer encoded, String name) {
+        try (MemoryStack stack = stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer comp = stack.mallocInt(1);
+
+            // The regular flag is shared by every thread, this one only affects the thread we're decoding on
+            stbi_set_flip_vertically_on_load_thread(1);
+            ByteBuffer pixels = stbi_load_from_memory(encoded, w, h, comp, 4);
+            if(pixels == null)
+                throw new RuntimeException(String.format("Failed to load image [%s]!%n%s", name, stbi_failure_reason()));
+
+            ImageData image = new ImageData(w.get(0), h.get(0), pixels);
+            s_LiveImages.incrementAndGet();
+            s_LiveBytes.addAndGet(image.getByteSize());
+
+            return image;
+        }
+    }
+
+    /**
+     * Gives our pixels back to stb. Safe to call more than once.
+     */
+    public void free() {
+        if(m_pixels != null) {
+            stbi_image_free(m_pixels);
+            m_pixels = null;
+
+            s_LiveImages.decrementAndGet();
+            s_LiveBytes.addAndGet(-getByteSize());
+        }
+    }
+
+    /**
+     * @return how many decoded images haven't been freed yet
+     */
+    public static int getLiveImages() {
+        return s_LiveImages.get();
+    }
+
+    /**
+     * @return how many bytes of pixels haven't been freed yet
+     */
+    public static long getLiveBytes() {
+        return s_LiveBytes.get();
+    }
+
+    public int getWidth() {
+        return m_Width;
+    }
+
+    public int getHeight() {
+        return m_Height;
+    }
+
+    public ByteBuffer getPixels() {
+        return m_pixels;
+    }
+
+    /**
+     * @return how many bytes our pixels take up
+     */
+    public int getByteSize() {
+        return m_Width * m_Height * 4;
+    }
+
+}
@@ -0,0 +1,199 @@
+package git.crystal.engine.render;
+
+import git.crystal.engine.render.atlas.AtlasRegion;
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.glEnableVertexAttribArray;
+import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
+
+/**
+ * Holds the per-instance data of everything we draw with a single instanced draw call. Every instance gets
+ * its model matrix, its color and where its image sits within an atlas, which the instanced shader reads as
+ * vertex attributes instead of uniforms.
+ *
+ * The layout of an instance is a mat4 at attribute locations 3 to 6, followed by a vec3 color at location 7,
+ * the float atlas layer at location 8 and the vec4 texture coordinate transform (scale u, scale v, offset u,
+ * offset v) at location 9, see {@link AtlasRegion}.
+ *
+ * Instances are written straight into a StreamBuffer. When it is persistently mapped, every run of instances
+ * lands at its own spot within the frame's region, and is drawn with {@link #getBaseInstance()} as its first
+ * instance, so the attribute pointers of a VAO never have to change.
+ *
+ * Which buffer every VAO points at is remembered by its GL name. The driver reuses the names of deleted VAOs,
+ * so whoever deletes one has to {@link #forget(int)} it, or a new VAO with the same name would never be
+ * prepared.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class InstanceBuffer {
+
+    public static final int MATRIX_LOCATION = 3;
+    public static final int COLOR_LOCATION = 7;
+    public static final int LAYER_LOCATION = 8;
+    public static final int UV_TRANSFORM_LOCATION = 9;
+
+    // 16 floats for the matrix, 3 for the color, 1 for the layer and 4 for the texture coordinate transform
+    public static final int FLOATS_PER_INSTANCE = 24;
+    private static final int STRIDE = FLOATS_PER_INSTANCE * Float.BYTES;
+
+    // The generation of the StreamBuffer every VAO was last pointed at, a VAO remembers that for us until the
+    // buffer gets replaced. Shared by every InstanceBuffer, as the same VAO may be drawn by more than one of them
+    private static final Map<Integer, Integer> s_PreparedVAOs = new HashMap<>();
+
+    private final StreamBuffer m_Stream;
+
+    private FloatBuffer m_data;
+    private int m_count, m_baseInstance;
+
+    /**
+     * @param initialCapacity how many instances a single frame can hold before our buffer has to grow
+     */
+    public InstanceBuffer(int initialCapacity) {
+        m_Stream = new StreamBuffer(GL_ARRAY_BUFFER, Math.max(initialCapacity, 1) * STRIDE);
+        m_count = 0;
+    }
+
+    /**
+     * Starts a new frame, call this before the first instanced draw of every frame.
+     */
+    public void beginFrame() {
+        m_Stream.beginFrame();
+    }
+
+    /**
+     * Claims room for the instances of a single draw.
+     *
+     * @param instanceCount how many instances are about to be put in
+     */
+    public void begin(int instanceCount) {
+        m_data = m_Stream.allocate(instanceCount * STRIDE, STRIDE).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        m_baseInstance = (int) (m_Stream.getLastOffset() / STRIDE);
+        m_count = 0;
+    }
+
+    public void put(Matrix4fc modelMatrix, Vector3f color) {
+        modelMatrix.get(m_data.position(), m_data);
+        m_data.position(m_data.position() + 16);
+        putMaterial(color, null);
+
+        m_count++;
+    }
+
+    /**
+     * Adds an instance whose model matrix lives in an array of column-major matrices.
+     *
+     * @param matrices the array holding our model matrix
+     * @param offset where in the array our model matrix starts
+     */
+    public void put(float[] matrices, int offset, Vector3f color) {
+        put(matrices, offset, color, null);
+    }
+
+    /**
+     * Adds an instance whose model matrix lives in an array of column-major matrices.
+     *
+     * @param matrices the array holding our model matrix
+     * @param offset where in the array our model matrix starts
+     * @param region where the image of this instance sits within its atlas, or null if it doesn't use one
+     */
+    public void put(float[] matrices, int offset, Vector3f color, AtlasRegion region) {
+        m_data.put(matrices, offset, 16);
+        putMaterial(color, region);
+
+        m_count++;
+    }
+
+    private void putMaterial(Vector3f color, AtlasRegion region) {
+        m_data.put(color.x).put(color.y).put(color.z);
+
+        if(region == null)
+            m_data.put(0f).put(1f).put(1f).put(0f).put(0f);
+        else
+            m_data.put(region.getLayer()).put(region.getScaleU()).put(region.getScaleV()).put(region.getOffsetU()).put(region.getOffsetV());
+    }
+
+    /**
+     * Makes the instances we put in visible to the GPU. With a persistently mapped buffer they already are.
+     */
+    public void upload() {
+        m_Stream.flush();
+    }
+
+    /**
+     * Points the instance attributes of a VAO at our buffer. This only has to happen again when our buffer
+     * was replaced since the last time.
+     *
+     * @param vaoId the VAO we want to draw instanced
+     */
+    public void prepare(int vaoId) {
+        Integer prepared = s_PreparedVAOs.put(vaoId, m_Stream.getGeneration());
+        if(prepared != null && prepared == m_Stream.getGeneration())
+            return;
+
+        glBindVertexArray(vaoId);
+        glBindBuffer(GL_ARRAY_BUFFER, m_Stream.getId());
+
+        // A mat4 attribute takes up 4 locations, one per column
+        for(int i = 0; i < 4; i++) {
+            glEnableVertexAttribArray(MATRIX_LOCATION + i);
+            glVertexAttribPointer(MATRIX_LOCATION + i, 4, GL_FLOAT, false, STRIDE, (long) i * 4 * Float.BYTES);
+            glVertexAttribDivisor(MATRIX_LOCATION + i, 1);
+        }
+
+        glEnableVertexAttribArray(COLOR_LOCATION);
+        glVertexAttribPointer(COLOR_LOCATION, 3, GL_FLOAT, false, STRIDE, 16 * Float.BYTES);
+        glVertexAttribDivisor(COLOR_LOCATION, 1);
+
+        glEnableVertexAttribArray(LAYER_LOCATION);
+        glVertexAttribPointer(LAYER_LOCATION, 1, GL_FLOAT, false, STRIDE, 19 * Float.BYTES);
+        glVertexAttribDivisor(LAYER_LOCATION, 1);
+
+        glEnableVertexAttribArray(UV_TRANSFORM_LOCATION);
+        glVertexAttribPointer(UV_TRANSFORM_LOCATION, 4, GL_FLOAT, false, STRIDE, 20 * Float.BYTES);
+        glVertexAttribDivisor(UV_TRANSFORM_LOCATION, 1);
+
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+    }
+
+    /**
+     * Forgets whatever a VAO was pointed at, call this whenever one is deleted. Its name may be handed out again,
+     * and the VAO that gets it has to be prepared from scratch.
+     *
+     * @param vaoId the VAO that was deleted
+     */
+    public static void forget(int vaoId) {
+        s_PreparedVAOs.remove(vaoId);
+    }
+
+    public void cleanup() {
+        m_Stream.cleanup();
+    }
+
+    public int getCount() {
+        return m_count;
+    }
+
+    /**
+     * @return the first instance of the last draw we claimed room for, to be passed along with the draw call
+     */
+    public int getBaseInstance() {
+        return m_baseInstance;
+    }
+
+    public StreamBuffer getStream() {
+        return m_Stream;
+    }
+
+}
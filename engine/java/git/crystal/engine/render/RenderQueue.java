@@ -0,0 +1,261 @@
+package git.crystal.engine.render;
+
+import git.crystal.engine.GameObject;
+import git.crystal.engine.render.mesh.Mesh;
+import org.joml.Matrix4fc;
+
+import java.util.Arrays;
+
+/**
+ * Collects everything we want to draw in a frame and puts it in the order that needs the fewest state changes.
+ * Every submitted object is turned into a 64-bit sort key, and the keys are radix sorted once per frame.
+ *
+ * Opaque objects sort first, by shader, then texture, then VAO and finally front-to-back so the depth test can
+ * throw away hidden fragments early:
+ * <pre>
+ *   [63] 0 | [62..55] shader | [54..39] texture | [38..23] VAO | [22..0] depth
+ * </pre>
+ * Transparent objects sort after them strictly back-to-front, because blending only looks right in that order:
+ * <pre>
+ *   [63] 1 | [62..40] inverted depth | [39..32] shader | [31..16] texture | [15..0] VAO
+ * </pre>
+ * GL names are cut down to fit their field. Two different names sharing the same bits only costs us a state
+ * change, since we always compare the real names when walking the queue.
+ *
+ * The model matrix of everything submitted is copied into one flat array, 16 floats per entry in submission
+ * order. Whatever the transforms came from, drawing only ever reads them from there.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class RenderQueue {
+
+    public static final long TRANSPARENT_BIT = 1L << 63;
+
+    private static final int DEPTH_BITS = 23;
+    private static final int DEPTH_MAX = (1 << DEPTH_BITS) - 1;
+
+    private long[] m_keys, m_scratchKeys;
+    private int[] m_items, m_scratchItems;
+    private Mesh[] m_meshes;
+    private float[] m_transforms;
+    private int m_size;
+
+    private final int[] m_Histogram;
+
+    public RenderQueue() {
+        this(256);
+    }
+
+    public RenderQueue(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+
+        m_keys = new long[capacity];
+        m_scratchKeys = new long[capacity];
+        m_items = new int[capacity];
+        m_scratchItems = new int[capacity];
+        m_meshes = new Mesh[capacity];
+        m_transforms = new float[capacity * 16];
+
+        m_Histogram = new int[256];
+    }
+
+    public void clear() {
+        // Drop our references so Meshes removed from the game can actually be collected
+        Arrays.fill(m_meshes, 0, m_size, null);
+        m_size = 0;
+    }
+
+    /**
+     * Adds a GameObject to the queue for this frame.
+     *
+     * @param object the object we want to draw
+     * @param viewMatrix the view matrix of the Camera we are drawing with
+     * @param shaderId the Shader Program the object will be drawn with
+     */
+    public void submit(GameObject object, Matrix4fc viewMatrix, int shaderId) {
+        submit(object.getMesh(), object.getModelMatrix(), viewMatrix, shaderId);
+    }
+
+    /**
+     * Adds a Mesh to the queue for this frame.
+     *
+     * @param mesh the Mesh we want to draw
+     * @param modelMatrix where in the world the Mesh is drawn
+     * @param viewMatrix the view matrix of the Camera we are drawing with
+     * @param shaderId the Shader Program the Mesh will be drawn with
+     */
+    public void submit(Mesh mesh, Matrix4fc modelMatrix, Matrix4fc viewMatrix, int shaderId) {
+        if(m_size == m_keys.length)
+            grow();
+
+        modelMatrix.get(m_transforms, m_size * 16);
+        add(mesh, viewMatrix, shaderId);
+    }
+
+    /**
+     * Adds a Mesh to the queue for this frame, with its model matrix read straight out of an array of them.
+     *
+     * @param mesh the Mesh we want to draw
+     * @param matrices an array of column-major model matrices
+     * @param offset where in the array the model matrix of this Mesh starts
+     * @param viewMatrix the view matrix of the Camera we are drawing with
+     * @param shaderId the Shader Program the Mesh will be drawn with
+     */
+    public void submit(Mesh mesh, float[] matrices, int offset, Matrix4fc viewMatrix, int shaderId) {
+        if(m_size == m_keys.length)
+            grow();
+
+        System.arraycopy(matrices, offset, m_transforms, m_size * 16, 16);
+        add(mesh, viewMatrix, shaderId);
+    }
+
+    private void add(Mesh mesh, Matrix4fc viewMatrix, int shaderId) {
+        // Distance along the view direction, the Camera looks down negative z
+        int offset = m_size * 16;
+        float x = m_transforms[offset + 12], y = m_transforms[offset + 13], z = m_transforms[offset + 14];
+        float viewZ = -(viewMatrix.m02() * x + viewMatrix.m12() * y + viewMatrix.m22() * z + viewMatrix.m32());
+
+        m_keys[m_size] = createKey(mesh, viewZ, shaderId);
+        m_items[m_size] = m_size;
+        m_meshes[m_size] = mesh;
+        m_size++;
+    }
+
+    /**
+     * Sorts everything submitted so far by its key. This is a least significant digit radix sort over
+     * 8 bits at a time, any byte that is the same across every key is skipped entirely.
+     */
+    public void sort() {
+        long[] keys = m_keys, scratchKeys = m_scratchKeys;
+        int[] items = m_items, scratchItems = m_scratchItems;
+
+        for(int shift = 0; shift < Long.SIZE; shift += 8) {
+            Arrays.fill(m_Histogram, 0);
+            for(int i = 0; i < m_size; i++)
+                m_Histogram[(int) (keys[i] >>> shift) & 0xFF]++;
+
+            if(m_size == 0 || m_Histogram[(int) (keys[0] >>> shift) & 0xFF] == m_size)
+                continue;
+
+            int offset = 0;
+            for(int i = 0; i < 256; i++) {
+                int count = m_Histogram[i];
+                m_Histogram[i] = offset;
+                offset += count;
+            }
+
+            for(int i = 0; i < m_size; i++) {
+                int slot = m_Histogram[(int) (keys[i] >>> shift) & 0xFF]++;
+                scratchKeys[slot] = keys[i];
+                scratchItems[slot] = items[i];
+            }
+
+            long[] swapKeys = keys;
+            keys = scratchKeys;
+            scratchKeys = swapKeys;
+
+            int[] swapItems = items;
+            items = scratchItems;
+            scratchItems = swapItems;
+        }
+
+        m_keys = keys;
+        m_scratchKeys = scratchKeys;
+        m_items = items;
+        m_scratchItems = scratchItems;
+    }
+
+    /**
+     * Finds where the run of objects starting at index ends. A run is a stretch of opaque objects that share
+     * the same VAO and texture, meaning they could all be drawn together. Meshes showing different images
+     * of the same atlas share a texture.
+     *
+     * @return the index right after the last object of the run
+     */
+    public int runEnd(int index) {
+        if(isTransparent(index))
+            return index + 1;
+
+        Mesh first = getMesh(index);
+        int end = index + 1;
+        while(end < m_size && !isTransparent(end) && sharesState(first, getMesh(end)))
+            end++;
+
+        return end;
+    }
+
+    public Mesh getMesh(int index) {
+        return m_meshes[m_items[index]];
+    }
+
+    /**
+     * @return the flat array holding the model matrix of everything in the queue, see {@link #getTransformOffset(int)}
+     */
+    public float[] getTransforms() {
+        return m_transforms;
+    }
+
+    /**
+     * @return where the model matrix of the entry at this index starts within {@link #getTransforms()}
+     */
+    public int getTransformOffset(int index) {
+        return m_items[index] * 16;
+    }
+
+    public long getKey(int index) {
+        return m_keys[index];
+    }
+
+    public boolean isTransparent(int index) {
+        return (m_keys[index] & TRANSPARENT_BIT) != 0;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public static boolean sharesState(Mesh a, Mesh b) {
+        return a.getVAO() == b.getVAO() && textureOf(a) == textureOf(b);
+    }
+
+    /**
+     * @return the GL name of whatever texture a Mesh is drawn with, its atlas if it has one, or 0 for none
+     */
+    public static int textureOf(Mesh mesh) {
+        if(!mesh.usesTexture())
+            return 0;
+
+        if(mesh.getAtlasRegion() != null)
+            return mesh.getAtlasRegion().getAtlas().getId();
+
+        return mesh.getTexture() != null ? mesh.getTexture().getId() : 0;
+    }
+
+    private static long createKey(Mesh mesh, float viewZ, int shaderId) {
+        float range = (viewZ - Renderer.Z_NEAR) / (Renderer.Z_FAR - Renderer.Z_NEAR);
+        long depth = (long) (Math.min(Math.max(range, 0f), 1f) * DEPTH_MAX);
+
+        long shader = shaderId & 0xFFL;
+        long texture = textureOf(mesh) & 0xFFFFL;
+        long vao = mesh.getVAO() & 0xFFFFL;
+
+        if(mesh.isTransparent())
+            return TRANSPARENT_BIT | ((DEPTH_MAX - depth) << 40) | (shader << 32) | (texture << 16) | vao;
+
+        return (shader << 55) | (texture << 39) | (vao << 23) | depth;
+    }
+
+    private void grow() {
+        int capacity = m_keys.length * 2;
+
+        m_keys = Arrays.copyOf(m_keys, capacity);
+        m_scratchKeys = new long[capacity];
+        m_items = Arrays.copyOf(m_items, capacity);
+        m_scratchItems = new int[capacity];
+        m_meshes = Arrays.copyOf(m_meshes, capacity);
+        m_transforms = Arrays.copyOf(m_transforms, capacity * 16);
+    }
+
+}
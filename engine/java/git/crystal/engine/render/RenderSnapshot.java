@@ -0,0 +1,246 @@
+package git.crystal.engine.render;
+
+import git.crystal.engine.GameObject;
+import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.render.util.Camera;
+import git.crystal.engine.scene.SceneGraph;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+import java.util.Arrays;
+
+/**
+ * Everything the render thread needs to know about a single tick of our simulation: which Meshes to draw, where
+ * they were and where the Camera was. The simulation fills one in after every tick and publishes it through a
+ * SnapshotBuffer, after which it is never written to again until the render thread is done with it.
+ *
+ * Transforms are kept as position, rotation and scale, so two snapshots can be blended smoothly. Entries are
+ * matched up between snapshots by their id, which only has to be the same at the same index in both.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class RenderSnapshot {
+
+    private Mesh[] m_meshes;
+    private int[] m_ids;
+    // 3 floats per entry for positions and scales, 4 for the rotation quaternions
+    private float[] m_positions, m_rotations, m_scales;
+    private int m_size;
+
+    private final Vector3f m_CameraPosition, m_CameraRotation;
+    private final Quaternionf m_Rotation, m_PreviousRotation;
+    // Scratch space for taking apart the world matrices of a SceneGraph
+    private final Matrix4f m_World;
+    private final Vector3f m_Position, m_Scale;
+
+    private double m_time;
+    private boolean m_published;
+
+    public RenderSnapshot() {
+        this(256);
+    }
+
+    public RenderSnapshot(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+
+        m_meshes = new Mesh[capacity];
+        m_ids = new int[capacity];
+        m_positions = new float[capacity * 3];
+        m_rotations = new float[capacity * 4];
+        m_scales = new float[capacity * 3];
+
+        m_CameraPosition = new Vector3f();
+        m_CameraRotation = new Vector3f();
+        m_Rotation = new Quaternionf();
+        m_PreviousRotation = new Quaternionf();
+        m_World = new Matrix4f();
+        m_Position = new Vector3f();
+        m_Scale = new Vector3f();
+    }
+
+    /**
+     * Adds a GameObject, using the order it was added in as its id. Add your objects in the same order every
+     * tick and they will blend smoothly.
+     */
+    public void add(GameObject object) {
+        Vector3fc rotation = object.getRotation();
+        m_Rotation.rotationXYZ((float) Math.toRadians(-rotation.x()), (float) Math.toRadians(-rotation.y()), (float) Math.toRadians(-rotation.z()));
+
+        add(m_size, object.getMesh(), object.getPosition(), m_Rotation, object.getScale());
+    }
+
+    /**
+     * Adds every node of a SceneGraph that has a Mesh, where it was as of the last {@link SceneGraph#update()}.
+     * Nodes use their handle as their id, so they keep blending smoothly as long as the graph isn't reordered.
+     * World matrices are taken apart into position, rotation and scale to be blended, so any shear from
+     * non-uniformly scaled parents is lost.
+     */
+    public void add(SceneGraph scene) {
+        float[] worldMatrices = scene.getWorldMatrices();
+
+        for(int i = 0; i < scene.size(); i++) {
+            Mesh mesh = scene.getMeshAt(i);
+            if(mesh == null)
+                continue;
+
+            m_World.set(worldMatrices, i * 16);
+            m_World.getTranslation(m_Position);
+            m_World.getScale(m_Scale);
+            m_World.getUnnormalizedRotation(m_Rotation);
+
+            add(scene.getIdAt(i), mesh, m_Position, m_Rotation, m_Scale);
+        }
+    }
+
+    /**
+     * Adds something to draw.
+     *
+     * @param id identifies this entry across snapshots, so we know which entry of the previous snapshot to blend with
+     * @param mesh the Mesh to draw
+     * @param position where in the world the Mesh is
+     * @param rotation how the Mesh is rotated
+     * @param scale how the Mesh is scaled
+     */
+    public void add(int id, Mesh mesh, Vector3fc position, Quaternionf rotation, Vector3fc scale) {
+        if(m_published)
+            throw new IllegalStateException("A RenderSnapshot can't be changed once it has been published!");
+
+        if(m_size == m_ids.length)
+            grow();
+
+        int index = m_size++;
+        m_meshes[index] = mesh;
+        m_ids[index] = id;
+
+        m_positions[index * 3] = position.x();
+        m_positions[index * 3 + 1] = position.y();
+        m_positions[index * 3 + 2] = position.z();
+
+        m_rotations[index * 4] = rotation.x;
+        m_rotations[index * 4 + 1] = rotation.y;
+        m_rotations[index * 4 + 2] = rotation.z;
+        m_rotations[index * 4 + 3] = rotation.w;
+
+        m_scales[index * 3] = scale.x();
+        m_scales[index * 3 + 1] = scale.y();
+        m_scales[index * 3 + 2] = scale.z();
+    }
+
+    public void setCamera(Camera camera) {
+        if(m_published)
+            throw new IllegalStateException("A RenderSnapshot can't be changed once it has been published!");
+
+        m_CameraPosition.set(camera.getPosition());
+        m_CameraRotation.set(camera.getRotation());
+    }
+
+    /**
+     * Builds the model matrix of an entry, blended with the same entry of an older snapshot. Only call this
+     * from one thread at a time, we blend rotations in a shared scratch quaternion.
+     *
+     * @param previous the snapshot before this one, may be null
+     * @param index the entry we want
+     * @param alpha how far along from the previous snapshot to this one we are, from 0 to 1
+     * @param dest where the model matrix is written to
+     * @return dest
+     */
+    public Matrix4f interpolate(RenderSnapshot previous, int index, float alpha, Matrix4f dest) {
+        int position = index * 3, rotation = index * 4;
+        m_Rotation.set(m_rotations[rotation], m_rotations[rotation + 1], m_rotations[rotation + 2], m_rotations[rotation + 3]);
+
+        // Anything new this tick has nothing to blend with, so it simply shows up where it is
+        if(previous == null || index >= previous.m_size || previous.m_ids[index] != m_ids[index] || alpha >= 1f) {
+            return dest.translationRotateScale(m_positions[position], m_positions[position + 1], m_positions[position + 2],
+                    m_Rotation.x, m_Rotation.y, m_Rotation.z, m_Rotation.w,
+                    m_scales[position], m_scales[position + 1], m_scales[position + 2]);
+        }
+
+        float[] positions = previous.m_positions, rotations = previous.m_rotations, scales = previous.m_scales;
+        m_PreviousRotation.set(rotations[rotation], rotations[rotation + 1], rotations[rotation + 2], rotations[rotation + 3]);
+        m_PreviousRotation.slerp(m_Rotation, alpha);
+
+        return dest.translationRotateScale(
+                lerp(positions[position], m_positions[position], alpha),
+                lerp(positions[position + 1], m_positions[position + 1], alpha),
+                lerp(positions[position + 2], m_positions[position + 2], alpha),
+                m_PreviousRotation.x, m_PreviousRotation.y, m_PreviousRotation.z, m_PreviousRotation.w,
+                lerp(scales[position], m_scales[position], alpha),
+                lerp(scales[position + 1], m_scales[position + 1], alpha),
+                lerp(scales[position + 2], m_scales[position + 2], alpha));
+    }
+
+    /**
+     * Blends the Camera of an older snapshot with ours.
+     *
+     * @param previous the snapshot before this one, may be null
+     * @param alpha how far along from the previous snapshot to this one we are, from 0 to 1
+     * @param position where the blended position is written to
+     * @param rotation where the blended rotation is written to
+     */
+    public void interpolateCamera(RenderSnapshot previous, float alpha, Vector3f position, Vector3f rotation) {
+        if(previous == null) {
+            position.set(m_CameraPosition);
+            rotation.set(m_CameraRotation);
+            return;
+        }
+
+        previous.m_CameraPosition.lerp(m_CameraPosition, alpha, position);
+        previous.m_CameraRotation.lerp(m_CameraRotation, alpha, rotation);
+    }
+
+    public Mesh getMesh(int index) {
+        return m_meshes[index];
+    }
+
+    public int getId(int index) {
+        return m_ids[index];
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * @return the time, in seconds, at which this snapshot was published
+     */
+    public double getTime() {
+        return m_time;
+    }
+
+    public boolean isPublished() {
+        return m_published;
+    }
+
+    /**
+     * Empties this snapshot so it can be filled in again. Only SnapshotBuffer reuses snapshots.
+     */
+    void reset() {
+        Arrays.fill(m_meshes, 0, m_size, null);
+        m_size = 0;
+        m_published = false;
+    }
+
+    void publish(double time) {
+        m_time = time;
+        m_published = true;
+    }
+
+    private static float lerp(float from, float to, float alpha) {
+        return from + (to - from) * alpha;
+    }
+
+    private void grow() {
+        int capacity = m_ids.length * 2;
+
+        m_meshes = Arrays.copyOf(m_meshes, capacity);
+        m_ids = Arrays.copyOf(m_ids, capacity);
+        m_positions = Arrays.copyOf(m_positions, capacity * 3);
+        m_rotations = Arrays.copyOf(m_rotations, capacity * 4);
+        m_scales = Arrays.copyOf(m_scales, capacity * 3);
+    }
+
+}
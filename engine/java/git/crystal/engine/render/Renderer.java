@@ -1,15 +1,40 @@
 package git.crystal.engine.render;
 
 import git.crystal.engine.GameObject;
+import git.crystal.engine.render.atlas.AtlasRegion;
+import git.crystal.engine.ecs.EntityStore;
+import git.crystal.engine.render.mesh.GeometryPool;
 import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.render.uniform.UniformBuffer;
+import git.crystal.engine.render.uniform.UniformFloat;
+import git.crystal.engine.render.uniform.UniformInt;
+import git.crystal.engine.render.uniform.UniformMat4;
+import git.crystal.engine.render.uniform.UniformVec3;
+import git.crystal.engine.render.uniform.UniformVec4;
+import git.crystal.engine.render.util.BoundingVolume;
 import git.crystal.engine.render.util.Camera;
 import git.crystal.engine.render.util.Transformation;
+import git.crystal.engine.scene.SceneGraph;
+import git.crystal.engine.utils.Profiler;
+import org.joml.FrustumIntersection;
 import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.lwjgl.opengl.GLCapabilities;
 
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.List;
 
-import static org.lwjgl.opengl.GL11.GL_FALSE;
-import static org.lwjgl.opengl.GL11.GL_TRUE;
+import static org.lwjgl.opengl.GL.getCapabilities;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE1;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL40.GL_DRAW_INDIRECT_BUFFER;
+import static org.lwjgl.opengl.GL43.glMultiDrawElementsIndirect;
 
 /**
  * This class handles everything that has to do with Rendering our data to the screen.
@@ -23,59 +48,524 @@ public class Renderer {
     public static final float FOV = (float) Math.toRadians(60.0f);
     public static final float Z_NEAR = 0.01f, Z_FAR = 1000.0f;
 
+    // How many objects need to share a Mesh and material before we bother drawing them instanced
+    public static final int INSTANCE_THRESHOLD = 2;
+
+    // The Profiler counters we add to every frame
+    public static final String DRAW_CALLS = "draw calls", VISIBLE_OBJECTS = "visible objects", CULLED_OBJECTS = "culled objects";
+
+    // An indirect draw command is 5 uints: count, instance count, first index, base vertex and base instance
+    private static final int INDIRECT_COMMAND_SIZE = 5 * Integer.BYTES;
+
+    /*
+     * What our shaders are told through uUseTexture. Regular Textures are bound to unit 0 as uTextureSampler,
+     * atlases to unit 1 as uTextureArraySampler, so switching between the two never rebinds the other.
+     */
+    public static final int TEXTURE_NONE = 0, TEXTURE_2D = 1, TEXTURE_ARRAY = 2;
+
+    /*
+     * Per-frame data shared by every Shader Program through a std140 uniform block:
+     *   layout (std140) uniform FrameData { mat4 uProjectionMatrix; mat4 uViewMatrix; };
+     */
+    public static final String FRAME_BLOCK = "FrameData";
+    public static final int FRAME_BINDING = 0;
+    private static final int FRAME_PROJECTION_OFFSET = 0, FRAME_VIEW_OFFSET = 64, FRAME_SIZE = 128;
+
     private final Transformation m_Transformation;
+    private final RenderQueue m_Queue;
+
+    private final FrustumIntersection m_Frustum;
+    private final Matrix4f m_ProjectionViewMatrix, m_ModelMatrix, m_ModelViewMatrix;
+    private final BoundingVolume m_WorldBounds;
+    private final Vector3f m_CameraPosition, m_CameraRotation;
+    private Matrix4f m_projectionMatrix;
+    private boolean m_frustumCulling;
+    private int m_visibleCount, m_culledCount, m_drawCallCount;
+
+    // The GL state as we last left it, so walking the queue only touches what actually changes
+    private final Vector3f m_BoundColor;
+    private Shader m_boundShader;
+    private int m_boundVAO, m_boundTexture, m_boundArrayTexture, m_boundUseTexture;
+    private AtlasRegion m_boundRegion;
+    private boolean m_regionBound;
 
-    private Shader m_shader;
+    private Shader m_shader, m_instancedShader;
+    // Whether we looked up the uniforms of each Shader yet, which happens the first time it is bound
+    private boolean m_shaderSetUp, m_instancedShaderSetUp;
+    private InstanceBuffer m_instanceBuffer;
+    // Holds the draw commands of pooled Meshes, only there when we can use glMultiDrawElementsIndirect
+    private StreamBuffer m_indirectBuffer;
+    private UniformBuffer m_frameUniforms;
+
+    private UniformMat4 m_uModelViewMatrix;
+    private UniformVec3 m_uColor;
+    private UniformVec4 m_uUvTransform;
+    private UniformFloat m_uLayer;
+    private UniformInt m_uUseTexture, m_uInstancedUseTexture;
 
     public Renderer(Shader shader) {
+        this(shader, null);
+    }
+
+    /**
+     * Creates a Renderer that draws Meshes shared by many GameObjects with a single instanced draw call.
+     *
+     * @param shader the Shader used for everything drawn one at a time
+     * @param instancedShader the Shader used for instanced draws, it reads the model matrix and color of every
+     *                        instance from the attributes laid out by {@link InstanceBuffer}. May be null
+     */
+    public Renderer(Shader shader, Shader instancedShader) {
         m_shader = shader;
+        m_instancedShader = instancedShader;
 
         m_Transformation = new Transformation();
+        m_Queue = new RenderQueue();
+        m_BoundColor = new Vector3f();
+
+        m_Frustum = new FrustumIntersection();
+        m_ProjectionViewMatrix = new Matrix4f();
+        m_ModelMatrix = new Matrix4f();
+        m_ModelViewMatrix = new Matrix4f();
+        m_WorldBounds = new BoundingVolume();
+        m_CameraPosition = new Vector3f();
+        m_CameraRotation = new Vector3f();
+        m_frustumCulling = true;
     }
 
     /**
      * Call this before using any other Renderer method! This initializes everything needed for the
      * class to do everything that it needs. From the shaders to anything else we might need.
+     *
+     * Our Shaders are only submitted here, a Shader the driver is still compiling is waited on the first time
+     * we draw with it, see {@link #useShader(Shader)}.
      */
     public void initialize() {
-        m_shader.create();
+        m_frameUniforms = new UniformBuffer(FRAME_BINDING, FRAME_SIZE);
+
+        m_shader.submit();
+
+        if(m_instancedShader != null) {
+            m_instancedShader.submit();
+
+            m_instanceBuffer = new InstanceBuffer(256);
+
+            if(supportsMultiDrawIndirect())
+                m_indirectBuffer = new StreamBuffer(GL_DRAW_INDIRECT_BUFFER, 256 * INDIRECT_COMMAND_SIZE);
+        }
+    }
+
+    /**
+     * Looks up the uniforms of our regular Shader. Asking for a uniform finishes the Shader, so this waits
+     * until the first time it is bound.
+     */
+    private void setUpShader() {
+        m_shader.bindUniformBlock(FRAME_BLOCK, FRAME_BINDING);
 
-        m_shader.createUniform("uProjectionMatrix");
-        m_shader.createUniform("uModelViewMatrix");
+        m_uModelViewMatrix = m_shader.createMat4Uniform("uModelViewMatrix");
+        m_uColor = m_shader.createVec3Uniform("uColor");
+        m_uUseTexture = m_shader.createIntUniform("uUseTexture");
+        m_uUvTransform = m_shader.createVec4Uniform("uUvTransform");
+        m_uLayer = m_shader.createFloatUniform("uLayer");
 
-        m_shader.createUniform("uColor");
-        m_shader.createUniform("uTextureSampler");
-        m_shader.createUniform("uUseTexture");
+        // Our samplers never change, and a program remembers its uniforms for us
+        m_shader.createIntUniform("uTextureSampler").set(0);
+        m_shader.createIntUniform("uTextureArraySampler").set(1);
+        m_shaderSetUp = true;
+    }
+
+    private void setUpInstancedShader() {
+        m_instancedShader.bindUniformBlock(FRAME_BLOCK, FRAME_BINDING);
+
+        m_uInstancedUseTexture = m_instancedShader.createIntUniform("uUseTexture");
+
+        m_instancedShader.createIntUniform("uTextureSampler").set(0);
+        m_instancedShader.createIntUniform("uTextureArraySampler").set(1);
+        m_instancedShaderSetUp = true;
     }
 
     /**
-     * Renders every GameObject in the List that is passed into it. For now, we do nothing about how often we
-     * are rendering things nor are we considering if they're even in frame.
+     * Renders every GameObject in the List that is passed into it. Everything goes through our RenderQueue first,
+     * so the order of the List doesn't matter: opaque objects are drawn grouped by their state and front to back,
+     * transparent objects are drawn last from back to front. Opaque objects that share the same VAO and material
+     * are drawn with a single instanced draw call when there are enough of them, and every opaque Mesh out of the
+     * same GeometryPool sharing a material is drawn with a single multi draw. Anything whose bounds fall
+     * completely outside the view of our Camera is skipped before it ever reaches the queue.
      *
      * @param gameObjects a List of GameObjects to be processed and rendered
      * @param camera the Camera we need to display our simulation/game to the screen
      */
     public void draw(List<GameObject> gameObjects, Camera camera) {
-        m_shader.bind();
+        Matrix4f viewMatrix = prepare(m_Transformation.getViewMatrix(camera));
 
-        Matrix4f projectionMatrix = m_Transformation.getProjectionMatrix(FOV, Z_NEAR, Z_FAR);
-        m_shader.setUniform("uProjectionMatrix", projectionMatrix);
+        for(GameObject obj : gameObjects) {
+            if(m_frustumCulling && !obj.getWorldBounds().isVisible(m_Frustum)) {
+                m_culledCount++;
+                continue;
+            }
 
-        Matrix4f viewMatrix = m_Transformation.getViewMatrix(camera);
-        m_shader.setUniform("uTextureSampler", 0);
+            m_Queue.submit(obj, viewMatrix, m_shader.getProgramId());
+            m_visibleCount++;
+        }
 
-        for(GameObject obj : gameObjects) {
-            Mesh mesh = obj.getMesh();
-            Matrix4f modelViewMatrix = m_Transformation.getModelViewMatrix(obj, viewMatrix);
-            m_shader.setUniform("uModelViewMatrix", modelViewMatrix);
+        render(viewMatrix);
+    }
+
+    /**
+     * Renders every node of a SceneGraph that has a Mesh, the same way {@link #draw(List, Camera)} does. The
+     * graph is brought up to date first, and its world matrices are read straight out of its arrays.
+     *
+     * @param scene the SceneGraph to be processed and rendered
+     * @param camera the Camera we need to display our simulation/game to the screen
+     */
+    public void draw(SceneGraph scene, Camera camera) {
+        scene.update();
+        Matrix4f viewMatrix = prepare(m_Transformation.getViewMatrix(camera));
+
+        float[] worldMatrices = scene.getWorldMatrices();
+        for(int i = 0; i < scene.size(); i++) {
+            Mesh mesh = scene.getMeshAt(i);
+            if(mesh == null)
+                continue;
 
-            m_shader.setUniform("uColor", mesh.getColor());
-            m_shader.setUniform("uUseTexture", mesh.usesTexture() ? GL_TRUE : GL_FALSE);
+            if(m_frustumCulling) {
+                m_ModelMatrix.set(worldMatrices, i * 16);
+                if(!mesh.getBounds().transform(m_ModelMatrix, m_WorldBounds).isVisible(m_Frustum)) {
+                    m_culledCount++;
+                    continue;
+                }
+            }
 
-            mesh.render();
+            m_Queue.submit(mesh, worldMatrices, i * 16, viewMatrix, m_shader.getProgramId());
+            m_visibleCount++;
         }
 
-        m_shader.unbind();
+        render(viewMatrix);
+    }
+
+    /**
+     * Renders every Entity of an EntityStore that has a Mesh, the same way {@link #draw(List, Camera)} does.
+     * World matrices that are out of date get rebuilt first, then read straight out of the store.
+     *
+     * @param store the EntityStore to be processed and rendered
+     * @param camera the Camera we need to display our simulation/game to the screen
+     */
+    public void draw(EntityStore store, Camera camera) {
+        store.updateTransforms();
+        Matrix4f viewMatrix = prepare(m_Transformation.getViewMatrix(camera));
+
+        final int required = EntityStore.POSITION | EntityStore.RENDER;
+        float[] transforms = store.getTransforms();
+        int[] meshHandles = store.getMeshHandles();
+        int[] masks = store.getMasks();
+
+        for(int i = 0; i < store.size(); i++) {
+            if((masks[i] & required) != required || meshHandles[i] == EntityStore.NO_MESH)
+                continue;
+
+            Mesh mesh = store.getMesh(meshHandles[i]);
+            if(m_frustumCulling) {
+                m_ModelMatrix.set(transforms, i * 16);
+                if(!mesh.getBounds().transform(m_ModelMatrix, m_WorldBounds).isVisible(m_Frustum)) {
+                    m_culledCount++;
+                    continue;
+                }
+            }
+
+            m_Queue.submit(mesh, transforms, i * 16, viewMatrix, m_shader.getProgramId());
+            m_visibleCount++;
+        }
+
+        render(viewMatrix);
+    }
+
+    /**
+     * Renders a frame out of two snapshots of our simulation, with every transform and the Camera blended
+     * between them. This is what the render thread uses, it never touches the game itself.
+     *
+     * @param previous the snapshot of the tick before current, may be null
+     * @param current the snapshot of the latest tick
+     * @param alpha how far we are from previous to current, from 0 to 1
+     */
+    public void draw(RenderSnapshot previous, RenderSnapshot current, float alpha) {
+        current.interpolateCamera(previous, alpha, m_CameraPosition, m_CameraRotation);
+        Matrix4f viewMatrix = prepare(m_Transformation.getViewMatrix(m_CameraPosition, m_CameraRotation));
+
+        for(int i = 0; i < current.size(); i++) {
+            Mesh mesh = current.getMesh(i);
+            current.interpolate(previous, i, alpha, m_ModelMatrix);
+
+            if(m_frustumCulling && !mesh.getBounds().transform(m_ModelMatrix, m_WorldBounds).isVisible(m_Frustum)) {
+                m_culledCount++;
+                continue;
+            }
+
+            m_Queue.submit(mesh, m_ModelMatrix, viewMatrix, m_shader.getProgramId());
+            m_visibleCount++;
+        }
+
+        render(viewMatrix);
+    }
+
+    /**
+     * Gets everything ready for a new frame seen through a view matrix, and empties the RenderQueue.
+     *
+     * @return the view matrix
+     */
+    private Matrix4f prepare(Matrix4f viewMatrix) {
+        m_projectionMatrix = m_Transformation.getProjectionMatrix(FOV, Z_NEAR, Z_FAR);
+
+        m_projectionMatrix.mulPerspectiveAffine(viewMatrix, m_ProjectionViewMatrix);
+        m_Frustum.set(m_ProjectionViewMatrix);
+
+        m_visibleCount = 0;
+        m_culledCount = 0;
+        m_drawCallCount = 0;
+
+        m_Queue.clear();
+        return viewMatrix;
+    }
+
+    /**
+     * Sorts everything that made it into the RenderQueue and draws it.
+     */
+    private void render(Matrix4f viewMatrix) {
+        m_Queue.sort();
+
+        beginFrame(m_projectionMatrix, viewMatrix);
+
+        float[] transforms = m_Queue.getTransforms();
+        boolean depthWrites = true;
+        int index = 0;
+        while(index < m_Queue.size()) {
+            // Transparent objects still test against the depth buffer, they just shouldn't hide each other
+            if(depthWrites && m_Queue.isTransparent(index)) {
+                glDepthMask(false);
+                depthWrites = false;
+            }
+
+            int runEnd = m_Queue.runEnd(index);
+            boolean pooled = m_Queue.getMesh(index).isPooled();
+            if(pooled && m_indirectBuffer != null && runEnd - index >= INSTANCE_THRESHOLD) {
+                drawIndirect(index, runEnd);
+                index = runEnd;
+                continue;
+            }
+
+            // A run of pooled Meshes shares a VAO but not its geometry, without indirect draws they go one by one
+            if(!pooled && m_instancedShader != null && runEnd - index >= INSTANCE_THRESHOLD) {
+                drawInstanced(index, runEnd);
+                index = runEnd;
+                continue;
+            }
+
+            Mesh mesh = m_Queue.getMesh(index);
+            m_ModelMatrix.set(transforms, m_Queue.getTransformOffset(index));
+            index++;
+
+            useShader(m_shader);
+            useMesh(mesh);
+
+            // Both matrices only ever rotate, scale and translate, which lets us skip the bottom row
+            m_uModelViewMatrix.set(viewMatrix.mulAffine(m_ModelMatrix, m_ModelViewMatrix));
+
+            if(!m_BoundColor.equals(mesh.getColor())) {
+                m_uColor.set(mesh.getColor());
+                m_BoundColor.set(mesh.getColor());
+            }
+
+            useRegion(mesh.usesTexture() ? mesh.getAtlasRegion() : null);
+
+            mesh.draw();
+            m_drawCallCount++;
+        }
+
+        if(!depthWrites)
+            glDepthMask(true);
+
+        endFrame();
+
+        Profiler profiler = Profiler.Instance();
+        profiler.count(DRAW_CALLS, m_drawCallCount);
+        profiler.count(VISIBLE_OBJECTS, m_visibleCount);
+        profiler.count(CULLED_OBJECTS, m_culledCount);
+    }
+
+    private void drawInstanced(int from, int to) {
+        m_instanceBuffer.begin(to - from);
+        float[] transforms = m_Queue.getTransforms();
+        for(int i = from; i < to; i++) {
+            Mesh mesh = m_Queue.getMesh(i);
+            m_instanceBuffer.put(transforms, m_Queue.getTransformOffset(i), mesh.getColor(), mesh.usesTexture() ? mesh.getAtlasRegion() : null);
+        }
+        m_instanceBuffer.upload();
+
+        // Every object in the run shares the same VAO and texture or atlas, so any of them can issue the draw
+        Mesh mesh = m_Queue.getMesh(from);
+        m_instanceBuffer.prepare(mesh.getVAO());
+
+        useShader(m_instancedShader);
+        useMesh(mesh);
+
+        mesh.drawInstanced(m_instanceBuffer.getCount(), m_instanceBuffer.getBaseInstance());
+        m_drawCallCount++;
+    }
+
+    /**
+     * Draws a run of pooled Meshes with a single glMultiDrawElementsIndirect. They all live within the same
+     * GeometryPool and share a material, but every one of them may be different geometry, so each gets its own
+     * command. Neighbours drawing the same geometry are merged into a single instanced command.
+     */
+    private void drawIndirect(int from, int to) {
+        m_instanceBuffer.begin(to - from);
+        float[] transforms = m_Queue.getTransforms();
+        for(int i = from; i < to; i++) {
+            Mesh mesh = m_Queue.getMesh(i);
+            m_instanceBuffer.put(transforms, m_Queue.getTransformOffset(i), mesh.getColor(), mesh.usesTexture() ? mesh.getAtlasRegion() : null);
+        }
+        m_instanceBuffer.upload();
+
+        IntBuffer commands = m_indirectBuffer.allocate((to - from) * INDIRECT_COMMAND_SIZE, Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int baseInstance = m_instanceBuffer.getBaseInstance();
+        int drawCount = 0;
+        GeometryPool.Allocation last = null;
+
+        for(int i = from; i < to; i++) {
+            GeometryPool.Allocation allocation = m_Queue.getMesh(i).getAllocation();
+            if(allocation == last) {
+                int instanceCount = (drawCount - 1) * 5 + 1;
+                commands.put(instanceCount, commands.get(instanceCount) + 1);
+                continue;
+            }
+
+            commands.put(allocation.getIndexCount()).put(1).put(allocation.getFirstIndex())
+                    .put(allocation.getBaseVertex()).put(baseInstance + i - from);
+            last = allocation;
+            drawCount++;
+        }
+        m_indirectBuffer.flush();
+
+        Mesh mesh = m_Queue.getMesh(from);
+        m_instanceBuffer.prepare(mesh.getVAO());
+
+        useShader(m_instancedShader);
+        useMesh(mesh);
+
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, m_indirectBuffer.getId());
+        glMultiDrawElementsIndirect(GL_TRIANGLES, GL_UNSIGNED_INT, m_indirectBuffer.getLastOffset(), drawCount, 0);
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, 0);
+        m_drawCallCount++;
+    }
+
+    /**
+     * @return whether this context can draw many commands out of a buffer at once, each with its own base instance
+     */
+    public static boolean supportsMultiDrawIndirect() {
+        GLCapabilities caps = getCapabilities();
+        return caps.OpenGL43 || (caps.GL_ARB_multi_draw_indirect && (caps.OpenGL42 || caps.GL_ARB_base_instance));
+    }
+
+    /**
+     * Sets everything that stays the same for the whole frame. This is uploaded once and seen by every Shader.
+     */
+    private void beginFrame(Matrix4f projectionMatrix, Matrix4f viewMatrix) {
+        m_frameUniforms.set(FRAME_PROJECTION_OFFSET, projectionMatrix);
+        m_frameUniforms.set(FRAME_VIEW_OFFSET, viewMatrix);
+        m_frameUniforms.upload();
+
+        glActiveTexture(GL_TEXTURE0);
+
+        if(m_instanceBuffer != null)
+            m_instanceBuffer.beginFrame();
+
+        if(m_indirectBuffer != null)
+            m_indirectBuffer.beginFrame();
+
+        m_boundShader = null;
+        m_boundVAO = -1;
+        m_boundTexture = -1;
+        m_boundArrayTexture = -1;
+        m_boundUseTexture = -1;
+        m_regionBound = false;
+        m_BoundColor.set(Float.NaN);
+    }
+
+    private void endFrame() {
+        glBindVertexArray(0);
+        glBindTexture(GL_TEXTURE_2D, 0);
+
+        if(m_boundArrayTexture > 0) {
+            glActiveTexture(GL_TEXTURE1);
+            glBindTexture(GL_TEXTURE_2D_ARRAY, 0);
+            glActiveTexture(GL_TEXTURE0);
+        }
+
+        if(m_boundShader != null)
+            m_boundShader.unbind();
+        m_boundShader = null;
+    }
+
+    private void useShader(Shader shader) {
+        if(m_boundShader == shader)
+            return;
+
+        shader.bind();
+        m_boundShader = shader;
+
+        // Our sampler uniforms are set while the program is bound, which it is now
+        if(shader == m_shader && !m_shaderSetUp)
+            setUpShader();
+        else if(shader == m_instancedShader && !m_instancedShaderSetUp)
+            setUpInstancedShader();
+
+        // Uniforms belong to a program, so what we knew about the last one doesn't hold anymore
+        m_boundUseTexture = -1;
+        m_regionBound = false;
+        m_BoundColor.set(Float.NaN);
+    }
+
+    private void useMesh(Mesh mesh) {
+        if(m_boundVAO != mesh.getVAO()) {
+            glBindVertexArray(mesh.getVAO());
+            m_boundVAO = mesh.getVAO();
+        }
+
+        int texture = RenderQueue.textureOf(mesh);
+        int useTexture = texture == 0 ? TEXTURE_NONE : mesh.getAtlasRegion() != null ? TEXTURE_ARRAY : TEXTURE_2D;
+
+        if(useTexture == TEXTURE_2D && m_boundTexture != texture) {
+            glBindTexture(GL_TEXTURE_2D, texture);
+            m_boundTexture = texture;
+        } else if(useTexture == TEXTURE_ARRAY && m_boundArrayTexture != texture) {
+            glActiveTexture(GL_TEXTURE1);
+            glBindTexture(GL_TEXTURE_2D_ARRAY, texture);
+            glActiveTexture(GL_TEXTURE0);
+            m_boundArrayTexture = texture;
+        }
+
+        if(m_boundUseTexture != useTexture) {
+            (m_boundShader == m_shader ? m_uUseTexture : m_uInstancedUseTexture).set(useTexture);
+            m_boundUseTexture = useTexture;
+        }
+    }
+
+    /**
+     * Points the texture coordinates of the next single draw into an atlas region, or leaves them as they are
+     * when there is none.
+     */
+    private void useRegion(AtlasRegion region) {
+        if(m_regionBound && m_boundRegion == region)
+            return;
+
+        if(region == null) {
+            m_uUvTransform.set(1f, 1f, 0f, 0f);
+            m_uLayer.set(0f);
+        } else {
+            m_uUvTransform.set(region.getScaleU(), region.getScaleV(), region.getOffsetU(), region.getOffsetV());
+            m_uLayer.set(region.getLayer());
+        }
+
+        m_boundRegion = region;
+        m_regionBound = true;
     }
 
     /**
@@ -85,6 +575,18 @@ public class Renderer {
     public void cleanup() {
         if(m_shader != null)
             m_shader.cleanup();
+
+        if(m_instancedShader != null)
+            m_instancedShader.cleanup();
+
+        if(m_instanceBuffer != null)
+            m_instanceBuffer.cleanup();
+
+        if(m_indirectBuffer != null)
+            m_indirectBuffer.cleanup();
+
+        if(m_frameUniforms != null)
+            m_frameUniforms.cleanup();
     }
 
     public void setShader(Shader shader) {
@@ -92,10 +594,46 @@ public class Renderer {
             m_shader.cleanup();
 
         m_shader = shader;
+        m_shaderSetUp = false;
+        if(m_frameUniforms != null)
+            m_shader.submit();
+    }
+
+    public void setFrustumCulling(boolean frustumCulling) {
+        m_frustumCulling = frustumCulling;
+    }
+
+    public boolean usesFrustumCulling() {
+        return m_frustumCulling;
+    }
+
+    /**
+     * @return how many GameObjects were in view and drawn during the last call to draw
+     */
+    public int getVisibleCount() {
+        return m_visibleCount;
+    }
+
+    /**
+     * @return how many draw calls the last call to draw issued, a whole multi draw counts as one
+     */
+    public int getDrawCallCount() {
+        return m_drawCallCount;
+    }
+
+    /**
+     * @return how many GameObjects were outside of our view and skipped during the last call to draw
+     */
+    public int getCulledCount() {
+        return m_culledCount;
     }
 
     public Shader getShader() {
         return m_shader;
     }
 
+    public Shader getInstancedShader() {
+        return m_instancedShader;
+    }
+
 }
@@ -1,16 +1,30 @@
 package git.crystal.engine.render;
 
-import git.crystal.engine.utils.Files;
+import git.crystal.engine.render.uniform.UniformFloat;
+import git.crystal.engine.render.uniform.UniformInt;
+import git.crystal.engine.render.uniform.UniformMat4;
+import git.crystal.engine.render.uniform.UniformVec3;
+import git.crystal.engine.render.uniform.UniformVec4;
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
+import org.lwjgl.opengl.GLCapabilities;
 import org.lwjgl.system.MemoryStack;
 
 import java.nio.FloatBuffer;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import static org.lwjgl.opengl.ARBParallelShaderCompile.glMaxShaderCompilerThreadsARB;
+import static org.lwjgl.opengl.GL.getCapabilities;
 import static org.lwjgl.opengl.GL11C.GL_FALSE;
+import static org.lwjgl.opengl.GL11C.GL_TRUE;
 import static org.lwjgl.opengl.GL20C.*;
+import static org.lwjgl.opengl.GL31C.*;
+import static org.lwjgl.opengl.GL41C.GL_PROGRAM_BINARY_LENGTH;
+import static org.lwjgl.opengl.KHRParallelShaderCompile.GL_COMPLETION_STATUS_KHR;
+import static org.lwjgl.opengl.KHRParallelShaderCompile.glMaxShaderCompilerThreadsKHR;
 import static org.lwjgl.system.MemoryStack.stackPush;
 
 /**
@@ -22,46 +36,242 @@ import static org.lwjgl.system.MemoryStack.stackPush;
 
 public class Shader {
 
+    private static boolean s_compilerThreadsSet;
+
     private final Map<String, Integer> m_Uniforms;
     private final String m_VertexFile, m_FragmentFile;
+    // Injected into both sources before compiling, see ShaderPreprocessor
+    private final Map<String, String> m_Defines;
 
     private int m_programId;
+    // Whether our program came out of the ShaderCache, and how long creating it took
+    private boolean m_cached;
+    private long m_createNanos;
+
+    // While we're pending, our program was linked but nobody has looked at how that went yet
+    private boolean m_pending;
+    private int m_vertShader, m_fragShader;
+    private long m_key, m_submitTime;
 
     public Shader(String vertexFile, String fragmentFile) {
+        this(vertexFile, fragmentFile, Collections.emptyMap());
+    }
+
+    /**
+     * @param defines every name to #define in both of our sources with its value, which may be empty
+     */
+    public Shader(String vertexFile, String fragmentFile, Map<String, String> defines) {
         m_Uniforms = new HashMap<>();
 
         m_VertexFile = vertexFile;
         m_FragmentFile = fragmentFile;
+        m_Defines = new LinkedHashMap<>(defines);
+    }
+
+    /**
+     * Reads both of our files, with every include resolved and our defines injected. This doesn't touch OpenGL,
+     * so it can happen on any thread.
+     *
+     * @return our vertex source, then our fragment source
+     */
+    public String[] readSources() {
+        return new String[] {
+                ShaderPreprocessor.load(m_VertexFile, true, m_Defines),
+                ShaderPreprocessor.load(m_FragmentFile, true, m_Defines)
+        };
     }
 
+    /**
+     * Creates our program, unless it was already submitted.
+     */
     public void create() {
+        if(m_programId != 0)
+            return;
+
+        String[] sources = readSources();
+        create(sources[0], sources[1]);
+    }
+
+    /**
+     * Starts compiling our program without waiting on it, unless it was already submitted, see
+     * {@link #submit(String, String)}.
+     */
+    public void submit() {
+        if(m_programId != 0)
+            return;
+
+        String[] sources = readSources();
+        submit(sources[0], sources[1]);
+    }
+
+    /**
+     * Compiles and links our program out of sources that were already read, which lets the reading happen
+     * on another thread. If the ShaderCache has a binary of the same program, we load that instead.
+     *
+     * @param vertexSource the source code of our vertex shader, ready to compile
+     * @param fragmentSource the source code of our fragment shader, ready to compile
+     */
+    public void create(String vertexSource, String fragmentSource) {
+        submit(vertexSource, fragmentSource);
+        finish();
+    }
+
+    /**
+     * Starts compiling and linking our program without waiting for the driver to finish. Drivers that support
+     * parallel shader compilation do the work on their own threads in the meantime, see {@link #isReady()}.
+     * We only wait on it once we're actually needed, the first time we're bound or asked for a uniform.
+     *
+     * @param vertexSource the source code of our vertex shader, ready to compile
+     * @param fragmentSource the source code of our fragment shader, ready to compile
+     */
+    public void submit(String vertexSource, String fragmentSource) {
+        if(m_programId != 0)
+            throw new IllegalStateException(String.format("Shader [%s + %s] was already created!", m_VertexFile, m_FragmentFile));
+
+        m_submitTime = System.nanoTime();
+
         m_programId = glCreateProgram();
         if(m_programId == GL_FALSE)
             throw new RuntimeException("Failed to create a Shader Program!");
 
-        int vertShader = createShader(Files.readFileToString(m_VertexFile), GL_VERTEX_SHADER);
-        int fragmentShader = createShader(Files.readFileToString(m_FragmentFile), GL_FRAGMENT_SHADER);
+        m_key = ShaderCache.key(vertexSource, fragmentSource, ShaderPreprocessor.toDefines(m_Defines));
+        m_cached = ShaderCache.load(m_programId, m_key);
+        m_pending = true;
 
-        glLinkProgram(m_programId);
-        if (glGetProgrami(m_programId, GL_LINK_STATUS) == GL_FALSE) {
-            throw new RuntimeException(String.format("Error linking Shader code: %s", glGetProgramInfoLog(m_programId, 1024)));
+        if(m_cached) {
+            finish();
+            return;
         }
 
-        if (vertShader != 0) {
-            glDetachShader(m_programId, vertShader);
-            glDeleteShader(vertShader);
+        if(supportsParallelCompile() && !s_compilerThreadsSet) {
+            // Lets the driver decide how many threads it compiles with
+            if(getCapabilities().GL_KHR_parallel_shader_compile)
+                glMaxShaderCompilerThreadsKHR(0xFFFFFFFF);
+            else
+                glMaxShaderCompilerThreadsARB(0xFFFFFFFF);
+            s_compilerThreadsSet = true;
         }
-        if (fragmentShader != 0) {
-            glDetachShader(m_programId, fragmentShader);
-            glDeleteShader(fragmentShader);
+
+        m_vertShader = createShader(vertexSource, GL_VERTEX_SHADER);
+        m_fragShader = createShader(fragmentSource, GL_FRAGMENT_SHADER);
+
+        ShaderCache.prepare(m_programId);
+        glLinkProgram(m_programId);
+    }
+
+    /**
+     * Checks whether we could finish without waiting on the driver. Without parallel shader compilation there is
+     * no way to tell, so we only ever say no while pending. Both the KHR and ARB extension share the same
+     * GL_COMPLETION_STATUS.
+     *
+     * @return whether we're done, or finishing would not have to wait
+     */
+    public boolean isReady() {
+        if(!m_pending)
+            return true;
+
+        return supportsParallelCompile() && glGetProgrami(m_programId, GL_COMPLETION_STATUS_KHR) == GL_TRUE;
+    }
+
+    /**
+     * Waits for our program to be linked, if it still has to be, and checks how that went.
+     */
+    public void finish() {
+        if(!m_pending)
+            return;
+
+        m_pending = false;
+        if(!m_cached) {
+            checkShader(m_vertShader);
+            checkShader(m_fragShader);
+
+            if (glGetProgrami(m_programId, GL_LINK_STATUS) == GL_FALSE) {
+                throw new RuntimeException(String.format("Error linking Shader code: %s", glGetProgramInfoLog(m_programId, 1024)));
+            }
+
+            glDetachShader(m_programId, m_vertShader);
+            glDeleteShader(m_vertShader);
+            glDetachShader(m_programId, m_fragShader);
+            glDeleteShader(m_fragShader);
+            m_vertShader = 0;
+            m_fragShader = 0;
+
+            ShaderCache.store(m_programId, m_key);
         }
 
         glValidateProgram(m_programId);
         if (glGetProgrami(m_programId, GL_VALIDATE_STATUS) == GL_FALSE)
             System.err.printf("Warning validating Shader code: %s%n", glGetProgramInfoLog(m_programId, 1024));
+
+        m_createNanos = System.nanoTime() - m_submitTime;
+        ShaderCache.record(getName(), m_cached, m_createNanos);
+    }
+
+    /**
+     * @return whether this context can compile and link on threads of its own, and tell us when it's done
+     */
+    public static boolean supportsParallelCompile() {
+        GLCapabilities caps = getCapabilities();
+        return caps.GL_KHR_parallel_shader_compile || caps.GL_ARB_parallel_shader_compile;
+    }
+
+    /**
+     * @return our files and defines, which is what sets us apart from any other Shader
+     */
+    public String getName() {
+        if(m_Defines.isEmpty())
+            return String.format("%s + %s", m_VertexFile, m_FragmentFile);
+
+        return String.format("%s + %s %s", m_VertexFile, m_FragmentFile, m_Defines.keySet());
+    }
+
+    public String getVertexFile() {
+        return m_VertexFile;
+    }
+
+    public String getFragmentFile() {
+        return m_FragmentFile;
+    }
+
+    /**
+     * @return whether our program was loaded out of the ShaderCache instead of being compiled
+     */
+    public boolean isCached() {
+        return m_cached;
+    }
+
+    /**
+     * @return whether we were submitted, but haven't been finished yet
+     */
+    public boolean isPending() {
+        return m_pending;
+    }
+
+    public Map<String, String> getDefines() {
+        return Collections.unmodifiableMap(m_Defines);
+    }
+
+    /**
+     * @return how long creating our program took, in nanoseconds, from being submitted until being finished
+     */
+    public long getCreateNanos() {
+        return m_createNanos;
+    }
+
+    /**
+     * @return roughly how many bytes our program takes up, the size of its program binary where the driver can
+     *         tell us, 0 otherwise
+     */
+    public long getByteSize() {
+        finish();
+        if(m_programId == 0 || !ShaderCache.isSupported())
+            return 0;
+
+        return glGetProgrami(m_programId, GL_PROGRAM_BINARY_LENGTH);
     }
 
     public void bind() {
+        finish();
         glUseProgram(m_programId);
     }
 
@@ -72,11 +282,22 @@ public class Shader {
     public void cleanup() {
         unbind();
 
+        if(m_vertShader != 0)
+            glDeleteShader(m_vertShader);
+        if(m_fragShader != 0)
+            glDeleteShader(m_fragShader);
+
         if(m_programId != 0)
             glDeleteProgram(m_programId);
+
+        m_programId = 0;
+        m_vertShader = 0;
+        m_fragShader = 0;
+        m_pending = false;
     }
 
     public void createUniform(String uniformName) {
+        finish();
         int location = glGetUniformLocation(m_programId, uniformName);
         if(location < 0) {
             System.err.printf("Could not find uniform: [%s]%n", uniformName);
@@ -89,6 +310,58 @@ public class Shader {
         m_Uniforms.put(uniformName, location);
     }
 
+    /*
+     * The typed handles below look their location up once, setting them every frame skips our Map entirely.
+     */
+
+    public UniformInt createIntUniform(String uniformName) {
+        return new UniformInt(uniformName, findUniform(uniformName));
+    }
+
+    public UniformFloat createFloatUniform(String uniformName) {
+        return new UniformFloat(uniformName, findUniform(uniformName));
+    }
+
+    public UniformVec3 createVec3Uniform(String uniformName) {
+        return new UniformVec3(uniformName, findUniform(uniformName));
+    }
+
+    public UniformVec4 createVec4Uniform(String uniformName) {
+        return new UniformVec4(uniformName, findUniform(uniformName));
+    }
+
+    public UniformMat4 createMat4Uniform(String uniformName) {
+        return new UniformMat4(uniformName, findUniform(uniformName));
+    }
+
+    /**
+     * Connects a uniform block of this program to the UniformBuffer bound at the same binding point.
+     *
+     * @param blockName the name of the block in our shader source
+     * @param bindingPoint the binding point of the UniformBuffer that holds the data of the block
+     * @return false if this program has no block with that name
+     */
+    public boolean bindUniformBlock(String blockName, int bindingPoint) {
+        finish();
+        int blockIndex = glGetUniformBlockIndex(m_programId, blockName);
+        if(blockIndex == GL_INVALID_INDEX) {
+            System.err.printf("Could not find uniform block: [%s]%n", blockName);
+            return false;
+        }
+
+        glUniformBlockBinding(m_programId, blockIndex, bindingPoint);
+        return true;
+    }
+
+    private int findUniform(String uniformName) {
+        finish();
+        int location = glGetUniformLocation(m_programId, uniformName);
+        if(location < 0)
+            System.err.printf("Could not find uniform: [%s]%n", uniformName);
+
+        return location;
+    }
+
     public void setUniform(String uniformName, int value) {
         glUniform1i(getUniformLocation(uniformName), value);
     }
@@ -113,13 +386,17 @@ public class Shader {
         }
     }
 
+    public int getProgramId() {
+        return m_programId;
+    }
+
     private int getUniformLocation(String uniformName) {
         return m_Uniforms.get(uniformName);
     }
 
     /**
      * Creates the shader we want out of the source we pass to it. This handles everything we need
-     * to use our Shaders with our Shader Program.
+     * to use our Shaders with our Shader Program, apart from checking it compiled, see {@link #checkShader(int)}.
      *
      * @param shaderSource the long String source of the Shader
      * @param shaderType the type of shader we'll create and compile
@@ -133,11 +410,17 @@ public class Shader {
         glShaderSource(shaderId, shaderSource);
         glCompileShader(shaderId);
 
-        if (glGetShaderi(shaderId, GL_COMPILE_STATUS) == GL_FALSE)
-            throw new RuntimeException("Error compiling Shader code: " + glGetShaderInfoLog(shaderId, 1024));
-
         glAttachShader(m_programId, shaderId);
         return shaderId;
     }
 
+    /**
+     * Makes sure a shader compiled. Compile errors only surface here, not when the shader was created, since
+     * asking any earlier would make us wait on the driver.
+     */
+    private void checkShader(int shaderId) {
+        if (glGetShaderi(shaderId, GL_COMPILE_STATUS) == GL_FALSE)
+            throw new RuntimeException(String.format("Error compiling Shader code of [%s]: %s", getName(), glGetShaderInfoLog(shaderId, 1024)));
+    }
+
 }
@@ -0,0 +1,269 @@
+package git.crystal.engine.render;
+
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL.getCapabilities;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.GL_LINK_STATUS;
+import static org.lwjgl.opengl.GL20.glGetProgrami;
+import static org.lwjgl.opengl.GL41.*;
+
+/**
+ * Keeps linked Shader Programs on disk, the way the driver hands them to us through glGetProgramBinary. Loading
+ * one back with glProgramBinary skips compiling and linking entirely, which is most of what creating a Shader
+ * costs.
+ *
+ * Every program is stored under a key hashed out of both of its sources, its defines and the driver it was
+ * linked by, so changing any of those simply misses the cache. A driver is still free to reject a binary, after
+ * an update for example, in which case we compile as usual and replace it.
+ *
+ * The layout of a cache file is as follows (all in native byte order):
+ * <pre>
+ *   int  magic          "CPRG"
+ *   int  version
+ *   long key            see {@link #key(String, String, String)}
+ *   int  binaryFormat   whatever glGetProgramBinary told us
+ *   int  length
+ *   then the binary itself
+ * </pre>
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class ShaderCache {
+
+    private static final int MAGIC = 0x47525043; // "CPRG"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    private static final List<Record> s_Records = Collections.synchronizedList(new ArrayList<>());
+
+    private static Path s_Directory = Paths.get(System.getProperty("user.home"), ".arcane-crystal", "cache", "shaders");
+    private static boolean s_Enabled = true;
+    private static String s_driver;
+
+    /**
+     * @return whether this context can hand us program binaries and take them back
+     */
+    public static boolean isSupported() {
+        GLCapabilities caps = getCapabilities();
+        return (caps.OpenGL41 || caps.GL_ARB_get_program_binary) && glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    /**
+     * Hashes everything that decides what a program compiles to, including the driver compiling it.
+     *
+     * @param defines whatever is injected into the sources before compiling, may be empty
+     */
+    public static long key(String vertexSource, String fragmentSource, String defines) {
+        return git.crystal.engine.utils.Files.hash(String.join("\0", getDriver(), defines, vertexSource, fragmentSource));
+    }
+
+    /**
+     * Tells the driver we'll want the binary of a program, call this before it is linked.
+     */
+    public static void prepare(int programId) {
+        if(s_Enabled && isSupported())
+            glProgramParameteri(programId, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+    }
+
+    /**
+     * Loads a cached binary into a program, if we have one the driver still accepts.
+     *
+     * @param programId a program with nothing linked into it yet
+     * @param key the key of the program, see {@link #key(String, String, String)}
+     * @return whether the program is linked and ready to use
+     */
+    public static boolean load(int programId, long key) {
+        if(!s_Enabled || !isSupported())
+            return false;
+
+        Path cacheFile = cachePath(key);
+        if(!Files.isRegularFile(cacheFile))
+            return false;
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_SIZE || size > Integer.MAX_VALUE)
+                return false;
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.nativeOrder());
+
+            int format = mapped.getInt(16), length = mapped.getInt(20);
+            if(mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || mapped.getLong(8) != key || HEADER_SIZE + (long) length != size)
+                return false;
+
+            // Handing the driver a format it doesn't know would only raise an error
+            if(!supportsFormat(format))
+                return false;
+
+            glProgramBinary(programId, format, mapped.slice(HEADER_SIZE, length));
+        } catch (IOException e) {
+            System.err.printf("Failed to read shader cache [%s]: %s%n", cacheFile, e.getMessage());
+            return false;
+        }
+
+        if(glGetProgrami(programId, GL_LINK_STATUS) == GL_FALSE) {
+            // Most likely the driver changed underneath us, the binary will be replaced once we compile
+            try {
+                Files.deleteIfExists(cacheFile);
+            } catch (IOException ignored) { }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes the binary of a freshly linked program out to disk. If that fails the program is simply compiled
+     * again next time.
+     */
+    public static void store(int programId, long key) {
+        if(!s_Enabled || !isSupported())
+            return;
+
+        int length = glGetProgrami(programId, GL_PROGRAM_BINARY_LENGTH);
+        if(length <= 0)
+            return;
+
+        Path cacheFile = cachePath(key);
+        ByteBuffer data = MemoryUtil.memAlloc(HEADER_SIZE + length).order(ByteOrder.nativeOrder());
+        try {
+            int[] written = new int[1], format = new int[1];
+            glGetProgramBinary(programId, written, format, data.slice(HEADER_SIZE, length));
+            if(written[0] <= 0)
+                return;
+
+            data.putInt(0, MAGIC).putInt(4, VERSION);
+            data.putLong(8, key);
+            data.putInt(16, format[0]).putInt(20, written[0]);
+            data.limit(HEADER_SIZE + written[0]);
+
+            git.crystal.engine.utils.Files.writeAtomically(cacheFile, data);
+        } catch (IOException e) {
+            System.err.printf("Failed to write shader cache [%s]: %s%n", cacheFile, e.getMessage());
+        } finally {
+            MemoryUtil.memFree(data);
+        }
+    }
+
+    /**
+     * Remembers how creating a program went, see {@link #getReport()}.
+     *
+     * @param name what to call the program in the report
+     * @param hit whether the program came out of the cache
+     * @param nanos how long creating the program took
+     */
+    public static void record(String name, boolean hit, long nanos) {
+        s_Records.add(new Record(name, hit, nanos));
+    }
+
+    /**
+     * @return every program created so far, whether it was a hit or a miss and how long it took, one per line
+     */
+    public static String getReport() {
+        StringBuilder report = new StringBuilder();
+        long hitNanos = 0, missNanos = 0;
+
+        synchronized(s_Records) {
+            for(Record record : s_Records) {
+                report.append(String.format("%-4s %8.2f ms  %s%n", record.m_Hit ? "HIT" : "MISS", record.m_Nanos / 1e6, record.m_Name));
+
+                if(record.m_Hit)
+                    hitNanos += record.m_Nanos;
+                else
+                    missNanos += record.m_Nanos;
+            }
+        }
+
+        report.append(String.format("%d hits in %.2f ms, %d misses in %.2f ms%n", getHits(), hitNanos / 1e6, getMisses(), missNanos / 1e6));
+        return report.toString();
+    }
+
+    public static int getHits() {
+        synchronized(s_Records) {
+            return (int) s_Records.stream().filter(record -> record.m_Hit).count();
+        }
+    }
+
+    public static int getMisses() {
+        synchronized(s_Records) {
+            return (int) s_Records.stream().filter(record -> !record.m_Hit).count();
+        }
+    }
+
+    private static boolean supportsFormat(int format) {
+        int[] formats = new int[glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS)];
+        glGetIntegerv(GL_PROGRAM_BINARY_FORMATS, formats);
+
+        for(int supported : formats) {
+            if(supported == format)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return who made the driver, what it runs on and its version. A binary is only any good to the same driver
+     */
+    private static String getDriver() {
+        if(s_driver == null)
+            s_driver = String.join("\0", glGetString(GL_VENDOR), glGetString(GL_RENDERER), glGetString(GL_VERSION));
+
+        return s_driver;
+    }
+
+    private static Path cachePath(long key) {
+        return s_Directory.resolve(String.format("%016x.cprog", key));
+    }
+
+    public static void setDirectory(Path directory) {
+        s_Directory = directory;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        s_Enabled = enabled;
+    }
+
+    public static Path getDirectory() {
+        return s_Directory;
+    }
+
+    public static boolean isEnabled() {
+        return s_Enabled;
+    }
+
+    private static class Record {
+
+        private final String m_Name;
+        private final boolean m_Hit;
+        private final long m_Nanos;
+
+        public Record(String name, boolean hit, long nanos) {
+            m_Name = name;
+            m_Hit = hit;
+            m_Nanos = nanos;
+        }
+
+    }
+
+}
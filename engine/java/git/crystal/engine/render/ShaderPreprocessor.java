@@ -0,0 +1,172 @@
+package git.crystal.engine.render;
+
+import git.crystal.engine.utils.Files;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gets shader sources ready to compile, before OpenGL ever sees them. Nothing here touches OpenGL, so it can run
+ * on any thread. It knows two things the GLSL compiler doesn't:
+ *
+ * <pre>
+ *   #include "lighting.glsl"     pastes in another file, relative to the one including it unless it starts with /
+ *   defines                      are injected as #define lines right after #version, one source, many variants
+ * </pre>
+ *
+ * Every file is only ever included once per source, so shared files need no include guards. Each one gets its own
+ * source string number through #line, which keeps the line numbers in compile errors pointing at the right file,
+ * see {@link #getFileNames()}.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class ShaderPreprocessor {
+
+    private static final Pattern INCLUDE = Pattern.compile("^\\s*#\\s*include\\s+[\"<]([^\">]+)[\">].*$");
+    private static final Pattern VERSION = Pattern.compile("^\\s*#\\s*version\\b.*$", Pattern.MULTILINE);
+
+    private final boolean m_Internal;
+    // Every file included so far, its index is its source string number
+    private final List<String> m_Files;
+    private final List<String> m_Stack;
+
+    /**
+     * @param internal whether the files we read are within the jar file or not
+     */
+    public ShaderPreprocessor(boolean internal) {
+        m_Internal = internal;
+        m_Files = new ArrayList<>();
+        m_Stack = new ArrayList<>();
+    }
+
+    /**
+     * Reads a file and pastes every file it includes into it.
+     *
+     * @param filePath the path of the shader file
+     * @return the source with every include resolved, still without any defines
+     */
+    public String resolve(String filePath) {
+        m_Files.clear();
+        m_Stack.clear();
+
+        StringBuilder source = new StringBuilder();
+        include(filePath, source);
+
+        return source.toString();
+    }
+
+    private void include(String filePath, StringBuilder out) {
+        if(m_Stack.contains(filePath))
+            throw new RuntimeException(String.format("Shader file [%s] ends up including itself: %s", filePath, String.join(" -> ", m_Stack)));
+
+        if(m_Files.contains(filePath))
+            return;
+
+        int sourceNumber = m_Files.size();
+        m_Files.add(filePath);
+        m_Stack.add(filePath);
+
+        String[] lines = Files.readFileToString(filePath, m_Internal).split("\r?\n", -1);
+        boolean versioned = false;
+        for(int i = 0; i < lines.length; i++) {
+            // #line has to come after #version, so the root file only gets its first one past it
+            if(i == 0 && sourceNumber > 0)
+                out.append(String.format("#line 1 %d\n", sourceNumber));
+
+            Matcher include = INCLUDE.matcher(lines[i]);
+            if(include.matches()) {
+                include(resolvePath(filePath, i + 1, include.group(1)), out);
+                out.append(String.format("#line %d %d\n", i + 2, sourceNumber));
+                continue;
+            }
+
+            out.append(lines[i]).append('\n');
+
+            if(!versioned && sourceNumber == 0 && VERSION.matcher(lines[i]).matches()) {
+                out.append(String.format("#line %d %d\n", i + 2, sourceNumber));
+                versioned = true;
+            }
+        }
+
+        m_Stack.remove(m_Stack.size() - 1);
+    }
+
+    /**
+     * @return the file behind every source string number of the last source we resolved
+     */
+    public List<String> getFileNames() {
+        return m_Files;
+    }
+
+    /**
+     * Reads a file, resolves its includes and injects defines into it, all in one go.
+     */
+    public static String load(String filePath, boolean internal, Map<String, String> defines) {
+        return inject(new ShaderPreprocessor(internal).resolve(filePath), defines);
+    }
+
+    /**
+     * Adds a #define for every entry right after the #version of a source, or at its very start without one.
+     * The #line directive right after #version is left alone, so line numbers stay the same with or without
+     * defines.
+     *
+     * @param defines every name to define, with its value, which may be empty
+     */
+    public static String inject(String source, Map<String, String> defines) {
+        if(defines.isEmpty())
+            return source;
+
+        int insertAt = 0;
+        Matcher version = VERSION.matcher(source);
+        if(version.find())
+            insertAt = source.indexOf('\n', version.end()) + 1;
+
+        return source.substring(0, insertAt) + toDefines(defines) + source.substring(insertAt);
+    }
+
+    /**
+     * @return every define as the lines of GLSL declaring it
+     */
+    public static String toDefines(Map<String, String> defines) {
+        StringBuilder lines = new StringBuilder();
+        for(Map.Entry<String, String> define : defines.entrySet())
+            lines.append("#define ").append(define.getKey()).append(' ').append(define.getValue()).append('\n');
+
+        return lines.toString();
+    }
+
+    /**
+     * @param includingFile the file the #include is in
+     * @param line the line of the #include, for when it can't be resolved
+     * @param path what the #include asks for
+     */
+    private static String resolvePath(String includingFile, int line, String path) {
+        if(path.startsWith("/"))
+            return path;
+
+        int slash = includingFile.lastIndexOf('/');
+        String directory = slash < 0 ? "" : includingFile.substring(0, slash + 1);
+
+        // Fold away any ../ so the same file always ends up with the same path
+        List<String> parts = new ArrayList<>();
+        for(String part : (directory + path).split("/")) {
+            if(part.equals("..")) {
+                // An absolute path keeps its leading empty part, which is the root and can't be climbed out of
+                if(parts.isEmpty() || (parts.size() == 1 && parts.get(0).isEmpty()))
+                    throw new RuntimeException(String.format("Shader file [%s] line %d includes [%s], which climbs above the root!", includingFile, line, path));
+
+                parts.remove(parts.size() - 1);
+            }
+            else if(!part.equals("."))
+                parts.add(part);
+        }
+
+        return String.join("/", parts);
+    }
+
+}
@@ -0,0 +1,171 @@
+package git.crystal.engine.render;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every variant of one vertex and fragment shader pair, one for each combination of features. Each feature is
+ * a name #defined to 1 in the variants that have it, so the sources pick what they need with #ifdef. Two
+ * features make four variants, ten make over a thousand, so keep the list short.
+ *
+ * All variants are meant to be submitted up front, while the game is still loading everything else:
+ * <pre>
+ *   ShaderVariants variants = new ShaderVariants("/shaders/mesh.vert", "/shaders/mesh.frag", "INSTANCED");
+ *   variants.submit();                          // compiles on the driver's threads, where it can
+ *   Shader instanced = variants.get("INSTANCED");
+ * </pre>
+ *
+ * The engine polls every submitted set of variants once a frame, see {@link #pollAll()}, which finishes whatever
+ * the driver is done with without waiting on it.
+ *
+ * A variant that is used before it's done simply waits for itself, see {@link Shader#submit(String, String)}.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class ShaderVariants {
+
+    // Every set that was submitted and still has pending variants, only touched on the thread owning our context
+    private static final List<ShaderVariants> s_Pending = new ArrayList<>();
+
+    private final String m_VertexFile, m_FragmentFile;
+    private final String[] m_Features;
+    // Indexed by a mask of the features a variant has
+    private final Shader[] m_Variants;
+
+    private boolean m_submitted;
+
+    public ShaderVariants(String vertexFile, String fragmentFile, String... features) {
+        if(features.length > 16)
+            throw new IllegalArgumentException(String.format("%d features make too many variants!", features.length));
+
+        m_VertexFile = vertexFile;
+        m_FragmentFile = fragmentFile;
+        m_Features = features.clone();
+        m_Variants = new Shader[1 << features.length];
+
+        for(int mask = 0; mask < m_Variants.length; mask++) {
+            Map<String, String> defines = new LinkedHashMap<>();
+            for(int i = 0; i < features.length; i++) {
+                if((mask & (1 << i)) != 0)
+                    defines.put(features[i], "1");
+            }
+
+            m_Variants[mask] = new Shader(vertexFile, fragmentFile, defines);
+        }
+    }
+
+    /**
+     * Starts compiling every variant. Both files are only read and preprocessed once, the variants only differ
+     * in their defines.
+     */
+    public void submit() {
+        if(m_submitted)
+            return;
+
+        ShaderPreprocessor preprocessor = new ShaderPreprocessor(true);
+        String vertexSource = preprocessor.resolve(m_VertexFile);
+        String fragmentSource = preprocessor.resolve(m_FragmentFile);
+
+        for(Shader variant : m_Variants)
+            variant.submit(ShaderPreprocessor.inject(vertexSource, variant.getDefines()), ShaderPreprocessor.inject(fragmentSource, variant.getDefines()));
+
+        m_submitted = true;
+        if(!isDone())
+            s_Pending.add(this);
+    }
+
+    /**
+     * Polls every set of variants that still has pending ones, see {@link #poll()}. The engine calls this once
+     * a frame on the thread that renders, before the game draws.
+     */
+    public static void pollAll() {
+        for(int i = s_Pending.size() - 1; i >= 0; i--) {
+            if(s_Pending.get(i).poll() == 0)
+                s_Pending.remove(i);
+        }
+    }
+
+    /**
+     * Finishes every variant the driver is done with, without ever waiting on it. Drivers that can't tell us
+     * get a single variant finished per call instead, which spreads the wait out over many frames.
+     *
+     * @return how many variants are still pending
+     */
+    public int poll() {
+        boolean parallel = Shader.supportsParallelCompile();
+        boolean finishedOne = false;
+        int pending = 0;
+
+        for(Shader variant : m_Variants) {
+            if(!variant.isPending())
+                continue;
+
+            if(variant.isReady() || (!parallel && !finishedOne)) {
+                variant.finish();
+                finishedOne = true;
+            } else {
+                pending++;
+            }
+        }
+
+        return pending;
+    }
+
+    /**
+     * @param features the features the variant should have, in any order
+     * @return the variant with exactly these features
+     */
+    public Shader get(String... features) {
+        int mask = 0;
+        for(String feature : features) {
+            int index = indexOf(feature);
+            if(index < 0)
+                throw new RuntimeException(String.format("Shader [%s + %s] has no feature called [%s]!", m_VertexFile, m_FragmentFile, feature));
+
+            mask |= 1 << index;
+        }
+
+        return m_Variants[mask];
+    }
+
+    private int indexOf(String feature) {
+        for(int i = 0; i < m_Features.length; i++) {
+            if(m_Features[i].equals(feature))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return whether every variant is done, without waiting on any of them
+     */
+    public boolean isDone() {
+        for(Shader variant : m_Variants) {
+            if(variant.isPending())
+                return false;
+        }
+
+        return true;
+    }
+
+    public void cleanup() {
+        s_Pending.remove(this);
+
+        for(Shader variant : m_Variants)
+            variant.cleanup();
+    }
+
+    public int getVariantCount() {
+        return m_Variants.length;
+    }
+
+    public String[] getFeatures() {
+        return m_Features.clone();
+    }
+
+}
@@ -0,0 +1,102 @@
+package git.crystal.engine.render;
+
+/**
+ * Hands RenderSnapshots from the simulation over to the render thread without either of them ever waiting on
+ * the other for longer than it takes to swap a few indices.
+ *
+ * The simulation always has one snapshot to fill in, the last two it published are kept so the renderer can
+ * blend between them, and the renderer holds on to the two it is currently drawing. That makes five
+ * snapshots, which guarantees the simulation always finds a free one no matter how far ahead it gets.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class SnapshotBuffer {
+
+    private static final int SNAPSHOT_COUNT = 5;
+    private static final int NONE = -1;
+
+    private final RenderSnapshot[] m_Snapshots;
+
+    // Only touched by the simulation
+    private int m_writing;
+    // Shared between both threads, always behind our lock
+    private int m_latest, m_previous;
+    // Only changed by the render thread, behind our lock so the simulation can see what it holds
+    private int m_readCurrent, m_readPrevious;
+
+    public SnapshotBuffer() {
+        this(256);
+    }
+
+    public SnapshotBuffer(int initialCapacity) {
+        m_Snapshots = new RenderSnapshot[SNAPSHOT_COUNT];
+        for(int i = 0; i < SNAPSHOT_COUNT; i++)
+            m_Snapshots[i] = new RenderSnapshot(initialCapacity);
+
+        m_writing = 0;
+        m_latest = NONE;
+        m_previous = NONE;
+        m_readCurrent = NONE;
+        m_readPrevious = NONE;
+    }
+
+    /**
+     * Gives the simulation an empty snapshot to fill in.
+     */
+    public RenderSnapshot beginWrite() {
+        RenderSnapshot snapshot = m_Snapshots[m_writing];
+        snapshot.reset();
+
+        return snapshot;
+    }
+
+    /**
+     * Makes the snapshot we got from {@link #beginWrite()} the latest one. It can't be changed anymore after this.
+     *
+     * @param time the time, in seconds, this snapshot was taken at
+     */
+    public synchronized void publish(double time) {
+        m_Snapshots[m_writing].publish(time);
+
+        m_previous = m_latest;
+        m_latest = m_writing;
+
+        for(int i = 0; i < SNAPSHOT_COUNT; i++) {
+            if(i != m_latest && i != m_previous && i != m_readCurrent && i != m_readPrevious) {
+                m_writing = i;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Lets the render thread take the latest two snapshots, which it keeps until the next call.
+     *
+     * @return false if nothing has been published yet
+     */
+    public synchronized boolean acquire() {
+        if(m_latest == NONE)
+            return false;
+
+        m_readCurrent = m_latest;
+        m_readPrevious = m_previous;
+        return true;
+    }
+
+    /**
+     * @return the newest snapshot the render thread holds
+     */
+    public RenderSnapshot getCurrent() {
+        return m_readCurrent == NONE ? null : m_Snapshots[m_readCurrent];
+    }
+
+    /**
+     * @return the snapshot before {@link #getCurrent()}, or null if there was only ever one
+     */
+    public RenderSnapshot getPrevious() {
+        return m_readPrevious == NONE ? null : m_Snapshots[m_readPrevious];
+    }
+
+}
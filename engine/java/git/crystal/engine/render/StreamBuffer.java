@@ -0,0 +1,284 @@
+package git.crystal.engine.render;
+
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.lwjgl.opengl.GL.getCapabilities;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.GL_MAP_WRITE_BIT;
+import static org.lwjgl.opengl.GL30.glMapBufferRange;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.*;
+
+/**
+ * A buffer for data that changes every frame, like instance matrices, particles or debug lines.
+ *
+ * Where the driver supports it, the buffer is created once with glBufferStorage and stays mapped for its whole
+ * life. It is split up into regions, one per frame in flight: every frame writes into the next region while the
+ * GPU may still be reading the ones before it, and a fence per region makes sure we never catch up with it. What
+ * we write goes straight into the buffer's memory, there is no copy and no glBufferData at all.
+ *
+ * Older contexts get the same API on top of orphaning instead: writes go into memory of our own, and every
+ * {@link #flush()} hands the driver fresh storage and copies the data into it.
+ *
+ * Using it comes down to this, every frame:
+ * <pre>
+ *   stream.beginFrame();
+ *   ByteBuffer data = stream.allocate(bytes, alignment); // write into data
+ *   stream.flush();
+ *   // draw, reading from stream.getLastOffset()
+ * </pre>
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class StreamBuffer {
+
+    public static final int DEFAULT_REGION_COUNT = 3;
+
+    // How long we wait on a single fence before checking again, in nanoseconds
+    private static final long FENCE_TIMEOUT = 1_000_000_000L;
+
+    // Hands out generations, unique across every StreamBuffer
+    private static final AtomicInteger s_Generations = new AtomicInteger();
+
+    private final int m_Target, m_RegionCount;
+    private final boolean m_Persistent;
+
+    private int m_id;
+    private int m_regionSize;
+    // Changes every time our buffer is replaced, and no two StreamBuffers ever share one. The driver is free to
+    // hand a deleted name right back to us, so the name alone can't tell anyone that the buffer changed
+    private int m_generation;
+
+    private ByteBuffer m_mapped;
+    private long[] m_fences;
+    private int m_region, m_head;
+    private boolean m_inFrame;
+
+    private long m_lastOffset;
+    private int m_lastSize;
+    private long m_waitCount;
+
+    /**
+     * @param target what the buffer is bound as, like GL_ARRAY_BUFFER
+     * @param regionSize how many bytes a single frame can write before we have to grow, keep this a multiple of
+     *                   whatever alignment you allocate with
+     */
+    public StreamBuffer(int target, int regionSize) {
+        this(target, regionSize, DEFAULT_REGION_COUNT);
+    }
+
+    public StreamBuffer(int target, int regionSize, int regionCount) {
+        m_Target = target;
+        m_Persistent = supportsPersistentMapping();
+        m_RegionCount = m_Persistent ? Math.max(regionCount, 1) : 1;
+
+        create(Math.max(regionSize, 1));
+    }
+
+    /**
+     * @return whether this context can give us persistently mapped buffers, and draw with a base instance
+     */
+    public static boolean supportsPersistentMapping() {
+        GLCapabilities caps = getCapabilities();
+        return (caps.OpenGL44 || caps.GL_ARB_buffer_storage) && (caps.OpenGL42 || caps.GL_ARB_base_instance);
+    }
+
+    /**
+     * Moves on to the next region, waiting on the GPU only if it is still reading from it. Everything drawn
+     * out of the region we leave behind has to have been issued by now.
+     */
+    public void beginFrame() {
+        if(m_Persistent) {
+            if(m_inFrame)
+                m_fences[m_region] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+
+            m_region = (m_region + 1) % m_RegionCount;
+            waitFor(m_region);
+        }
+
+        m_head = 0;
+        m_inFrame = true;
+    }
+
+    /**
+     * Claims room within this frame's region. Write into what we return, then {@link #flush()} before drawing.
+     *
+     * @param bytes how many bytes we want to write
+     * @param alignment what the offset within our buffer has to be a multiple of
+     * @return the claimed memory, from position 0 to a limit of bytes
+     */
+    public ByteBuffer allocate(int bytes, int alignment) {
+        if(!m_inFrame)
+            beginFrame();
+
+        // Every allocation orphans on its own, so it always starts at the front of the buffer
+        if(!m_Persistent)
+            m_head = 0;
+
+        int start = align(m_head, alignment);
+        if(start + bytes > m_regionSize) {
+            grow(start + bytes, alignment);
+            start = align(m_head, alignment);
+        }
+
+        m_head = start + bytes;
+        m_lastOffset = (long) m_region * m_regionSize + start;
+        m_lastSize = bytes;
+
+        return m_mapped.slice((int) m_lastOffset, bytes);
+    }
+
+    /**
+     * Makes what we wrote into our last allocation visible to the GPU. Our mapping is coherent, so this only
+     * does something when we're orphaning.
+     */
+    public void flush() {
+        if(m_Persistent || m_lastSize == 0)
+            return;
+
+        glBindBuffer(m_Target, m_id);
+        glBufferData(m_Target, m_regionSize, GL_STREAM_DRAW);
+        nglBufferSubData(m_Target, 0, m_lastSize, MemoryUtil.memAddress(m_mapped));
+        glBindBuffer(m_Target, 0);
+    }
+
+    /**
+     * @return where in our buffer the last allocation starts, in bytes
+     */
+    public long getLastOffset() {
+        return m_lastOffset;
+    }
+
+    /**
+     * @return the GL name of our buffer. Growing replaces the buffer, so check this again after allocating
+     */
+    public int getId() {
+        return m_id;
+    }
+
+    /**
+     * @return a number that changes every time our buffer is replaced and belongs to no other StreamBuffer,
+     *         compare this rather than {@link #getId()}
+     */
+    public int getGeneration() {
+        return m_generation;
+    }
+
+    public boolean isPersistent() {
+        return m_Persistent;
+    }
+
+    public int getRegionSize() {
+        return m_regionSize;
+    }
+
+    public int getRegionCount() {
+        return m_RegionCount;
+    }
+
+    /**
+     * @return how many times we had to wait on a fence because the GPU hadn't finished with a region yet
+     */
+    public long getWaitCount() {
+        return m_waitCount;
+    }
+
+    public void cleanup() {
+        destroy();
+    }
+
+    private void create(int regionSize) {
+        m_regionSize = regionSize;
+        m_id = glGenBuffers();
+        m_generation = s_Generations.incrementAndGet();
+        glBindBuffer(m_Target, m_id);
+
+        long size = (long) regionSize * m_RegionCount;
+        if(m_Persistent) {
+            int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+            glBufferStorage(m_Target, size, flags);
+            m_mapped = glMapBufferRange(m_Target, 0, size, flags);
+            if(m_mapped == null)
+                throw new RuntimeException(String.format("Failed to map a StreamBuffer of %d bytes!", size));
+
+            m_fences = new long[m_RegionCount];
+        } else {
+            glBufferData(m_Target, size, GL_STREAM_DRAW);
+            m_mapped = MemoryUtil.memAlloc((int) size);
+        }
+
+        glBindBuffer(m_Target, 0);
+    }
+
+    private void destroy() {
+        if(m_Persistent) {
+            for(int i = 0; i < m_RegionCount; i++) {
+                if(m_fences[i] != 0) {
+                    glDeleteSync(m_fences[i]);
+                    m_fences[i] = 0;
+                }
+            }
+
+            glBindBuffer(m_Target, m_id);
+            glUnmapBuffer(m_Target);
+            glBindBuffer(m_Target, 0);
+        } else {
+            MemoryUtil.memFree(m_mapped);
+        }
+
+        // Draws already issued keep the old storage alive until the GPU is done with them
+        glDeleteBuffers(m_id);
+        m_mapped = null;
+    }
+
+    /**
+     * Replaces our buffer with one whose regions fit at least this many bytes. Whatever was allocated from the
+     * old buffer this frame stays valid for draws that were already issued, but nothing else.
+     */
+    private void grow(int bytes, int alignment) {
+        int regionSize = m_regionSize;
+        while(regionSize < bytes)
+            regionSize *= 2;
+
+        destroy();
+        create(align(regionSize, alignment));
+
+        m_region = 0;
+        m_head = 0;
+    }
+
+    private void waitFor(int region) {
+        long fence = m_fences[region];
+        if(fence == 0)
+            return;
+
+        int result = glClientWaitSync(fence, 0, 0);
+        if(result == GL_TIMEOUT_EXPIRED) {
+            m_waitCount++;
+
+            do {
+                result = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT);
+            } while(result == GL_TIMEOUT_EXPIRED);
+        }
+
+        if(result == GL_WAIT_FAILED)
+            System.err.println("Waiting on a StreamBuffer fence failed!");
+
+        glDeleteSync(fence);
+        m_fences[region] = 0;
+    }
+
+    private static int align(int value, int alignment) {
+        if(alignment <= 1)
+            return value;
+
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+}
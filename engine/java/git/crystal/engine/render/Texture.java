@@ -1,20 +1,11 @@
 package git.crystal.engine.render;
 
-import org.apache.commons.io.IOUtils;
-import org.lwjgl.system.MemoryStack;
-import org.lwjgl.system.MemoryUtil;
-
-import java.io.File;
-import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
-import java.util.Objects;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL13.GL_CLAMP_TO_BORDER;
+import static org.lwjgl.opengl.GL13.glCompressedTexImage2D;
 import static org.lwjgl.opengl.GL30.glGenerateMipmap;
-import static org.lwjgl.stb.STBImage.*;
-import static org.lwjgl.system.MemoryStack.stackPush;
 
 /**
  * Handles all the data required to render an image or Texture with OpenGL.
@@ -59,6 +50,31 @@ public class Texture {
         uploadData(GL_RGBA8, width, height, GL_RGBA, data, true);
     }
 
+    /**
+     * Uploads a single mipmap level of RGBA pixels we built ourselves, instead of having OpenGL generate it.
+     */
+    public void uploadLevel(int level, int internalFormat, int width, int height, ByteBuffer data) {
+        glTexImage2D(GL_TEXTURE_2D, level, internalFormat, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, data);
+    }
+
+    /**
+     * Uploads a single mipmap level that is already compressed in the given format.
+     */
+    public void uploadCompressedLevel(int level, int format, int width, int height, ByteBuffer data) {
+        glCompressedTexImage2D(GL_TEXTURE_2D, level, format, width, height, 0, data);
+    }
+
+    /**
+     * Sets the wrapping and filtering every Texture of ours uses. The Texture has to be bound.
+     */
+    public void setDefaultParameters() {
+        setParameter(GL_TEXTURE_WRAP_S, GL_CLAMP_TO_BORDER);
+        setParameter(GL_TEXTURE_WRAP_T, GL_CLAMP_TO_BORDER);
+
+        setParameter(GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        setParameter(GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+    }
+
     public static Texture createTexture(int width, int height, ByteBuffer data) {
         Texture result = new Texture();
 
@@ -66,12 +82,7 @@ public class Texture {
         result.setHeight(height);
 
         result.bind();
-
-        result.setParameter(GL_TEXTURE_WRAP_S, GL_CLAMP_TO_BORDER);
-        result.setParameter(GL_TEXTURE_WRAP_T, GL_CLAMP_TO_BORDER);
-
-        result.setParameter(GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-        result.setParameter(GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        result.setDefaultParameters();
 
         result.uploadData(GL_RGBA8, width, height, GL_RGBA, data, true);
 
@@ -79,56 +90,47 @@ public class Texture {
         return result;
     }
 
-    public static Texture loadInternalTexture(String filePath) {
-        ByteBuffer image, buffer = null;
-        int width, height;
-
-        try (MemoryStack stack = stackPush()) {
-            IntBuffer w = stack.mallocInt(1);
-            IntBuffer h = stack.mallocInt(1);
-            IntBuffer comp = stack.mallocInt(1);
-
-            byte[] imageData = IOUtils.toByteArray(Objects.requireNonNull(Texture.class.getResourceAsStream(filePath)));
-            buffer = MemoryUtil.memAlloc(imageData.length);
-            buffer.put(imageData);
-            buffer.flip();
-
-            stbi_set_flip_vertically_on_load(true);
-            image = stbi_load_from_memory(buffer, w, h, comp, 4);
-            if(image == null)
-                throw new RuntimeException(String.format("Failed to load image [%s]!%n%s", filePath, stbi_failure_reason()));
-
-            width = w.get(0);
-            height = h.get(0);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            if(buffer != null)
-                MemoryUtil.memFree(buffer);
-        }
+    /**
+     * Creates a Texture out of a decoded image. The image still has to be freed afterwards.
+     */
+    public static Texture createTexture(ImageData image) {
+        return createTexture(image.getWidth(), image.getHeight(), image.getPixels());
+    }
 
-        return createTexture(width, height, image);
+    public static Texture loadInternalTexture(String filePath) {
+        return loadTexture(filePath, true);
     }
 
     public static Texture loadTexture(String filePath) {
-        ByteBuffer image;
-        int width, height;
+        return loadTexture(filePath, false);
+    }
 
-        try (MemoryStack stack = stackPush()) {
-            IntBuffer w = stack.mallocInt(1);
-            IntBuffer h = stack.mallocInt(1);
-            IntBuffer comp = stack.mallocInt(1);
+    /**
+     * Loads a Texture out of an image file. If our TextureCache has this image, its mipmaps are uploaded straight
+     * out of the cache file without decoding anything. Otherwise the file is memory mapped and decoded from there,
+     * and the decoded pixels are freed as soon as OpenGL has its own copy of them.
+     *
+     * @param filePath the path of the image file
+     * @param internal whether the file is within the jar file or not
+     * @return the loaded Texture
+     */
+    public static Texture loadTexture(String filePath, boolean internal) {
+        if(TextureCache.isEnabled()) {
+            TextureCache.CachedTexture cached = TextureCache.prepare(filePath, internal);
+            try {
+                return cached.toTexture();
+            } finally {
+                cached.free();
+            }
+        }
 
-            stbi_set_flip_vertically_on_load(true);
-            image = stbi_load(filePath, w, h, comp, 4);
-            if(image == null)
-                throw new RuntimeException(String.format("Failed to load image [%s]!%n%s", filePath, stbi_failure_reason()));
+        ImageData image = ImageData.load(filePath, internal);
 
-            width = w.get(0);
-            height = h.get(0);
+        try {
+            return createTexture(image);
+        } finally {
+            image.free();
         }
-
-        return createTexture(width, height, image);
     }
 
     public void setWidth(int width) {
@@ -149,6 +151,13 @@ public class Texture {
         return m_height;
     }
 
+    /**
+     * @return roughly how many bytes this Texture takes up on the GPU, as RGBA8 with a full chain of mipmaps
+     */
+    public long getByteSize() {
+        return (long) m_width * m_height * 4 * 4 / 3;
+    }
+
     public int getId() {
         return m_Id;
     }
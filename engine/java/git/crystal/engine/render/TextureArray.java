@@ -0,0 +1,114 @@
+package git.crystal.engine.render;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+import static org.lwjgl.opengl.GL12.GL_TEXTURE_MAX_LEVEL;
+import static org.lwjgl.opengl.GL12.glTexImage3D;
+import static org.lwjgl.opengl.GL12.glTexSubImage3D;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+import static org.lwjgl.opengl.GL30.glGenerateMipmap;
+
+/**
+ * A stack of equally sized RGBA images behind a single GL texture. Shaders pick a layer with the third texture
+ * coordinate, so everything drawn out of the same array can share one bind, see
+ * {@link git.crystal.engine.render.atlas.TextureAtlas}.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class TextureArray {
+
+    private final int m_Id;
+    private final int m_Width, m_Height, m_Layers, m_Levels;
+
+    /**
+     * Creates the storage of our array, without any pixels in it yet.
+     *
+     * @param levels how many mipmap levels we use, including the full sized one
+     */
+    public TextureArray(int width, int height, int layers, int levels) {
+        m_Width = width;
+        m_Height = height;
+        m_Layers = layers;
+        m_Levels = Math.max(levels, 1);
+
+        m_Id = glGenTextures();
+        bind();
+
+        glTexImage3D(GL_TEXTURE_2D_ARRAY, 0, GL_RGBA8, width, height, layers, 0, GL_RGBA, GL_UNSIGNED_BYTE, (ByteBuffer) null);
+
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, m_Levels > 1 ? GL_NEAREST_MIPMAP_LINEAR : GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        // Levels past this would blend images of the atlas into each other
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAX_LEVEL, m_Levels - 1);
+
+        unbind();
+    }
+
+    /**
+     * Fills one layer with RGBA pixels. The array has to be bound.
+     *
+     * @param layer the layer we are filling
+     * @param pixels width * height RGBA pixels
+     */
+    public void uploadLayer(int layer, ByteBuffer pixels) {
+        glTexSubImage3D(GL_TEXTURE_2D_ARRAY, 0, 0, 0, layer, m_Width, m_Height, 1, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+    }
+
+    /**
+     * Builds our mipmaps out of the full sized layers. The array has to be bound.
+     */
+    public void generateMipmaps() {
+        if(m_Levels > 1)
+            glGenerateMipmap(GL_TEXTURE_2D_ARRAY);
+    }
+
+    public void bind() {
+        glBindTexture(GL_TEXTURE_2D_ARRAY, m_Id);
+    }
+
+    public void unbind() {
+        glBindTexture(GL_TEXTURE_2D_ARRAY, 0);
+    }
+
+    public void cleanup() {
+        glDeleteTextures(m_Id);
+    }
+
+    /**
+     * @return roughly how many bytes this array takes up on the GPU, including its mipmaps
+     */
+    public long getByteSize() {
+        long bytes = 0;
+        for(int level = 0; level < m_Levels; level++)
+            bytes += (long) Math.max(m_Width >> level, 1) * Math.max(m_Height >> level, 1) * 4;
+
+        return bytes * m_Layers;
+    }
+
+    public int getId() {
+        return m_Id;
+    }
+
+    public int getWidth() {
+        return m_Width;
+    }
+
+    public int getHeight() {
+        return m_Height;
+    }
+
+    public int getLayers() {
+        return m_Layers;
+    }
+
+    public int getLevels() {
+        return m_Levels;
+    }
+
+}
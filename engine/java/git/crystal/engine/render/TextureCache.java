@@ -0,0 +1,383 @@
+package git.crystal.engine.render;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static org.lwjgl.opengl.EXTTextureCompressionS3TC.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_TEXTURE_MAX_LEVEL;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE_COMPRESSED;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE_COMPRESSED_IMAGE_SIZE;
+import static org.lwjgl.opengl.GL13.glGetCompressedTexImage;
+
+/**
+ * A decoded form of our textures, mipmaps and all. The first time an image is loaded we decode it, shrink it
+ * down level by level with a box filter and write every level out to disk. Every load after that memory maps
+ * the file and uploads each level as it is, no decoding and no glGenerateMipmap.
+ *
+ * Cache files are named after a hash of the source file's contents, so an image that changes simply gets a new
+ * cache file, and the same image under two paths shares one.
+ *
+ * The layout of a cache file is as follows (all in native byte order):
+ * <pre>
+ *   int  magic          "CTEX"
+ *   int  version
+ *   long sourceHash     see {@link git.crystal.engine.utils.Files#hash(ByteBuffer)}
+ *   int  width
+ *   int  height
+ *   int  levelCount
+ *   int  format         GL_RGBA8, or the compressed format every level is stored in
+ *   then for every level:
+ *     int width, int height, int offset, int size
+ *   then the data of every level, at its offset from the start of the file
+ * </pre>
+ *
+ * With compression on, levels are compressed by the driver the first time the cache is uploaded, read back and
+ * written over the uncompressed cache, so from then on they go to the GPU at a quarter of the size.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class TextureCache {
+
+    private static final int MAGIC = 0x58455443; // "CTEX"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int LEVEL_ENTRY_SIZE = 16;
+
+    private static Path s_Directory = Paths.get(System.getProperty("user.home"), ".arcane-crystal", "cache", "textures");
+    private static boolean s_Enabled = true;
+    private static boolean s_Compression = false;
+
+    /**
+     * Gets the mipmaps of an image ready to be uploaded, without touching OpenGL, so this can happen on any thread.
+     * If we have a valid cache they come straight out of it, otherwise the image is decoded, its mipmaps are built
+     * and the cache is written for next time.
+     *
+     * @param filePath the path of the image file
+     * @param internal whether the file is within the jar file or not
+     * @return the mipmaps of our image, which have to be freed once uploaded
+     */
+    public static CachedTexture prepare(String filePath, boolean internal) {
+        ByteBuffer source = git.crystal.engine.utils.Files.mapFile(filePath, internal);
+        long hash = git.crystal.engine.utils.Files.hash(source);
+
+        CachedTexture cached = read(hash);
+        if(cached != null)
+            return cached;
+
+        ImageData image = ImageData.decode(source, filePath);
+        try {
+            CachedTexture built = build(image, hash);
+            write(built);
+
+            return built;
+        } finally {
+            image.free();
+        }
+    }
+
+    /**
+     * Maps the cache file of a source, if there is a valid one.
+     *
+     * @param sourceHash the hash of the source file, see {@link git.crystal.engine.utils.Files#hash(ByteBuffer)}
+     * @return the mapped cache, or null if there is no valid cache for this hash
+     */
+    public static CachedTexture read(long sourceHash) {
+        if(!s_Enabled)
+            return null;
+
+        Path cacheFile = cachePath(sourceHash);
+        if(!Files.isRegularFile(cacheFile))
+            return null;
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_SIZE || size > Integer.MAX_VALUE)
+                return null;
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.nativeOrder());
+
+            if(mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || mapped.getLong(8) != sourceHash)
+                return null;
+
+            int levels = mapped.getInt(24);
+            if(levels <= 0 || HEADER_SIZE + (long) levels * LEVEL_ENTRY_SIZE > size)
+                return null;
+
+            // A cache cut short by a crash or a full disk is as good as no cache
+            int last = HEADER_SIZE + (levels - 1) * LEVEL_ENTRY_SIZE;
+            if((long) mapped.getInt(last + 8) + mapped.getInt(last + 12) != size)
+                return null;
+
+            return new CachedTexture(mapped, false);
+        } catch (IOException e) {
+            System.err.printf("Failed to read texture cache [%s]: %s%n", cacheFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lays out a decoded image and every mipmap level below it the same way a cache file does. Each level is
+     * built out of the one above it, averaging every 2x2 block of pixels into one.
+     *
+     * @param image the decoded image
+     * @param sourceHash the hash of the file the image was decoded from
+     * @return the mipmaps of our image, in memory we allocated
+     */
+    public static CachedTexture build(ImageData image, long sourceHash) {
+        int width = image.getWidth(), height = image.getHeight();
+        int levels = levelCount(width, height);
+
+        long size = HEADER_SIZE + (long) levels * LEVEL_ENTRY_SIZE;
+        for(int level = 0; level < levels; level++)
+            size += (long) Math.max(width >> level, 1) * Math.max(height >> level, 1) * 4;
+
+        if(size > Integer.MAX_VALUE)
+            throw new RuntimeException(String.format("Texture of %dx%d is too large to be cached!", width, height));
+
+        ByteBuffer data = MemoryUtil.memAlloc((int) size).order(ByteOrder.nativeOrder());
+        writeHeader(data, sourceHash, width, height, levels, GL_RGBA8);
+
+        int offset = HEADER_SIZE + levels * LEVEL_ENTRY_SIZE;
+        for(int level = 0; level < levels; level++) {
+            int levelWidth = Math.max(width >> level, 1), levelHeight = Math.max(height >> level, 1);
+            int levelSize = levelWidth * levelHeight * 4;
+
+            writeLevel(data, level, levelWidth, levelHeight, offset, levelSize);
+
+            if(level == 0) {
+                data.put(offset, image.getPixels(), 0, levelSize);
+            } else {
+                int previous = HEADER_SIZE + (level - 1) * LEVEL_ENTRY_SIZE;
+                downsample(data, data.getInt(previous + 8), data.getInt(previous), data.getInt(previous + 4), offset, levelWidth, levelHeight);
+            }
+
+            offset += levelSize;
+        }
+
+        return new CachedTexture(data, true);
+    }
+
+    /**
+     * Writes a cache out to disk. If that fails the image is simply decoded again on its next load.
+     */
+    public static void write(CachedTexture cached) {
+        if(!s_Enabled)
+            return;
+
+        ByteBuffer data = cached.m_Data;
+        Path cacheFile = cachePath(data.getLong(8));
+
+        try {
+            git.crystal.engine.utils.Files.writeAtomically(cacheFile, data.duplicate().clear());
+        } catch (IOException e) {
+            System.err.printf("Failed to write texture cache [%s]: %s%n", cacheFile, e.getMessage());
+        }
+    }
+
+    /**
+     * @return how many levels it takes to shrink an image down to a single pixel
+     */
+    private static int levelCount(int width, int height) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(Math.max(width, height), 1));
+    }
+
+    /**
+     * Box filters one level of RGBA pixels into the next. Odd edges reuse their last row or column.
+     */
+    private static void downsample(ByteBuffer data, int source, int sourceWidth, int sourceHeight, int target, int width, int height) {
+        for(int y = 0; y < height; y++) {
+            int y0 = Math.min(y * 2, sourceHeight - 1), y1 = Math.min(y * 2 + 1, sourceHeight - 1);
+
+            for(int x = 0; x < width; x++) {
+                int x0 = Math.min(x * 2, sourceWidth - 1), x1 = Math.min(x * 2 + 1, sourceWidth - 1);
+
+                int a = source + (y0 * sourceWidth + x0) * 4, b = source + (y0 * sourceWidth + x1) * 4;
+                int c = source + (y1 * sourceWidth + x0) * 4, d = source + (y1 * sourceWidth + x1) * 4;
+                int out = target + (y * width + x) * 4;
+
+                for(int channel = 0; channel < 4; channel++) {
+                    int sum = (data.get(a + channel) & 0xFF) + (data.get(b + channel) & 0xFF)
+                            + (data.get(c + channel) & 0xFF) + (data.get(d + channel) & 0xFF);
+                    data.put(out + channel, (byte) ((sum + 2) >> 2));
+                }
+            }
+        }
+    }
+
+    private static void writeHeader(ByteBuffer data, long sourceHash, int width, int height, int levels, int format) {
+        data.putInt(0, MAGIC).putInt(4, VERSION);
+        data.putLong(8, sourceHash);
+        data.putInt(16, width).putInt(20, height);
+        data.putInt(24, levels).putInt(28, format);
+    }
+
+    private static void writeLevel(ByteBuffer data, int level, int width, int height, int offset, int size) {
+        int entry = HEADER_SIZE + level * LEVEL_ENTRY_SIZE;
+        data.putInt(entry, width).putInt(entry + 4, height).putInt(entry + 8, offset).putInt(entry + 12, size);
+    }
+
+    private static Path cachePath(long sourceHash) {
+        return s_Directory.resolve(String.format("%016x.ctex", sourceHash));
+    }
+
+    public static void setDirectory(Path directory) {
+        s_Directory = directory;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        s_Enabled = enabled;
+    }
+
+    /**
+     * Lets the driver compress our textures into DXT5 where it supports that, see {@link TextureCache}.
+     */
+    public static void setCompression(boolean compression) {
+        s_Compression = compression;
+    }
+
+    public static Path getDirectory() {
+        return s_Directory;
+    }
+
+    public static boolean isEnabled() {
+        return s_Enabled;
+    }
+
+    public static boolean usesCompression() {
+        return s_Compression;
+    }
+
+    /**
+     * Every mipmap level of a texture, either mapped straight from a cache file or built in memory.
+     */
+    public static class CachedTexture {
+
+        private final ByteBuffer m_Data;
+        private final boolean m_Owned;
+        private boolean m_freed;
+
+        private CachedTexture(ByteBuffer data, boolean owned) {
+            m_Data = data;
+            m_Owned = owned;
+        }
+
+        /**
+         * Uploads every level into a new Texture. This requires a current GL context!
+         */
+        public Texture toTexture() {
+            if(m_freed)
+                throw new IllegalStateException("This CachedTexture has already been freed!");
+
+            int levels = getLevelCount(), format = getFormat();
+            boolean compress = s_Compression && format == GL_RGBA8 && GL.getCapabilities().GL_EXT_texture_compression_s3tc;
+
+            Texture result = new Texture();
+            result.setWidth(getWidth());
+            result.setHeight(getHeight());
+
+            result.bind();
+            result.setDefaultParameters();
+            result.setParameter(GL_TEXTURE_MAX_LEVEL, levels - 1);
+
+            for(int level = 0; level < levels; level++) {
+                int entry = HEADER_SIZE + level * LEVEL_ENTRY_SIZE;
+                int width = m_Data.getInt(entry), height = m_Data.getInt(entry + 4);
+                ByteBuffer pixels = m_Data.slice(m_Data.getInt(entry + 8), m_Data.getInt(entry + 12));
+
+                if(format != GL_RGBA8)
+                    result.uploadCompressedLevel(level, format, width, height, pixels);
+                else
+                    result.uploadLevel(level, compress ? GL_COMPRESSED_RGBA_S3TC_DXT5_EXT : GL_RGBA8, width, height, pixels);
+            }
+
+            if(compress && glGetTexLevelParameteri(GL_TEXTURE_2D, 0, GL_TEXTURE_COMPRESSED) == GL_TRUE)
+                writeCompressed(GL_COMPRESSED_RGBA_S3TC_DXT5_EXT, levels);
+
+            result.unbind();
+            return result;
+        }
+
+        /**
+         * Reads back what the driver compressed our levels into, and replaces our cache file with it.
+         * The Texture holding the compressed levels has to be bound.
+         */
+        private void writeCompressed(int format, int levels) {
+            long size = HEADER_SIZE + (long) levels * LEVEL_ENTRY_SIZE;
+            for(int level = 0; level < levels; level++)
+                size += glGetTexLevelParameteri(GL_TEXTURE_2D, level, GL_TEXTURE_COMPRESSED_IMAGE_SIZE);
+
+            ByteBuffer data = MemoryUtil.memAlloc((int) size).order(ByteOrder.nativeOrder());
+            try {
+                writeHeader(data, m_Data.getLong(8), getWidth(), getHeight(), levels, format);
+
+                int offset = HEADER_SIZE + levels * LEVEL_ENTRY_SIZE;
+                for(int level = 0; level < levels; level++) {
+                    int entry = HEADER_SIZE + level * LEVEL_ENTRY_SIZE;
+                    int levelSize = glGetTexLevelParameteri(GL_TEXTURE_2D, level, GL_TEXTURE_COMPRESSED_IMAGE_SIZE);
+
+                    writeLevel(data, level, m_Data.getInt(entry), m_Data.getInt(entry + 4), offset, levelSize);
+                    glGetCompressedTexImage(GL_TEXTURE_2D, level, data.slice(offset, levelSize));
+
+                    offset += levelSize;
+                }
+
+                write(new CachedTexture(data, false));
+            } finally {
+                MemoryUtil.memFree(data);
+            }
+        }
+
+        /**
+         * Frees the memory of a cache that was built rather than mapped. Safe to call more than once.
+         */
+        public void free() {
+            if(m_Owned && !m_freed)
+                MemoryUtil.memFree(m_Data);
+
+            m_freed = true;
+        }
+
+        public int getWidth() {
+            return m_Data.getInt(16);
+        }
+
+        public int getHeight() {
+            return m_Data.getInt(20);
+        }
+
+        public int getLevelCount() {
+            return m_Data.getInt(24);
+        }
+
+        /**
+         * @return GL_RGBA8, or the compressed format of our levels
+         */
+        public int getFormat() {
+            return m_Data.getInt(28);
+        }
+
+        /**
+         * @return how many bytes of pixels there are to upload, every level included
+         */
+        public long getByteSize() {
+            return m_Data.capacity() - HEADER_SIZE - (long) getLevelCount() * LEVEL_ENTRY_SIZE;
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package git.crystal.engine.render.atlas;
+
+import git.crystal.engine.render.TextureArray;
+
+/**
+ * Where a single image ended up within a TextureAtlas. A Mesh drawn with a region keeps its own texture
+ * coordinates, they are scaled and offset into the region on the GPU:
+ * <pre>
+ *   atlasCoords = textureCoords * (scaleU, scaleV) + (offsetU, offsetV), sampled from layer
+ * </pre>
+ * Because of that, texture coordinates outside of 0 to 1 won't repeat the image, they run into its neighbours.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class AtlasRegion {
+
+    private final TextureArray m_Atlas;
+    private final int m_Layer;
+    private final float m_OffsetU, m_OffsetV, m_ScaleU, m_ScaleV;
+    private final int m_Width, m_Height;
+
+    public AtlasRegion(TextureArray atlas, int layer, int x, int y, int width, int height) {
+        m_Atlas = atlas;
+        m_Layer = layer;
+        m_Width = width;
+        m_Height = height;
+
+        m_OffsetU = (float) x / atlas.getWidth();
+        m_OffsetV = (float) y / atlas.getHeight();
+        m_ScaleU = (float) width / atlas.getWidth();
+        m_ScaleV = (float) height / atlas.getHeight();
+    }
+
+    public TextureArray getAtlas() {
+        return m_Atlas;
+    }
+
+    public int getLayer() {
+        return m_Layer;
+    }
+
+    public float getOffsetU() {
+        return m_OffsetU;
+    }
+
+    public float getOffsetV() {
+        return m_OffsetV;
+    }
+
+    public float getScaleU() {
+        return m_ScaleU;
+    }
+
+    public float getScaleV() {
+        return m_ScaleV;
+    }
+
+    /**
+     * @return the width in pixels of the image, without its padding
+     */
+    public int getWidth() {
+        return m_Width;
+    }
+
+    /**
+     * @return the height in pixels of the image, without its padding
+     */
+    public int getHeight() {
+        return m_Height;
+    }
+
+}
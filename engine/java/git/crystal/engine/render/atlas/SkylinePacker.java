@@ -0,0 +1,168 @@
+package git.crystal.engine.render.atlas;
+
+import java.util.Arrays;
+
+/**
+ * Packs rectangles into a fixed size area using a bottom-left skyline. The skyline is the outline of the top
+ * edges of everything packed so far, kept as a list of horizontal segments from left to right. A new rectangle
+ * goes wherever it can sit lowest on that outline, which for lots of similar sized images wastes very little space.
+ *
+ * This doesn't know anything about pixels or padding, it only hands out positions. See {@link TextureAtlas}.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class SkylinePacker {
+
+    private final int m_Width, m_Height;
+
+    // Every segment of the skyline, starting at x, resting at y and spanning width
+    private int[] m_x, m_y, m_width;
+    private int m_size;
+
+    private int m_usedArea;
+
+    public SkylinePacker(int width, int height) {
+        m_Width = width;
+        m_Height = height;
+
+        m_x = new int[16];
+        m_y = new int[16];
+        m_width = new int[16];
+
+        clear();
+    }
+
+    public void clear() {
+        m_x[0] = 0;
+        m_y[0] = 0;
+        m_width[0] = m_Width;
+        m_size = 1;
+        m_usedArea = 0;
+    }
+
+    /**
+     * Finds room for a rectangle and claims it.
+     *
+     * @param width the width of the rectangle
+     * @param height the height of the rectangle
+     * @param dest where the x and y of the rectangle are written to
+     * @return false if the rectangle doesn't fit anywhere anymore
+     */
+    public boolean pack(int width, int height, int[] dest) {
+        if(width <= 0 || height <= 0 || width > m_Width || height > m_Height)
+            return false;
+
+        int bestIndex = -1, bestX = 0, bestY = Integer.MAX_VALUE, bestWidth = Integer.MAX_VALUE;
+        for(int i = 0; i < m_size; i++) {
+            int y = fit(i, width, height);
+            if(y < 0)
+                continue;
+
+            // Lowest spot first, then the narrowest segment so wide gaps stay open for wide rectangles
+            if(y < bestY || (y == bestY && m_width[i] < bestWidth)) {
+                bestIndex = i;
+                bestX = m_x[i];
+                bestY = y;
+                bestWidth = m_width[i];
+            }
+        }
+
+        if(bestIndex < 0)
+            return false;
+
+        insert(bestIndex, bestX, bestY + height, width);
+        m_usedArea += width * height;
+
+        dest[0] = bestX;
+        dest[1] = bestY;
+        return true;
+    }
+
+    /**
+     * @return how much of our area has been handed out, from 0 to 1
+     */
+    public float getOccupancy() {
+        return (float) m_usedArea / ((float) m_Width * m_Height);
+    }
+
+    public int getWidth() {
+        return m_Width;
+    }
+
+    public int getHeight() {
+        return m_Height;
+    }
+
+    /**
+     * @return how low a rectangle starting at the segment at index can sit, or -1 if it doesn't fit there
+     */
+    private int fit(int index, int width, int height) {
+        if(m_x[index] + width > m_Width)
+            return -1;
+
+        int y = 0, remaining = width;
+        for(int i = index; remaining > 0; i++) {
+            y = Math.max(y, m_y[i]);
+            if(y + height > m_Height)
+                return -1;
+
+            remaining -= m_width[i];
+        }
+
+        return y;
+    }
+
+    /**
+     * Puts a new segment into the skyline, and cuts away whatever it now covers.
+     */
+    private void insert(int index, int x, int y, int width) {
+        if(m_size == m_x.length) {
+            m_x = Arrays.copyOf(m_x, m_size * 2);
+            m_y = Arrays.copyOf(m_y, m_size * 2);
+            m_width = Arrays.copyOf(m_width, m_size * 2);
+        }
+
+        System.arraycopy(m_x, index, m_x, index + 1, m_size - index);
+        System.arraycopy(m_y, index, m_y, index + 1, m_size - index);
+        System.arraycopy(m_width, index, m_width, index + 1, m_size - index);
+        m_x[index] = x;
+        m_y[index] = y;
+        m_width[index] = width;
+        m_size++;
+
+        int right = x + width;
+        for(int i = index + 1; i < m_size; ) {
+            if(m_x[i] >= right)
+                break;
+
+            int overlap = right - m_x[i];
+            if(overlap < m_width[i]) {
+                m_x[i] += overlap;
+                m_width[i] -= overlap;
+                break;
+            }
+
+            remove(i);
+        }
+
+        // Neighbours resting at the same height are really one segment
+        for(int i = 0; i < m_size - 1; ) {
+            if(m_y[i] == m_y[i + 1]) {
+                m_width[i] += m_width[i + 1];
+                remove(i + 1);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void remove(int index) {
+        System.arraycopy(m_x, index + 1, m_x, index, m_size - index - 1);
+        System.arraycopy(m_y, index + 1, m_y, index, m_size - index - 1);
+        System.arraycopy(m_width, index + 1, m_width, index, m_size - index - 1);
+        m_size--;
+    }
+
+}
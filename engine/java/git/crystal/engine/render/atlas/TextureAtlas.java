@@ -0,0 +1,244 @@
+package git.crystal.engine.render.atlas;
+
+import git.crystal.engine.render.ImageData;
+import git.crystal.engine.render.TextureArray;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs lots of small images into a few large pages, which become the layers of a single TextureArray. Every
+ * Mesh textured out of the same atlas binds the same texture, so the Renderer can draw them together no matter
+ * which image each of them shows.
+ *
+ * Images are added first and packed all at once when the atlas is created, tallest first, which packs much
+ * tighter than placing them in whatever order they were added. Every image is surrounded by padding filled with
+ * copies of its edge pixels. We only generate as many mipmap levels as that padding survives, and place images
+ * on a grid that lines up with the smallest level, so even the blurriest level never samples a neighbour.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class TextureAtlas {
+
+    private final int m_PageSize, m_Padding;
+    private final Map<String, AtlasRegion> m_Regions;
+    private final List<Entry> m_Entries;
+
+    private TextureArray m_texture;
+    private float m_occupancy;
+
+    public TextureAtlas() {
+        this(2048, 4);
+    }
+
+    /**
+     * @param pageSize the width and height of every page in pixels
+     * @param padding how many pixels of each image's edge are repeated around it
+     */
+    public TextureAtlas(int pageSize, int padding) {
+        m_PageSize = pageSize;
+        m_Padding = Math.max(padding, 0);
+
+        m_Regions = new HashMap<>();
+        m_Entries = new ArrayList<>();
+    }
+
+    /**
+     * Adds an image to be packed. We only read it while creating the atlas, freeing it stays up to you.
+     */
+    public void add(String name, ImageData image) {
+        add(name, image, false);
+    }
+
+    /**
+     * Loads an image file to be packed, which is freed again once the atlas is created.
+     *
+     * @param name the name to look the region of this image up by
+     * @param filePath the path of the image file
+     * @param internal whether the file is within the jar file or not
+     */
+    public void add(String name, String filePath, boolean internal) {
+        add(name, ImageData.load(filePath, internal), true);
+    }
+
+    private void add(String name, ImageData image, boolean owned) {
+        if(m_texture != null)
+            throw new IllegalStateException("Can't add images to a TextureAtlas that has already been created!");
+
+        m_Entries.add(new Entry(name, image, owned));
+    }
+
+    /**
+     * Packs every image we were given and uploads the pages to OpenGL.
+     */
+    public void create() {
+        if(m_texture != null)
+            throw new IllegalStateException("This TextureAtlas has already been created!");
+
+        int levels = getLevels();
+        int alignment = 1 << (levels - 1);
+
+        m_Entries.sort((a, b) -> Integer.compare(b.m_Image.getHeight(), a.m_Image.getHeight()));
+
+        List<SkylinePacker> pages = new ArrayList<>();
+        int[] position = new int[2];
+        long usedArea = 0;
+
+        for(Entry entry : m_Entries) {
+            int width = align(entry.m_Image.getWidth() + m_Padding * 2, alignment);
+            int height = align(entry.m_Image.getHeight() + m_Padding * 2, alignment);
+            if(width > m_PageSize || height > m_PageSize) {
+                throw new RuntimeException(String.format("Image [%s] of %dx%d doesn't fit on an atlas page of %dx%d!",
+                        entry.m_Name, entry.m_Image.getWidth(), entry.m_Image.getHeight(), m_PageSize, m_PageSize));
+            }
+
+            int page = 0;
+            while(page < pages.size() && !pages.get(page).pack(width, height, position))
+                page++;
+
+            if(page == pages.size()) {
+                pages.add(new SkylinePacker(m_PageSize, m_PageSize));
+                pages.get(page).pack(width, height, position);
+            }
+
+            entry.m_page = page;
+            entry.m_x = position[0];
+            entry.m_y = position[1];
+            usedArea += (long) width * height;
+        }
+
+        m_texture = new TextureArray(m_PageSize, m_PageSize, Math.max(pages.size(), 1), levels);
+        m_occupancy = (float) ((double) usedArea / ((double) m_PageSize * m_PageSize * Math.max(pages.size(), 1)));
+
+        ByteBuffer pixels = MemoryUtil.memCalloc(m_PageSize * m_PageSize * 4);
+        try {
+            m_texture.bind();
+
+            for(int page = 0; page < Math.max(pages.size(), 1); page++) {
+                MemoryUtil.memSet(pixels, 0);
+
+                for(Entry entry : m_Entries) {
+                    if(entry.m_page != page)
+                        continue;
+
+                    blit(entry.m_Image, pixels.asIntBuffer(), entry.m_x, entry.m_y);
+                    m_Regions.put(entry.m_Name, new AtlasRegion(m_texture, page,
+                            entry.m_x + m_Padding, entry.m_y + m_Padding, entry.m_Image.getWidth(), entry.m_Image.getHeight()));
+                }
+
+                m_texture.uploadLayer(page, pixels);
+            }
+
+            m_texture.generateMipmaps();
+            m_texture.unbind();
+        } finally {
+            MemoryUtil.memFree(pixels);
+
+            for(Entry entry : m_Entries) {
+                if(entry.m_Owned)
+                    entry.m_Image.free();
+            }
+
+            m_Entries.clear();
+        }
+    }
+
+    /**
+     * Copies an image into a page, with its edge pixels repeated out into the padding around it.
+     *
+     * @param page the pixels of the page, one int per RGBA pixel
+     * @param x where the padding of the image starts
+     * @param y where the padding of the image starts
+     */
+    private void blit(ImageData image, IntBuffer page, int x, int y) {
+        IntBuffer source = image.getPixels().asIntBuffer();
+        int width = image.getWidth(), height = image.getHeight();
+
+        for(int row = -m_Padding; row < height + m_Padding; row++) {
+            int sourceRow = Math.min(Math.max(row, 0), height - 1) * width;
+            int target = (y + m_Padding + row) * m_PageSize + x + m_Padding;
+
+            for(int column = 0; column < width; column++)
+                page.put(target + column, source.get(sourceRow + column));
+
+            int left = source.get(sourceRow), right = source.get(sourceRow + width - 1);
+            for(int i = 1; i <= m_Padding; i++) {
+                page.put(target - i, left);
+                page.put(target + width - 1 + i, right);
+            }
+        }
+    }
+
+    /**
+     * @return how many mipmap levels keep at least a pixel of padding around every image
+     */
+    private int getLevels() {
+        int levels = 1;
+        while((m_Padding >> levels) > 0)
+            levels++;
+
+        return levels;
+    }
+
+    private static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    public void cleanup() {
+        if(m_texture != null)
+            m_texture.cleanup();
+    }
+
+    public AtlasRegion getRegion(String name) {
+        AtlasRegion region = m_Regions.get(name);
+        if(region == null)
+            throw new RuntimeException(String.format("TextureAtlas has no image called [%s]!", name));
+
+        return region;
+    }
+
+    public boolean hasRegion(String name) {
+        return m_Regions.containsKey(name);
+    }
+
+    /**
+     * @return the TextureArray holding our pages, or null until we have been created
+     */
+    public TextureArray getTexture() {
+        return m_texture;
+    }
+
+    public int getPageCount() {
+        return m_texture == null ? 0 : m_texture.getLayers();
+    }
+
+    /**
+     * @return how much of our pages is covered by images and their padding, from 0 to 1
+     */
+    public float getOccupancy() {
+        return m_occupancy;
+    }
+
+    private static class Entry {
+
+        private final String m_Name;
+        private final ImageData m_Image;
+        private final boolean m_Owned;
+        private int m_page, m_x, m_y;
+
+        public Entry(String name, ImageData image, boolean owned) {
+            m_Name = name;
+            m_Image = image;
+            m_Owned = owned;
+        }
+
+    }
+
+}
@@ -0,0 +1,309 @@
+package git.crystal.engine.render.mesh;
+
+import git.crystal.engine.render.InstanceBuffer;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+
+/**
+ * Keeps the vertices and indices of many Meshes in one big vertex buffer and one big index buffer, behind a
+ * single VAO. Every Mesh added to the pool gets a range of each, and draws with its own first index and base
+ * vertex, so switching between them never binds anything. That lets the Renderer draw every visible pooled
+ * Mesh of a material with a single glMultiDrawElementsIndirect.
+ *
+ * Every Mesh in a pool has to use the same VertexFormat. When a Mesh doesn't fit, the pool first packs every
+ * range to the front if there is enough free space that is merely scattered, and grows its buffers otherwise.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class GeometryPool {
+
+    private final VertexFormat m_Format;
+    private final int m_VAOId;
+    private final RangeAllocator m_Vertices, m_Indices;
+    private final List<Allocation> m_Allocations;
+
+    private int m_vertexVBO, m_indexVBO;
+    private int m_defragmentCount;
+
+    /**
+     * @param format the layout of every vertex in this pool
+     * @param vertexCapacity how many vertices we have room for before growing
+     * @param indexCapacity how many indices we have room for before growing
+     */
+    public GeometryPool(VertexFormat format, int vertexCapacity, int indexCapacity) {
+        m_Format = format;
+        m_Vertices = new RangeAllocator(Math.max(vertexCapacity, 1));
+        m_Indices = new RangeAllocator(Math.max(indexCapacity, 1));
+        m_Allocations = new ArrayList<>();
+
+        m_VAOId = glGenVertexArrays();
+        m_vertexVBO = createBuffer(GL_ARRAY_BUFFER, (long) m_Vertices.getCapacity() * format.getStride());
+        m_indexVBO = createBuffer(GL_COPY_WRITE_BUFFER, (long) m_Indices.getCapacity() * Integer.BYTES);
+        bindBuffers();
+    }
+
+    /**
+     * Uploads the data of a Mesh into our buffers.
+     *
+     * @return a Mesh drawing out of this pool, cleaning it up gives its ranges back
+     */
+    public Mesh add(MeshData data) {
+        if(!data.getFormat().equals(m_Format))
+            throw new IllegalArgumentException("Every Mesh of a GeometryPool has to share its vertex format!");
+
+        FloatBuffer vertices = data.interleave();
+        IntBuffer indices = MemoryUtil.memAllocInt(data.getIndexCount()).put(data.getIndices()).flip();
+
+        try {
+            Allocation allocation = allocate(data.getVertexCount(), data.getIndexCount());
+
+            glBindBuffer(GL_ARRAY_BUFFER, m_vertexVBO);
+            glBufferSubData(GL_ARRAY_BUFFER, (long) allocation.m_vertexOffset * m_Format.getStride(), vertices);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+            glBindBuffer(GL_COPY_WRITE_BUFFER, m_indexVBO);
+            glBufferSubData(GL_COPY_WRITE_BUFFER, (long) allocation.m_indexOffset * Integer.BYTES, indices);
+            glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+
+            return new Mesh(allocation, vertices);
+        } finally {
+            MemoryUtil.memFree(vertices);
+            MemoryUtil.memFree(indices);
+        }
+    }
+
+    /**
+     * Packs every range to the front of our buffers, so all of our free space ends up in one piece. Meshes keep
+     * working as they were, they read their new offsets from their Allocation.
+     */
+    public void defragment() {
+        m_Allocations.sort(Comparator.comparingInt(allocation -> allocation.m_vertexOffset));
+        int vertexVBO = createBuffer(GL_ARRAY_BUFFER, (long) m_Vertices.getCapacity() * m_Format.getStride());
+
+        glBindBuffer(GL_COPY_READ_BUFFER, m_vertexVBO);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, vertexVBO);
+        int vertexHead = 0;
+        for(Allocation allocation : m_Allocations) {
+            glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_COPY_WRITE_BUFFER, (long) allocation.m_vertexOffset * m_Format.getStride(),
+                    (long) vertexHead * m_Format.getStride(), (long) allocation.m_VertexCount * m_Format.getStride());
+
+            allocation.m_vertexOffset = vertexHead;
+            vertexHead += allocation.m_VertexCount;
+        }
+
+        m_Allocations.sort(Comparator.comparingInt(allocation -> allocation.m_indexOffset));
+        int indexVBO = createBuffer(GL_COPY_WRITE_BUFFER, (long) m_Indices.getCapacity() * Integer.BYTES);
+
+        glBindBuffer(GL_COPY_READ_BUFFER, m_indexVBO);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, indexVBO);
+        int indexHead = 0;
+        for(Allocation allocation : m_Allocations) {
+            glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_COPY_WRITE_BUFFER, (long) allocation.m_indexOffset * Integer.BYTES,
+                    (long) indexHead * Integer.BYTES, (long) allocation.m_IndexCount * Integer.BYTES);
+
+            allocation.m_indexOffset = indexHead;
+            indexHead += allocation.m_IndexCount;
+        }
+
+        glBindBuffer(GL_COPY_READ_BUFFER, 0);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+
+        replaceBuffers(vertexVBO, indexVBO);
+        m_Vertices.reset(vertexHead, m_Vertices.getCapacity());
+        m_Indices.reset(indexHead, m_Indices.getCapacity());
+        m_defragmentCount++;
+    }
+
+    public void cleanup() {
+        glBindVertexArray(0);
+        glDeleteVertexArrays(m_VAOId);
+        InstanceBuffer.forget(m_VAOId);
+        glDeleteBuffers(m_vertexVBO);
+        glDeleteBuffers(m_indexVBO);
+
+        m_Allocations.clear();
+    }
+
+    /**
+     * Claims the ranges for a Mesh, defragmenting or growing first if we have to.
+     */
+    private Allocation allocate(int vertexCount, int indexCount) {
+        int vertexOffset = m_Vertices.allocate(vertexCount);
+        int indexOffset = m_Indices.allocate(indexCount);
+
+        if(vertexOffset < 0 || indexOffset < 0) {
+            m_Vertices.free(vertexOffset, vertexOffset < 0 ? 0 : vertexCount);
+            m_Indices.free(indexOffset, indexOffset < 0 ? 0 : indexCount);
+
+            // Scattered free space is cheaper to pack together than to add to
+            if(m_Vertices.getFree() >= vertexCount && m_Indices.getFree() >= indexCount)
+                defragment();
+            else
+                grow(m_Vertices.getCapacity() + vertexCount, m_Indices.getCapacity() + indexCount);
+
+            vertexOffset = m_Vertices.allocate(vertexCount);
+            indexOffset = m_Indices.allocate(indexCount);
+        }
+
+        Allocation allocation = new Allocation(this, vertexOffset, vertexCount, indexOffset, indexCount);
+        m_Allocations.add(allocation);
+
+        return allocation;
+    }
+
+    /**
+     * Gives the ranges of an Allocation back, Mesh does this when the last copy of it is cleaned up.
+     */
+    void free(Allocation allocation) {
+        if(!m_Allocations.remove(allocation))
+            return;
+
+        m_Vertices.free(allocation.m_vertexOffset, allocation.m_VertexCount);
+        m_Indices.free(allocation.m_indexOffset, allocation.m_IndexCount);
+    }
+
+    /**
+     * Replaces our buffers with bigger ones, at least doubling in size so growing stays rare.
+     */
+    private void grow(int vertexCapacity, int indexCapacity) {
+        vertexCapacity = Math.max(vertexCapacity, m_Vertices.getCapacity() * 2);
+        indexCapacity = Math.max(indexCapacity, m_Indices.getCapacity() * 2);
+
+        int vertexVBO = copyInto(m_vertexVBO, (long) m_Vertices.getCapacity() * m_Format.getStride(), (long) vertexCapacity * m_Format.getStride());
+        int indexVBO = copyInto(m_indexVBO, (long) m_Indices.getCapacity() * Integer.BYTES, (long) indexCapacity * Integer.BYTES);
+
+        replaceBuffers(vertexVBO, indexVBO);
+        m_Vertices.grow(vertexCapacity);
+        m_Indices.grow(indexCapacity);
+    }
+
+    private int copyInto(int source, long size, long newSize) {
+        int target = createBuffer(GL_COPY_WRITE_BUFFER, newSize);
+
+        glBindBuffer(GL_COPY_READ_BUFFER, source);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, target);
+        glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_COPY_WRITE_BUFFER, 0, 0, size);
+        glBindBuffer(GL_COPY_READ_BUFFER, 0);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+
+        return target;
+    }
+
+    /**
+     * Swaps our buffers for new ones. Our VAO is pointed at them, so every Mesh keeps using the same VAO.
+     */
+    private void replaceBuffers(int vertexVBO, int indexVBO) {
+        glDeleteBuffers(m_vertexVBO);
+        glDeleteBuffers(m_indexVBO);
+
+        m_vertexVBO = vertexVBO;
+        m_indexVBO = indexVBO;
+        bindBuffers();
+    }
+
+    private void bindBuffers() {
+        glBindVertexArray(m_VAOId);
+
+        glBindBuffer(GL_ARRAY_BUFFER, m_vertexVBO);
+        m_Format.apply();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, m_indexVBO);
+
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+    }
+
+    private static int createBuffer(int target, long size) {
+        int buffer = glGenBuffers();
+        glBindBuffer(target, buffer);
+        glBufferData(target, size, GL_STATIC_DRAW);
+        glBindBuffer(target, 0);
+
+        return buffer;
+    }
+
+    public VertexFormat getFormat() {
+        return m_Format;
+    }
+
+    public int getVAO() {
+        return m_VAOId;
+    }
+
+    public int getMeshCount() {
+        return m_Allocations.size();
+    }
+
+    public int getVertexCapacity() {
+        return m_Vertices.getCapacity();
+    }
+
+    public int getIndexCapacity() {
+        return m_Indices.getCapacity();
+    }
+
+    /**
+     * @return how scattered our free vertex space is, from 0 to 1, see {@link RangeAllocator#getFragmentation()}
+     */
+    public float getFragmentation() {
+        return Math.max(m_Vertices.getFragmentation(), m_Indices.getFragmentation());
+    }
+
+    public int getDefragmentCount() {
+        return m_defragmentCount;
+    }
+
+    /**
+     * Where the vertices and indices of a single Mesh live within a pool. The offsets change when the pool is
+     * defragmented, so always read them right before drawing.
+     */
+    public static class Allocation {
+
+        private final GeometryPool m_Pool;
+        private final int m_VertexCount, m_IndexCount;
+        private int m_vertexOffset, m_indexOffset;
+
+        private Allocation(GeometryPool pool, int vertexOffset, int vertexCount, int indexOffset, int indexCount) {
+            m_Pool = pool;
+            m_vertexOffset = vertexOffset;
+            m_VertexCount = vertexCount;
+            m_indexOffset = indexOffset;
+            m_IndexCount = indexCount;
+        }
+
+        public GeometryPool getPool() {
+            return m_Pool;
+        }
+
+        /**
+         * @return the base vertex to draw with, our indices are relative to it
+         */
+        public int getBaseVertex() {
+            return m_vertexOffset;
+        }
+
+        public int getFirstIndex() {
+            return m_indexOffset;
+        }
+
+        public int getIndexCount() {
+            return m_IndexCount;
+        }
+
+        public int getVertexCount() {
+            return m_VertexCount;
+        }
+
+    }
+
+}
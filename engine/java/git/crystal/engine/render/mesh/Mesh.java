@@ -1,16 +1,25 @@
 package git.crystal.engine.render.mesh;
 
+import git.crystal.engine.render.InstanceBuffer;
 import git.crystal.engine.render.Texture;
+import git.crystal.engine.render.atlas.AtlasRegion;
+import git.crystal.engine.render.util.BoundingVolume;
 import org.joml.Vector3f;
 import org.lwjgl.system.MemoryUtil;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.lwjgl.opengl.GL15.*;
 import static org.lwjgl.opengl.GL20.*;
 import static org.lwjgl.opengl.GL30.*;
-import static org.lwjgl.system.MemoryUtil.NULL;
+import static org.lwjgl.opengl.GL31.glDrawElementsInstanced;
+import static org.lwjgl.opengl.GL32.glDrawElementsBaseVertex;
+import static org.lwjgl.opengl.GL32.glDrawElementsInstancedBaseVertex;
+import static org.lwjgl.opengl.GL42.glDrawElementsInstancedBaseInstance;
+import static org.lwjgl.opengl.GL42.glDrawElementsInstancedBaseVertexBaseInstance;
 
 /**
  * This class will handle all the data related to rendering various shapes with different textures.
@@ -23,145 +32,277 @@ public class Mesh {
 
     // The VAO of our Mesh and it's Data
     private final int m_VAOId;
-    // The VBOs to buffer what kind of data the VAO holds
-    private final int m_VertVBO, m_TextureVBO, m_NormVBO, m_IndVBO;
+    // One VBO holds every attribute of every vertex interleaved, the other holds our indices
+    private final int m_VBO, m_IndVBO;
+    // How the attributes are laid out in m_VBO
+    private final VertexFormat m_Format;
+    // How many Meshes share our GL objects, the last one to be cleaned up deletes them
+    private final AtomicInteger m_Owners;
+    // How much memory our VBOs take up on the GPU
+    private final long m_ByteSize;
+    // When we live within a GeometryPool, where our vertices and indices are. m_VBO and m_IndVBO are 0 then
+    private final GeometryPool.Allocation m_Allocation;
 
     // How many vertices this mesh has
     private final int m_VertexCount;
 
     private final Vector3f m_Color;
+    // The space our vertices take up, before any GameObject moves them around
+    private final BoundingVolume m_Bounds;
 
     private Texture m_texture;
+    // When set, we're textured out of an atlas instead, and m_texture is ignored
+    private AtlasRegion m_atlasRegion;
     private boolean m_useTexture;
+    private boolean m_transparent;
+    private boolean m_cleanedUp;
 
-    // Simulates a "deep" copy of our mesh.
-    // This is technically Hacky
+    /**
+     * Creates a copy of a Mesh that draws the same geometry, but has its own color and Texture. Both share
+     * the same GL objects, which are only deleted once every copy, including the original, is cleaned up.
+     */
     public Mesh(Mesh mesh) {
+        if(mesh.m_cleanedUp)
+            throw new IllegalStateException("Can't copy a Mesh that has already been cleaned up!");
+
         this.m_VAOId = mesh.m_VAOId;
 
-        this.m_VertVBO = mesh.m_VertVBO;
-        this.m_TextureVBO = mesh.m_TextureVBO;
-        this.m_NormVBO = mesh.m_NormVBO;
+        this.m_VBO = mesh.m_VBO;
         this.m_IndVBO = mesh.m_IndVBO;
+        this.m_Format = mesh.m_Format;
+        this.m_Owners = mesh.m_Owners;
+        this.m_Owners.incrementAndGet();
+        this.m_ByteSize = mesh.m_ByteSize;
+        this.m_Allocation = mesh.m_Allocation;
 
         this.m_VertexCount = mesh.m_VertexCount;
+        this.m_Bounds = mesh.m_Bounds;
 
         this.m_Color = new Vector3f(mesh.m_Color);
         this.m_texture = mesh.m_texture;
+        this.m_atlasRegion = mesh.m_atlasRegion;
         this.m_useTexture = mesh.m_useTexture;
+        this.m_transparent = mesh.m_transparent;
     }
 
+    /**
+     * Creates a Mesh out of separate attribute arrays, which get interleaved into a single VBO. Texture
+     * coordinates and normals may be null or empty, in which case the Mesh simply won't carry them.
+     */
     public Mesh(float[] vertices, float[] textCoords, float[] normals, int[] indices) {
-        m_VertexCount = indices.length;
-        m_Color = new Vector3f(1f, 1f, 1f);
-
-        FloatBuffer verticesBuffer = null;
-        FloatBuffer textureBuffer = null;
-        FloatBuffer normalBuffer = null;
-        IntBuffer indicesBuffer = null;
+        this(new MeshData(vertices, textCoords, normals, indices));
+    }
 
-        m_useTexture = false;
+    public Mesh(MeshData data) {
+        this(validate(data.getFormat()), MemoryUtil.memByteBuffer(data.interleave()), MemoryUtil.memAllocInt(data.getIndexCount()).put(data.getIndices()).flip(), true);
+    }
 
-        try {
-            m_VAOId = glGenVertexArrays();
-            glBindVertexArray(m_VAOId);
+    /**
+     * Creates a Mesh out of vertices that are already interleaved the way our format describes.
+     *
+     * @param format how the attributes of every vertex are laid out
+     * @param vertices the interleaved vertex data of our Mesh
+     * @param indices the indices of our Mesh
+     */
+    public Mesh(VertexFormat format, float[] vertices, int[] indices) {
+        this(validate(format), MemoryUtil.memByteBuffer(MemoryUtil.memAllocFloat(vertices.length).put(vertices).flip()), MemoryUtil.memAllocInt(indices.length).put(indices).flip(), true);
+    }
 
-            // Position VBO
-            m_VertVBO = glGenBuffers();
-            verticesBuffer = MemoryUtil.memAllocFloat(vertices.length);
-            verticesBuffer.put(vertices).flip();
+    /**
+     * Creates a Mesh out of data that is already laid out the way OpenGL wants it. Both buffers are uploaded
+     * as-is, so they can point straight into a memory mapped file.
+     *
+     * @param format how the attributes of every vertex are laid out
+     * @param vertices the interleaved vertex data of our Mesh
+     * @param indices the indices of our Mesh
+     */
+    public Mesh(VertexFormat format, FloatBuffer vertices, IntBuffer indices) {
+        this(validate(format), MemoryUtil.memByteBuffer(vertices), indices, false);
+    }
 
-            glBindBuffer(GL_ARRAY_BUFFER, m_VertVBO);
-            glBufferData(GL_ARRAY_BUFFER, verticesBuffer, GL_STATIC_DRAW);
-            glEnableVertexAttribArray(0);
-            glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, NULL);
+    /**
+     * Creates a Mesh out of raw vertex data, for formats that pack their attributes into bytes, shorts or half
+     * floats. Both buffers are uploaded as-is.
+     *
+     * @param format how the attributes of every vertex are laid out, its positions have to be floats
+     * @param vertices the interleaved vertex data of our Mesh, in native byte order
+     * @param indices the indices of our Mesh
+     */
+    public Mesh(VertexFormat format, ByteBuffer vertices, IntBuffer indices) {
+        this(validate(format), vertices, indices, false);
+    }
 
-            // Texture Coordinate VBO
-            m_TextureVBO = glGenBuffers();
-            textureBuffer = MemoryUtil.memAllocFloat(textCoords.length);
-            textureBuffer.put(textCoords).flip();
+    private Mesh(VertexFormat format, ByteBuffer vertices, IntBuffer indices, boolean freeBuffers) {
+        m_Format = format;
+        m_Owners = new AtomicInteger(1);
+        m_ByteSize = vertices.remaining() + (long) indices.remaining() * Integer.BYTES;
+        m_Allocation = null;
+        m_VertexCount = indices.remaining();
+        m_Color = new Vector3f(1f, 1f, 1f);
+        m_useTexture = false;
 
-            glBindBuffer(GL_ARRAY_BUFFER, m_TextureVBO);
-            glBufferData(GL_ARRAY_BUFFER, textureBuffer, GL_STATIC_DRAW);
-            glEnableVertexAttribArray(1);
-            glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, NULL);
+        try {
+            m_Bounds = BoundingVolume.fromPositions(vertices, format.offsetOf(VertexFormat.POSITION_LOCATION), format.getStride());
 
-            // Normals VBO
-            m_NormVBO = glGenBuffers();
-            normalBuffer = MemoryUtil.memAllocFloat(normals.length);
-            normalBuffer.put(normals).flip();
+            m_VAOId = glGenVertexArrays();
+            glBindVertexArray(m_VAOId);
 
-            glBindBuffer(GL_ARRAY_BUFFER, m_NormVBO);
-            glBufferData(GL_ARRAY_BUFFER, normalBuffer, GL_STATIC_DRAW);
-            glEnableVertexAttribArray(2);
-            glVertexAttribPointer(2, 3, GL_FLOAT, false, 0, NULL);
+            // Vertex VBO, our format points every attribute into it
+            m_VBO = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, m_VBO);
+            glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+            format.apply();
 
             // Index VBO
             m_IndVBO = glGenBuffers();
-            indicesBuffer = MemoryUtil.memAllocInt(indices.length);
-            indicesBuffer.put(indices).flip();
-
             glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, m_IndVBO);
-            glBufferData(GL_ELEMENT_ARRAY_BUFFER, indicesBuffer, GL_STATIC_DRAW);
+            glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
 
             glBindBuffer(GL_ARRAY_BUFFER, 0);
             glBindVertexArray(0);
         } finally {
             // Since we're using MemoryUtil it is important we use memFree on these buffers!
-            if(verticesBuffer != null)
-                MemoryUtil.memFree(verticesBuffer);
+            if(freeBuffers) {
+                MemoryUtil.memFree(vertices);
+                MemoryUtil.memFree(indices);
+            }
+        }
+    }
 
-            if(textureBuffer != null)
-                MemoryUtil.memFree(textureBuffer);
+    /**
+     * Checks a format before any of our constructors allocate something they would have to free again. We only
+     * read the positions ourselves, to find our bounds, so those are all that have to be floats.
+     *
+     * @return format
+     */
+    private static VertexFormat validate(VertexFormat format) {
+        for(VertexFormat.Attribute attribute : format.getAttributes()) {
+            if(attribute.location == VertexFormat.POSITION_LOCATION && attribute.type == GL_FLOAT && attribute.size >= 3)
+                return format;
+        }
 
-            if(normalBuffer != null)
-                MemoryUtil.memFree(normalBuffer);
+        throw new IllegalArgumentException("A Mesh needs a vertex format with a position made of at least 3 floats!");
+    }
 
-            if(indicesBuffer != null)
-                MemoryUtil.memFree(indicesBuffer);
-        }
+    /**
+     * Creates a Mesh drawing out of a GeometryPool, which has already uploaded our data. We only read the
+     * vertices to find our bounds.
+     */
+    Mesh(GeometryPool.Allocation allocation, FloatBuffer vertices) {
+        GeometryPool pool = allocation.getPool();
+
+        m_VAOId = pool.getVAO();
+        m_VBO = 0;
+        m_IndVBO = 0;
+        m_Format = pool.getFormat();
+        m_Owners = new AtomicInteger(1);
+        m_ByteSize = (long) allocation.getVertexCount() * m_Format.getStride() + (long) allocation.getIndexCount() * Integer.BYTES;
+        m_Allocation = allocation;
+
+        m_VertexCount = allocation.getIndexCount();
+        m_Color = new Vector3f(1f, 1f, 1f);
+        m_useTexture = false;
+        m_Bounds = BoundingVolume.fromPositions(vertices, m_Format.offsetOf(VertexFormat.POSITION_LOCATION) / Float.BYTES, m_Format.getStride() / Float.BYTES);
     }
 
     public void render() {
-        boolean bindTexture = m_texture != null && m_useTexture;
+        boolean bindTexture = m_texture != null && m_atlasRegion == null && m_useTexture;
         if(bindTexture) {
             glActiveTexture(GL_TEXTURE0);
             glBindTexture(GL_TEXTURE_2D, m_texture.getId());
         }
 
-        glBindVertexArray(getVAO());
-
-        glEnableVertexAttribArray(0);
-        glEnableVertexAttribArray(1);
-        glEnableVertexAttribArray(2);
-
-        glDrawElements(GL_TRIANGLES, m_VertexCount, GL_UNSIGNED_INT, 0);
-
-        glDisableVertexAttribArray(0);
-        glDisableVertexAttribArray(1);
-        glDisableVertexAttribArray(2);
+        boolean bindAtlas = m_atlasRegion != null && m_useTexture;
+        if(bindAtlas) {
+            glActiveTexture(GL_TEXTURE1);
+            m_atlasRegion.getAtlas().bind();
+            glActiveTexture(GL_TEXTURE0);
+        }
 
+        // Our VAO remembers which attributes are enabled, so there is nothing to toggle here
+        glBindVertexArray(getVAO());
+        draw();
         glBindVertexArray(0);
 
         if(bindTexture) {
             glBindTexture(GL_TEXTURE_2D, 0);
         }
+
+        if(bindAtlas) {
+            glActiveTexture(GL_TEXTURE1);
+            m_atlasRegion.getAtlas().unbind();
+            glActiveTexture(GL_TEXTURE0);
+        }
+    }
+
+    /**
+     * Issues the draw call of this Mesh and nothing else. Our VAO and texture are expected to already be bound,
+     * which lets a renderer skip binding them again when the previous Mesh used the same ones.
+     */
+    public void draw() {
+        if(m_Allocation != null)
+            glDrawElementsBaseVertex(GL_TRIANGLES, m_VertexCount, GL_UNSIGNED_INT, (long) m_Allocation.getFirstIndex() * Integer.BYTES, m_Allocation.getBaseVertex());
+        else
+            glDrawElements(GL_TRIANGLES, m_VertexCount, GL_UNSIGNED_INT, 0);
+    }
+
+    /**
+     * Draws many instances of this Mesh with one draw call. Just like {@link #draw()} everything has to be bound
+     * already, including the per-instance data, see {@link git.crystal.engine.render.InstanceBuffer}.
+     *
+     * @param instanceCount how many instances we are drawing
+     */
+    public void drawInstanced(int instanceCount) {
+        drawInstanced(instanceCount, 0);
+    }
+
+    /**
+     * Draws many instances of this Mesh, reading the per-instance data from baseInstance onwards. Anything
+     * other than a baseInstance of 0 requires OpenGL 4.2 or ARB_base_instance.
+     *
+     * @param instanceCount how many instances we are drawing
+     * @param baseInstance the first instance within the per-instance data
+     */
+    public void drawInstanced(int instanceCount, int baseInstance) {
+        if(m_Allocation != null) {
+            long firstIndex = (long) m_Allocation.getFirstIndex() * Integer.BYTES;
+            if(baseInstance == 0)
+                glDrawElementsInstancedBaseVertex(GL_TRIANGLES, m_VertexCount, GL_UNSIGNED_INT, firstIndex, instanceCount, m_Allocation.getBaseVertex());
+            else
+                glDrawElementsInstancedBaseVertexBaseInstance(GL_TRIANGLES, m_VertexCount, GL_UNSIGNED_INT, firstIndex, instanceCount, m_Allocation.getBaseVertex(), baseInstance);
+        } else if(baseInstance == 0)
+            glDrawElementsInstanced(GL_TRIANGLES, m_VertexCount, GL_UNSIGNED_INT, 0, instanceCount);
+        else
+            glDrawElementsInstancedBaseInstance(GL_TRIANGLES, m_VertexCount, GL_UNSIGNED_INT, 0, instanceCount, baseInstance);
     }
 
+    /**
+     * Lets go of our GL objects, which are deleted once no other copy of this Mesh uses them anymore. Calling
+     * this more than once on the same Mesh does nothing.
+     */
     public void cleanup() {
-        glDisableVertexAttribArray(0);
+        if(m_cleanedUp)
+            return;
 
-        // Delete the VBO
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        m_cleanedUp = true;
+        if(m_Owners.decrementAndGet() > 0)
+            return;
+
+        // Our pool owns the buffers and VAO, all we hand back are our ranges within them
+        if(m_Allocation != null) {
+            m_Allocation.getPool().free(m_Allocation);
+            return;
+        }
 
-        glDeleteBuffers(m_VertVBO);
-        glDeleteBuffers(m_TextureVBO);
-        glDeleteBuffers(m_NormVBO);
+        // Delete the VBOs
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glDeleteBuffers(m_VBO);
         glDeleteBuffers(m_IndVBO);
 
-        // Delete the VAO
+        // Delete the VAO, its name may be handed out again
         glBindVertexArray(0);
         glDeleteVertexArrays(m_VAOId);
+        InstanceBuffer.forget(m_VAOId);
     }
 
     public void setUseTexture(boolean useTexture) {
@@ -172,6 +313,17 @@ public class Mesh {
         return m_useTexture;
     }
 
+    /**
+     * Marks this Mesh as see-through. Transparent Meshes are drawn after everything else, back to front.
+     */
+    public void setTransparent(boolean transparent) {
+        m_transparent = transparent;
+    }
+
+    public boolean isTransparent() {
+        return m_transparent;
+    }
+
     public void setColor(Vector3f color) {
         setColor(color.x, color.y, color.z);
     }
@@ -186,6 +338,20 @@ public class Mesh {
         m_texture = texture;
     }
 
+    /**
+     * Textures this Mesh with a single image out of a TextureAtlas. Our texture coordinates are remapped into
+     * the region when drawing, so every Mesh using the same atlas can be drawn together.
+     *
+     * @param region the region of the image, or null to go back to our regular Texture
+     */
+    public void setAtlasRegion(AtlasRegion region) {
+        m_atlasRegion = region;
+    }
+
+    public AtlasRegion getAtlasRegion() {
+        return m_atlasRegion;
+    }
+
     public Vector3f getColor() {
         return m_Color;
     }
@@ -194,10 +360,39 @@ public class Mesh {
         return m_texture;
     }
 
+    public BoundingVolume getBounds() {
+        return m_Bounds;
+    }
+
+    public VertexFormat getFormat() {
+        return m_Format;
+    }
+
     public int getVAO() {
         return m_VAOId;
     }
 
+    /**
+     * @return whether our geometry lives within a {@link GeometryPool}
+     */
+    public boolean isPooled() {
+        return m_Allocation != null;
+    }
+
+    /**
+     * @return where our geometry lives within its GeometryPool, or null when we aren't pooled
+     */
+    public GeometryPool.Allocation getAllocation() {
+        return m_Allocation;
+    }
+
+    /**
+     * @return how many bytes our vertices and indices take up on the GPU, shared with every copy of this Mesh
+     */
+    public long getByteSize() {
+        return m_ByteSize;
+    }
+
     public int getVertexCount() {
         return m_VertexCount;
     }
@@ -0,0 +1,262 @@
+package git.crystal.engine.render.mesh;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compiled, binary form of our meshes. The first time a model is loaded we write its interleaved vertex
+ * data and indices out to disk, every load after that simply memory maps the file and hands the mapped
+ * blocks straight to OpenGL. No text gets read or parsed at all.
+ *
+ * The layout of a cache file is as follows (all in native byte order):
+ * <pre>
+ *   int   magic          "CMSH"
+ *   int   version
+ *   long  sourceModified the last modified time of the source when this was written
+ *   long  sourceLength   the size in bytes of the source when this was written
+ *   int   vertexCount
+ *   int   indexCount
+ *   int   format         bit 0 set for texture coordinates, bit 1 set for normals
+ *   int   reserved
+ *   float vertices[]     interleaved, position(3), then texture coordinate(2) and normal(3) if present
+ *   int   indices[indexCount]
+ * </pre>
+ *
+ * Cache files are named after a hash of where their source lives. If the source file changes in any way, the
+ * cache is considered stale and gets rebuilt.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class MeshCache {
+
+    private static final int MAGIC = 0x48534D43; // "CMSH"
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 40;
+
+    private static final int FORMAT_TEXTURE_COORDS = 1;
+    private static final int FORMAT_NORMALS = 1 << 1;
+
+    private static Path s_Directory = Paths.get(System.getProperty("user.home"), ".arcane-crystal", "cache", "meshes");
+    private static boolean s_Enabled = true;
+
+    /**
+     * Attempts to create a Mesh from the cached version of our source file. This requires a current GL context!
+     *
+     * @param filePath the path of the source file that was cached
+     * @param internal whether the source file is within the jar file or not
+     * @return the Mesh created from the cache, or null if there is no valid cache for this file
+     */
+    public static Mesh load(String filePath, boolean internal) {
+        CachedMesh cached = read(filePath, internal);
+        return cached != null ? cached.toMesh() : null;
+    }
+
+    /**
+     * Maps the cached version of our source file without touching OpenGL, so this can happen on any thread.
+     *
+     * @param filePath the path of the source file that was cached
+     * @param internal whether the source file is within the jar file or not
+     * @return the mapped data, or null if there is no valid cache for this file
+     */
+    public static CachedMesh read(String filePath, boolean internal) {
+        if(!s_Enabled)
+            return null;
+
+        long[] stamp = sourceStamp(filePath, internal);
+        Path cacheFile = cachePath(filePath, internal);
+        if(stamp == null || !Files.isRegularFile(cacheFile))
+            return null;
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_SIZE)
+                return null;
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.nativeOrder());
+
+            if(mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION)
+                return null;
+
+            if(mapped.getLong(8) != stamp[0] || mapped.getLong(16) != stamp[1])
+                return null;
+
+            int vertexCount = mapped.getInt(24);
+            int indexCount = mapped.getInt(28);
+            int formatBits = mapped.getInt(32);
+            VertexFormat format = VertexFormat.of((formatBits & FORMAT_TEXTURE_COORDS) != 0, (formatBits & FORMAT_NORMALS) != 0);
+
+            long vertexBytes = (long) vertexCount * format.getStride();
+            long indexBytes = (long) indexCount * Integer.BYTES;
+            if(HEADER_SIZE + vertexBytes + indexBytes != size)
+                return null;
+
+            FloatBuffer vertices = mapped.slice(HEADER_SIZE, (int) vertexBytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            IntBuffer indices = mapped.slice(HEADER_SIZE + (int) vertexBytes, (int) indexBytes).order(ByteOrder.nativeOrder()).asIntBuffer();
+
+            return new CachedMesh(format, vertices, indices);
+        } catch (IOException e) {
+            System.err.printf("Failed to read mesh cache [%s]: %s%n", cacheFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the data of our Mesh out to the cache so the next load can skip parsing. If that fails the model
+     * is simply parsed again on its next load.
+     *
+     * @param filePath the path of the source file the data was loaded from
+     * @param internal whether the source file is within the jar file or not
+     * @param data the data we want to cache
+     */
+    public static void write(String filePath, boolean internal, MeshData data) {
+        if(!s_Enabled)
+            return;
+
+        long[] stamp = sourceStamp(filePath, internal);
+        if(stamp == null)
+            return;
+
+        int vertexCount = data.getVertexCount();
+        int indexCount = data.getIndexCount();
+        long vertexBytes = (long) vertexCount * data.getFormat().getStride();
+        long size = HEADER_SIZE + vertexBytes + (long) indexCount * Integer.BYTES;
+        if(size > Integer.MAX_VALUE) {
+            System.err.printf("Mesh [%s] is too large to be cached!%n", filePath);
+            return;
+        }
+
+        Path cacheFile = cachePath(filePath, internal);
+        ByteBuffer buffer = null;
+
+        try {
+            buffer = MemoryUtil.memAlloc((int) size).order(ByteOrder.nativeOrder());
+            buffer.putInt(MAGIC).putInt(VERSION);
+            buffer.putLong(stamp[0]).putLong(stamp[1]);
+            buffer.putInt(vertexCount).putInt(indexCount);
+            buffer.putInt((data.hasTextCoords() ? FORMAT_TEXTURE_COORDS : 0) | (data.hasNormals() ? FORMAT_NORMALS : 0));
+            buffer.putInt(0);
+
+            data.interleave(buffer.asFloatBuffer());
+            buffer.position(HEADER_SIZE + (int) vertexBytes);
+            buffer.asIntBuffer().put(data.getIndices());
+
+            buffer.position(0);
+            git.crystal.engine.utils.Files.writeAtomically(cacheFile, buffer);
+        } catch (IOException e) {
+            System.err.printf("Failed to write mesh cache [%s]: %s%n", cacheFile, e.getMessage());
+        } finally {
+            if(buffer != null)
+                MemoryUtil.memFree(buffer);
+        }
+    }
+
+    /**
+     * Finds what we use to tell if a source file has changed since we cached it.
+     *
+     * @return the last modified time and size of our source, or null if the source can't be found
+     */
+    private static long[] sourceStamp(String filePath, boolean internal) {
+        try {
+            Path path;
+            if(internal) {
+                URL url = MeshCache.class.getResource(filePath);
+                if(url == null)
+                    return null;
+
+                if(!"file".equals(url.getProtocol())) {
+                    // Asking a connection anything opens it, so the stream it opened has to be closed again
+                    URLConnection connection = url.openConnection();
+                    try (InputStream ignored = connection.getInputStream()) {
+                        return new long[] { connection.getLastModified(), connection.getContentLengthLong() };
+                    }
+                }
+
+                path = Paths.get(url.toURI());
+            } else {
+                path = Paths.get(filePath);
+            }
+
+            if(!Files.isRegularFile(path))
+                return null;
+
+            return new long[] { Files.getLastModifiedTime(path).toMillis(), Files.size(path) };
+        } catch (IOException | URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Names a cache file after a hash of where its source lives, so no two sources can end up sharing one.
+     */
+    private static Path cachePath(String filePath, boolean internal) {
+        String source = internal ? "res:" + filePath : "file:" + Paths.get(filePath).toAbsolutePath().normalize();
+        return s_Directory.resolve(String.format("%016x.cmesh", git.crystal.engine.utils.Files.hash(source)));
+    }
+
+    public static void setDirectory(Path directory) {
+        s_Directory = directory;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        s_Enabled = enabled;
+    }
+
+    public static Path getDirectory() {
+        return s_Directory;
+    }
+
+    public static boolean isEnabled() {
+        return s_Enabled;
+    }
+
+    /**
+     * The contents of a cache file, still mapped straight from disk.
+     */
+    public static class CachedMesh {
+
+        private final VertexFormat m_Format;
+        private final FloatBuffer m_Vertices;
+        private final IntBuffer m_Indices;
+
+        private CachedMesh(VertexFormat format, FloatBuffer vertices, IntBuffer indices) {
+            m_Format = format;
+            m_Vertices = vertices;
+            m_Indices = indices;
+        }
+
+        /**
+         * Uploads the mapped data into a new Mesh. This requires a current GL context!
+         */
+        public Mesh toMesh() {
+            return new Mesh(m_Format, m_Vertices, m_Indices);
+        }
+
+        /**
+         * @return how many bytes of vertices and indices there are to upload
+         */
+        public long getByteSize() {
+            return (long) m_Vertices.remaining() * Float.BYTES + (long) m_Indices.remaining() * Integer.BYTES;
+        }
+
+    }
+
+}
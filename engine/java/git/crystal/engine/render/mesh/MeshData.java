@@ -0,0 +1,115 @@
+package git.crystal.engine.render.mesh;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Holds the raw, CPU side data of a Mesh before it is uploaded to OpenGL. Keeping this apart from
+ * the Mesh itself lets us cache, inspect or move it around without needing a GL context.
+ *
+ * Texture coordinates and normals are optional, an empty array means the data has none of them and
+ * the Mesh we create will not carry them either.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class MeshData {
+
+    private final float[] m_Positions, m_TextCoords, m_Normals;
+    private final int[] m_Indices;
+
+    private final VertexFormat m_Format;
+
+    public MeshData(float[] positions, float[] textCoords, float[] normals, int[] indices) {
+        m_Positions = positions;
+        m_TextCoords = textCoords != null ? textCoords : new float[0];
+        m_Normals = normals != null ? normals : new float[0];
+        m_Indices = indices;
+
+        m_Format = VertexFormat.of(m_TextCoords.length > 0, m_Normals.length > 0);
+    }
+
+    /**
+     * Creates the OpenGL side of this data. This requires a current GL context!
+     *
+     * @return a new Mesh holding a copy of this data
+     */
+    public Mesh toMesh() {
+        return new Mesh(this);
+    }
+
+    /**
+     * Packs our attributes into a single buffer, laid out the way our format describes.
+     *
+     * @return a buffer allocated with MemoryUtil, it is up to the caller to free it!
+     */
+    public FloatBuffer interleave() {
+        FloatBuffer buffer = MemoryUtil.memAllocFloat(getVertexCount() * m_Format.getStride() / Float.BYTES);
+        interleave(buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Packs our attributes into dest, starting at its current position.
+     */
+    public void interleave(FloatBuffer dest) {
+        boolean textCoords = hasTextCoords(), normals = hasNormals();
+
+        int vertexCount = getVertexCount();
+        for(int i = 0; i < vertexCount; i++) {
+            dest.put(m_Positions[i * 3]).put(m_Positions[i * 3 + 1]).put(m_Positions[i * 3 + 2]);
+
+            if(textCoords)
+                dest.put(m_TextCoords[i * 2]).put(m_TextCoords[i * 2 + 1]);
+
+            if(normals)
+                dest.put(m_Normals[i * 3]).put(m_Normals[i * 3 + 1]).put(m_Normals[i * 3 + 2]);
+        }
+    }
+
+    public VertexFormat getFormat() {
+        return m_Format;
+    }
+
+    public boolean hasTextCoords() {
+        return m_TextCoords.length > 0;
+    }
+
+    public boolean hasNormals() {
+        return m_Normals.length > 0;
+    }
+
+    public float[] getPositions() {
+        return m_Positions;
+    }
+
+    public float[] getTextCoords() {
+        return m_TextCoords;
+    }
+
+    public float[] getNormals() {
+        return m_Normals;
+    }
+
+    public int[] getIndices() {
+        return m_Indices;
+    }
+
+    public int getVertexCount() {
+        return m_Positions.length / 3;
+    }
+
+    public int getIndexCount() {
+        return m_Indices.length;
+    }
+
+    /**
+     * @return how many bytes of vertices and indices this data turns into once uploaded
+     */
+    public long getByteSize() {
+        return (long) getVertexCount() * m_Format.getStride() + (long) m_Indices.length * Integer.BYTES;
+    }
+
+}
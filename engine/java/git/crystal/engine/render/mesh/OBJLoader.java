@@ -1,11 +1,12 @@
 package git.crystal.engine.render.mesh;
 
+import git.crystal.engine.utils.FloatArray;
 import git.crystal.engine.utils.Files;
-import org.joml.Vector2f;
-import org.joml.Vector3f;
+import git.crystal.engine.utils.IntArray;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Handles loading data for our mesh from external file formats.
@@ -16,158 +17,215 @@ import java.util.List;
 
 public class OBJLoader {
 
+    // Files smaller than this aren't worth the trouble of splitting up
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    // More chunks than threads lets the pool balance out chunks that happen to be slower to parse
+    private static final int CHUNKS_PER_THREAD = 4;
+
     public static Mesh loadInternalMesh(String filePath) {
         return loadMesh(filePath, true);
     }
 
+    /**
+     * Loads a Mesh from an OBJ file. If we have loaded this file before and it hasn't changed since, the
+     * compiled version from our MeshCache is used instead of parsing the text again.
+     *
+     * @param filePath the path of the OBJ file
+     * @param internal whether the file is within the jar file or not
+     * @return the loaded Mesh
+     */
     public static Mesh loadMesh(String filePath, boolean internal) {
-        List<String> lines = Files.readAllLines(filePath, internal);
-
-        List<Vector3f> vertices = new ArrayList<>();
-        List<Vector2f> textures = new ArrayList<>();
-        List<Vector3f> normals = new ArrayList<>();
-
-        List<Face> faces = new ArrayList<>();
-
-        for(String line : lines) {
-            String[] tokens = line.split("\\s+");
-
-            switch(tokens[0]) {
-                case "v":
-                    // Geometric Vertex
-                    Vector3f vec3f = new Vector3f(
-                            Float.parseFloat(tokens[1]),
-                            Float.parseFloat(tokens[2]),
-                            Float.parseFloat(tokens[3]));
-
-                    vertices.add(vec3f);
-                    break;
-                case "vt":
-                    // Texture Coordinate
-                    Vector2f vec2f = new Vector2f(
-                            Float.parseFloat(tokens[1]),
-                            Float.parseFloat(tokens[2]));
-
-                    textures.add(vec2f);
-                    break;
-                case "vn":
-                    // Vertex Normal
-                    Vector3f vec3fNorm = new Vector3f(
-                            Float.parseFloat(tokens[1]),
-                            Float.parseFloat(tokens[2]),
-                            Float.parseFloat(tokens[3]));
-
-                    normals.add(vec3fNorm);
-                    break;
-                case "f":
-                    Face face = new Face(tokens[1], tokens[2], tokens[3]);
-                    faces.add(face);
-                    break;
-                default:
-                    break;
-            }
-        }
+        Mesh cached = MeshCache.load(filePath, internal);
+        if(cached != null)
+            return cached;
 
-        return reorderLists(vertices, textures, normals, faces);
-    }
+        MeshData data = loadMeshDataParallel(filePath, internal);
+        MeshCache.write(filePath, internal, data);
 
-    private static Mesh reorderLists(List<Vector3f> posList, List<Vector2f> textCoordList, List<Vector3f> normList, List<Face> faceList) {
-        List<Integer> indices = new ArrayList<>();
+        return data.toMesh();
+    }
 
-        float[] posArr = new float[posList.size() * 3];
-        int i = 0;
-        for(Vector3f pos : posList) {
-            posArr[i * 3] = pos.x;
-            posArr[i * 3 + 1] = pos.y;
-            posArr[i * 3 + 2] = pos.z;
+    /**
+     * Parses an OBJ file into its raw data without touching OpenGL at all.
+     *
+     * @param filePath the path of the OBJ file
+     * @param internal whether the file is within the jar file or not
+     * @return the data of our Mesh
+     */
+    public static MeshData loadMeshData(String filePath, boolean internal) {
+        return parse(Files.readToBuffer(filePath, internal));
+    }
 
-            i++;
-        }
+    /**
+     * Parses an OBJ file into its raw data with every core we have, see {@link #parse(ByteBuffer, int)}.
+     *
+     * @param filePath the path of the OBJ file
+     * @param internal whether the file is within the jar file or not
+     * @return the data of our Mesh
+     */
+    public static MeshData loadMeshDataParallel(String filePath, boolean internal) {
+        return parse(Files.readToBuffer(filePath, internal), ForkJoinPool.getCommonPoolParallelism());
+    }
 
-        float[] textCoordArr = new float[posList.size() * 2];
-        float[] normArr = new float[posList.size() * 3];
+    /**
+     * Parses the raw bytes of an OBJ file into the data of a Mesh. Quads and larger polygons are split up into
+     * triangles, and every unique combination of position, texture coordinate and normal becomes one vertex.
+     *
+     * @param buffer the raw bytes of our OBJ file, from its position to its limit
+     * @return the data of our Mesh
+     */
+    public static MeshData parse(ByteBuffer buffer) {
+        ObjParser parser = new ObjParser();
+        parser.parse(buffer, buffer.position(), buffer.limit());
+
+        return buildMeshData(parser);
+    }
 
-        for(Face face : faceList) {
-            IdxGroup[] faceIndices = face.getFaceVertexIndices();
-            for(IdxGroup index : faceIndices) {
-                processFaceVertex(index, textCoordList, normList, indices, textCoordArr, normArr);
-            }
+    /**
+     * Parses the raw bytes of an OBJ file with several threads. The file is cut into chunks on line boundaries,
+     * every chunk is parsed on its own and the results are stitched back together in order, so the data we end
+     * up with is exactly the same as what {@link #parse(ByteBuffer)} gives us.
+     *
+     * @param buffer the raw bytes of our OBJ file, from its position to its limit
+     * @param threads how many threads may parse at the same time
+     * @return the data of our Mesh
+     */
+    public static MeshData parse(ByteBuffer buffer, int threads) {
+        int start = buffer.position();
+        int end = buffer.limit();
+        if(threads <= 1 || end - start < PARALLEL_THRESHOLD)
+            return parse(buffer);
+
+        ForkJoinPool pool = threads == ForkJoinPool.getCommonPoolParallelism() ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+        try {
+            return buildMeshData(parseChunks(buffer, start, end, threads * CHUNKS_PER_THREAD, pool));
+        } finally {
+            if(pool != ForkJoinPool.commonPool())
+                pool.shutdown();
         }
-
-        int[] indicesArr;
-        indicesArr = indices.stream().mapToInt((Integer v) -> v).toArray();
-
-        return new Mesh(posArr, textCoordArr, normArr, indicesArr);
     }
 
-    private static void processFaceVertex(IdxGroup indices, List<Vector2f> textCoordList, List<Vector3f> normList, List<Integer> indicesList, float[] texCoordArr, float[] normArr) {
-        // Set index for Vertex coordinates
-        int posIndex = indices.idxPos;
-        indicesList.add(posIndex);
-
-        // Reorder Texture coordinates
-        if (indices.idxTextCoord >= 0) {
-            Vector2f textCoord = textCoordList.get(indices.idxTextCoord);
-            texCoordArr[posIndex * 2] = textCoord.x;
-            texCoordArr[posIndex * 2 + 1] = 1 - textCoord.y;
+    private static ObjParser parseChunks(ByteBuffer buffer, int start, int end, int chunkCount, ForkJoinPool pool) {
+        // Every chunk starts right after a line break, that way no line is ever split between two parsers
+        int[] bounds = new int[chunkCount + 1];
+        bounds[0] = start;
+        bounds[chunkCount] = end;
+        for(int i = 1; i < chunkCount; i++) {
+            int pos = Math.max(bounds[i - 1], start + (int) ((long) (end - start) * i / chunkCount));
+            while(pos < end && buffer.get(pos++) != '\n');
+            bounds[i] = pos;
         }
 
-        // Reorder Vector Normals
-        if (indices.idxVecNormal >= 0) {
-            Vector3f vecNorm = normList.get(indices.idxVecNormal);
-            normArr[posIndex * 3] = vecNorm.x;
-            normArr[posIndex * 3 + 1] = vecNorm.y;
-            normArr[posIndex * 3 + 2] = vecNorm.z;
-        }
-    }
+        ObjParser[] parsers = new ObjParser[chunkCount];
+        pool.invoke(new ParseTask(buffer, bounds, parsers, 0, chunkCount));
 
-    protected static class IdxGroup {
+        ObjParser result = parsers[0];
+        for(int i = 1; i < chunkCount; i++)
+            result.append(parsers[i]);
 
-        public static final int NO_VALUE = -1;
+        return result;
+    }
 
-        public int idxPos;
-        public int idxTextCoord;
-        public int idxVecNormal;
+    private static MeshData buildMeshData(ObjParser parser) {
+        float[] posList = parser.positions.items();
+        float[] textCoordList = parser.textCoords.items();
+        float[] normList = parser.normals.items();
+        int[] corners = parser.corners.items();
+        int[] faceSizes = parser.faceSizes.items();
+
+        int posCount = parser.positions.size() / 3;
+        int textCoordCount = parser.textCoords.size() / 2;
+        int normCount = parser.normals.size() / 3;
+
+        int cornerCount = parser.corners.size() / 3;
+        VertexKeyMap vertexMap = new VertexKeyMap(cornerCount / 2);
+
+        // Only carry the attributes the file actually has, a face that leaves one out while others use it gets zeros
+        boolean hasTextCoords = textCoordCount > 0, hasNormals = normCount > 0;
+
+        FloatArray posArr = new FloatArray(posCount * 3);
+        FloatArray textCoordArr = new FloatArray(hasTextCoords ? posCount * 2 : 0);
+        FloatArray normArr = new FloatArray(hasNormals ? posCount * 3 : 0);
+        IntArray indices = new IntArray(cornerCount * 3);
+
+        int corner = 0;
+        for(int f = 0; f < parser.faceSizes.size(); f++) {
+            int size = faceSizes[f];
+
+            // Fan out our polygon into triangles that all share the first vertex
+            int first = -1, previous = -1;
+            for(int i = 0; i < size; i++, corner++) {
+                int pos = corners[corner * 3];
+                int textCoord = corners[corner * 3 + 1];
+                int norm = corners[corner * 3 + 2];
+
+                if(pos < 0 || pos >= posCount || textCoord < ObjParser.NO_VALUE || textCoord >= textCoordCount
+                        || norm < ObjParser.NO_VALUE || norm >= normCount)
+                    throw new RuntimeException(String.format("OBJ face %d references data that doesn't exist!", f + 1));
+
+                int vertex = posArr.size() / 3;
+                int existing = vertexMap.putIfAbsent(pos, textCoord, norm, vertex);
+                if(existing != VertexKeyMap.EMPTY) {
+                    vertex = existing;
+                } else {
+                    posArr.add(posList[pos * 3], posList[pos * 3 + 1], posList[pos * 3 + 2]);
+
+                    if(textCoord >= 0)
+                        textCoordArr.add(textCoordList[textCoord * 2], 1 - textCoordList[textCoord * 2 + 1]);
+                    else if(hasTextCoords)
+                        textCoordArr.add(0f, 0f);
+
+                    if(norm >= 0)
+                        normArr.add(normList[norm * 3], normList[norm * 3 + 1], normList[norm * 3 + 2]);
+                    else if(hasNormals)
+                        normArr.add(0f, 0f, 0f);
+                }
 
-        public IdxGroup() {
-            idxPos = NO_VALUE;
-            idxTextCoord = NO_VALUE;
-            idxVecNormal = NO_VALUE;
+                if(i == 0) {
+                    first = vertex;
+                } else if(i >= 2) {
+                    indices.add(first, previous, vertex);
+                }
+
+                previous = vertex;
+            }
         }
 
+        return new MeshData(posArr.toArray(), textCoordArr.toArray(), normArr.toArray(), indices.toArray());
     }
 
-    protected  static class Face {
+    /**
+     * Splits a range of chunks in half until only one is left, then parses that chunk into its own parser.
+     */
+    private static class ParseTask extends RecursiveAction {
 
-        private final IdxGroup[] m_IdxGroups;
+        private static final long serialVersionUID = 1L;
 
-        public Face(String v1, String v2, String v3) {
-            m_IdxGroups = new IdxGroup[3];
+        private final ByteBuffer m_Buffer;
+        private final int[] m_Bounds;
+        private final ObjParser[] m_Parsers;
+        private final int m_From, m_To;
 
-            m_IdxGroups[0] = parseLine(v1);
-            m_IdxGroups[1] = parseLine(v2);
-            m_IdxGroups[2] = parseLine(v3);
+        public ParseTask(ByteBuffer buffer, int[] bounds, ObjParser[] parsers, int from, int to) {
+            m_Buffer = buffer;
+            m_Bounds = bounds;
+            m_Parsers = parsers;
+            m_From = from;
+            m_To = to;
         }
 
-        private IdxGroup parseLine(String line) {
-            IdxGroup idxGroup = new IdxGroup();
-
-            String[] lineTokens = line.split("/");
-            int length = lineTokens.length;
-            idxGroup.idxPos = Integer.parseInt(lineTokens[0]) - 1;
-            if(length > 1) {
-                String textCoord = lineTokens[1];
-                idxGroup.idxTextCoord = textCoord.length() > 0 ? Integer.parseInt(textCoord) - 1 : IdxGroup.NO_VALUE;
-                if(length > 2) {
-                    idxGroup.idxVecNormal = Integer.parseInt(lineTokens[2]) - 1;
-                }
+        @Override
+        protected void compute() {
+            if(m_To - m_From > 1) {
+                int middle = (m_From + m_To) >>> 1;
+                invokeAll(new ParseTask(m_Buffer, m_Bounds, m_Parsers, m_From, middle),
+                          new ParseTask(m_Buffer, m_Bounds, m_Parsers, middle, m_To));
+                return;
             }
 
-            return idxGroup;
-        }
-
-        public IdxGroup[] getFaceVertexIndices() {
-            return m_IdxGroups;
+            ObjParser parser = new ObjParser();
+            parser.parse(m_Buffer, m_Bounds[m_From], m_Bounds[m_To]);
+            m_Parsers[m_From] = parser;
         }
 
     }
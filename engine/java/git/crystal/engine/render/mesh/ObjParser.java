@@ -0,0 +1,305 @@
+package git.crystal.engine.render.mesh;
+
+import git.crystal.engine.utils.FloatArray;
+import git.crystal.engine.utils.IntArray;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams through the raw bytes of an OBJ file and collects its attributes and faces into primitive tables.
+ * Nothing is split into Strings and nothing gets boxed, every value is parsed straight out of the buffer.
+ *
+ * Faces are stored as a list of corner counts, plus three ints for every corner (position, texture coordinate
+ * and normal index). These indices are already zero based, {@link #NO_VALUE} marks a missing one.
+ *
+ * Negative (relative) indices can only be resolved against what this parser has seen itself. When a file is
+ * parsed in several chunks those are off by however much data came before the chunk, so the slot of every
+ * relative index is remembered in {@link #relativeSlots} and fixed up by {@link #append(ObjParser)}.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+class ObjParser {
+
+    public static final int NO_VALUE = -1;
+
+    // Exact powers of ten, anything within this range can be scaled without any rounding of its own
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // The largest mantissa a double holds without rounding
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    final FloatArray positions, textCoords, normals;
+    final IntArray faceSizes, corners, relativeSlots;
+
+    private ByteBuffer m_buffer;
+    private int m_pos, m_end;
+
+    ObjParser() {
+        positions = new FloatArray(1024);
+        textCoords = new FloatArray(1024);
+        normals = new FloatArray(1024);
+
+        faceSizes = new IntArray(1024);
+        corners = new IntArray(4096);
+        relativeSlots = new IntArray(16);
+    }
+
+    /**
+     * Parses every line between start and end. Both should sit on the beginning of a line.
+     *
+     * @param buffer the raw bytes of our OBJ file
+     * @param start the position of the first byte we parse
+     * @param end the position right after the last byte we parse
+     */
+    void parse(ByteBuffer buffer, int start, int end) {
+        m_buffer = buffer;
+        m_pos = start;
+        m_end = end;
+
+        while(m_pos < m_end) {
+            skipBlanks();
+            if(m_pos >= m_end)
+                break;
+
+            byte first = m_buffer.get(m_pos);
+            byte second = m_pos + 1 < m_end ? m_buffer.get(m_pos + 1) : (byte) '\n';
+
+            if(first == 'v') {
+                if(isBlank(second)) {
+                    // Geometric Vertex, any w component is ignored
+                    m_pos++;
+                    positions.add(parseFloat(), parseFloat(), parseFloat());
+                } else if(second == 't' && isBlank(peek(2))) {
+                    // Texture Coordinate, v is optional and w is ignored
+                    m_pos += 2;
+                    float u = parseFloat();
+                    float v = hasValue() ? parseFloat() : 0f;
+                    textCoords.add(u, v);
+                } else if(second == 'n' && isBlank(peek(2))) {
+                    // Vertex Normal
+                    m_pos += 2;
+                    normals.add(parseFloat(), parseFloat(), parseFloat());
+                }
+            } else if(first == 'f' && isBlank(second)) {
+                m_pos++;
+                parseFace();
+            }
+
+            skipLine();
+        }
+
+        m_buffer = null;
+    }
+
+    private void parseFace() {
+        int cornerCount = 0;
+
+        while(hasValue()) {
+            int position = resolve(parseInt(), positions.size() / 3, 0);
+            int textCoord = NO_VALUE;
+            int normal = NO_VALUE;
+
+            if(m_pos < m_end && m_buffer.get(m_pos) == '/') {
+                m_pos++;
+                if(m_pos < m_end && m_buffer.get(m_pos) != '/')
+                    textCoord = resolve(parseInt(), textCoords.size() / 2, 1);
+
+                if(m_pos < m_end && m_buffer.get(m_pos) == '/') {
+                    m_pos++;
+                    normal = resolve(parseInt(), normals.size() / 3, 2);
+                }
+            }
+
+            corners.add(position, textCoord, normal);
+            cornerCount++;
+        }
+
+        if(cornerCount < 3)
+            throw new RuntimeException(String.format("OBJ face with only %d vertices found!", cornerCount));
+
+        faceSizes.add(cornerCount);
+    }
+
+    /**
+     * Appends everything another parser collected after our own data, as if we had parsed its chunk ourselves.
+     * Any relative indices of the other parser are shifted by the amount of data we held before appending.
+     *
+     * @param other the parser of the chunk that directly follows ours
+     */
+    void append(ObjParser other) {
+        int posBase = positions.size() / 3;
+        int textCoordBase = textCoords.size() / 2;
+        int normBase = normals.size() / 3;
+        int cornerBase = corners.size();
+
+        positions.addAll(other.positions);
+        textCoords.addAll(other.textCoords);
+        normals.addAll(other.normals);
+        faceSizes.addAll(other.faceSizes);
+        corners.addAll(other.corners);
+
+        int[] items = corners.items();
+        int[] slots = other.relativeSlots.items();
+        for(int i = 0; i < other.relativeSlots.size(); i++) {
+            int slot = cornerBase + slots[i];
+            switch(slot % 3) {
+                case 0:
+                    items[slot] += posBase;
+                    break;
+                case 1:
+                    items[slot] += textCoordBase;
+                    break;
+                default:
+                    items[slot] += normBase;
+                    break;
+            }
+
+            if(items[slot] < 0)
+                throw new RuntimeException("OBJ relative index points before the start of the file!");
+        }
+    }
+
+    /**
+     * OBJ indices start at 1, negative ones count backwards from the last element read so far.
+     *
+     * @param attribute which index of the corner we are resolving, 0 for position, 1 for texture coordinate and 2 for normal
+     */
+    private int resolve(int index, int count, int attribute) {
+        if(index > 0)
+            return index - 1;
+        if(index < 0) {
+            relativeSlots.add(corners.size() + attribute);
+            return count + index;
+        }
+
+        throw new RuntimeException("OBJ index of 0 found, OBJ indices start at 1!");
+    }
+
+    private int parseInt() {
+        skipBlanks();
+
+        boolean negative = false;
+        byte c = m_pos < m_end ? m_buffer.get(m_pos) : 0;
+        if(c == '-' || c == '+') {
+            negative = c == '-';
+            m_pos++;
+        }
+
+        int start = m_pos;
+        int value = 0;
+        while(m_pos < m_end && (c = m_buffer.get(m_pos)) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            m_pos++;
+        }
+
+        if(m_pos == start)
+            throw new RuntimeException(String.format("Expected a number in OBJ data at byte %d!", m_pos));
+
+        return negative ? -value : value;
+    }
+
+    private float parseFloat() {
+        skipBlanks();
+
+        int token = m_pos;
+        boolean negative = false;
+        byte c = m_pos < m_end ? m_buffer.get(m_pos) : 0;
+        if(c == '-' || c == '+') {
+            negative = c == '-';
+            m_pos++;
+        }
+
+        // We keep at most 18 significant digits, which is far more than a float could ever hold anyways
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        int start = m_pos;
+
+        while(m_pos < m_end && (c = m_buffer.get(m_pos)) >= '0' && c <= '9') {
+            if(digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if(mantissa != 0)
+                    digits++;
+            } else {
+                exponent++;
+            }
+            m_pos++;
+        }
+
+        if(m_pos < m_end && m_buffer.get(m_pos) == '.') {
+            m_pos++;
+            while(m_pos < m_end && (c = m_buffer.get(m_pos)) >= '0' && c <= '9') {
+                if(digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    exponent--;
+                    if(mantissa != 0)
+                        digits++;
+                }
+                m_pos++;
+            }
+        }
+
+        if(m_pos == start)
+            throw new RuntimeException(String.format("Expected a number in OBJ data at byte %d!", m_pos));
+
+        if(m_pos < m_end && ((c = m_buffer.get(m_pos)) == 'e' || c == 'E')) {
+            m_pos++;
+            exponent += parseInt();
+        }
+
+        // Past these, either the mantissa or the power of ten gets rounded before we scale, and rounding twice
+        // can be off by one. Numbers like that are rare enough to leave to the JDK
+        if(mantissa != 0 && (mantissa > MAX_EXACT_MANTISSA || exponent >= POWERS_OF_TEN.length || exponent <= -POWERS_OF_TEN.length)) {
+            byte[] bytes = new byte[m_pos - token];
+            m_buffer.get(token, bytes);
+            return Float.parseFloat(new String(bytes, StandardCharsets.ISO_8859_1));
+        }
+
+        double value = mantissa;
+        if(exponent > 0)
+            value *= POWERS_OF_TEN[exponent];
+        else if(exponent < 0)
+            value /= POWERS_OF_TEN[-exponent];
+
+        return (float) (negative ? -value : value);
+    }
+
+    /**
+     * @return true if there is something other than whitespace left on the current line
+     */
+    private boolean hasValue() {
+        skipBlanks();
+        if(m_pos >= m_end)
+            return false;
+
+        byte c = m_buffer.get(m_pos);
+        return c != '\n' && c != '\r' && c != '#';
+    }
+
+    private void skipBlanks() {
+        while(m_pos < m_end) {
+            byte c = m_buffer.get(m_pos);
+            if(c != ' ' && c != '\t')
+                return;
+
+            m_pos++;
+        }
+    }
+
+    private void skipLine() {
+        while(m_pos < m_end && m_buffer.get(m_pos++) != '\n');
+    }
+
+    private byte peek(int offset) {
+        return m_pos + offset < m_end ? m_buffer.get(m_pos + offset) : (byte) '\n';
+    }
+
+    private static boolean isBlank(byte c) {
+        return c == ' ' || c == '\t';
+    }
+
+}
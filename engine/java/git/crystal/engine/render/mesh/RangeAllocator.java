@@ -0,0 +1,158 @@
+package git.crystal.engine.render.mesh;
+
+import java.util.Arrays;
+
+/**
+ * Hands out ranges of a larger block, like vertices of a shared buffer. Free space is kept as a list of ranges
+ * sorted by their offset, a request takes the first range big enough for it, and freeing a range merges it with
+ * any free neighbour so the list stays as short as it can.
+ *
+ * Nothing here touches memory, it only keeps track of offsets. See {@link GeometryPool}.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class RangeAllocator {
+
+    private int m_capacity;
+
+    // Every free range, starting at offset and spanning size, sorted by offset
+    private int[] m_offsets, m_sizes;
+    private int m_count;
+    private int m_free;
+
+    public RangeAllocator(int capacity) {
+        m_offsets = new int[16];
+        m_sizes = new int[16];
+
+        reset(0, capacity);
+    }
+
+    /**
+     * Claims a range.
+     *
+     * @return the offset of the range, or -1 if no free range is big enough
+     */
+    public int allocate(int size) {
+        if(size <= 0)
+            return -1;
+
+        for(int i = 0; i < m_count; i++) {
+            if(m_sizes[i] < size)
+                continue;
+
+            int offset = m_offsets[i];
+            if(m_sizes[i] == size) {
+                remove(i);
+            } else {
+                m_offsets[i] += size;
+                m_sizes[i] -= size;
+            }
+
+            m_free -= size;
+            return offset;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gives a range back. It has to be exactly a range we handed out before.
+     */
+    public void free(int offset, int size) {
+        if(size <= 0)
+            return;
+
+        int index = 0;
+        while(index < m_count && m_offsets[index] < offset)
+            index++;
+
+        boolean mergesLeft = index > 0 && m_offsets[index - 1] + m_sizes[index - 1] == offset;
+        boolean mergesRight = index < m_count && offset + size == m_offsets[index];
+
+        if(mergesLeft && mergesRight) {
+            m_sizes[index - 1] += size + m_sizes[index];
+            remove(index);
+        } else if(mergesLeft) {
+            m_sizes[index - 1] += size;
+        } else if(mergesRight) {
+            m_offsets[index] = offset;
+            m_sizes[index] += size;
+        } else {
+            insert(index, offset, size);
+        }
+
+        m_free += size;
+    }
+
+    /**
+     * Makes room for more, everything past our old capacity becomes free.
+     */
+    public void grow(int capacity) {
+        if(capacity <= m_capacity)
+            return;
+
+        int old = m_capacity;
+        m_capacity = capacity;
+        free(old, capacity - old);
+    }
+
+    /**
+     * Forgets every range, after which everything from used onwards is free. This is what a defragmentation
+     * leaves behind, with every live range packed to the front.
+     */
+    public void reset(int used, int capacity) {
+        m_capacity = capacity;
+        m_count = 0;
+        m_free = 0;
+
+        if(capacity > used)
+            insert(0, used, capacity - used);
+
+        m_free = Math.max(capacity - used, 0);
+    }
+
+    public int getCapacity() {
+        return m_capacity;
+    }
+
+    public int getFree() {
+        return m_free;
+    }
+
+    public int getLargestFree() {
+        int largest = 0;
+        for(int i = 0; i < m_count; i++)
+            largest = Math.max(largest, m_sizes[i]);
+
+        return largest;
+    }
+
+    /**
+     * @return how much of our free space can't be used for the biggest request it could otherwise fit, from 0 to 1
+     */
+    public float getFragmentation() {
+        return m_free == 0 ? 0f : 1f - (float) getLargestFree() / m_free;
+    }
+
+    private void insert(int index, int offset, int size) {
+        if(m_count == m_offsets.length) {
+            m_offsets = Arrays.copyOf(m_offsets, m_count * 2);
+            m_sizes = Arrays.copyOf(m_sizes, m_count * 2);
+        }
+
+        System.arraycopy(m_offsets, index, m_offsets, index + 1, m_count - index);
+        System.arraycopy(m_sizes, index, m_sizes, index + 1, m_count - index);
+        m_offsets[index] = offset;
+        m_sizes[index] = size;
+        m_count++;
+    }
+
+    private void remove(int index) {
+        System.arraycopy(m_offsets, index + 1, m_offsets, index, m_count - index - 1);
+        System.arraycopy(m_sizes, index + 1, m_sizes, index, m_count - index - 1);
+        m_count--;
+    }
+
+}
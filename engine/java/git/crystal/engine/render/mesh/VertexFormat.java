@@ -0,0 +1,203 @@
+package git.crystal.engine.render.mesh;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.glEnableVertexAttribArray;
+import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
+import static org.lwjgl.opengl.GL12.GL_UNSIGNED_INT_2_10_10_10_REV;
+import static org.lwjgl.opengl.GL30.GL_HALF_FLOAT;
+import static org.lwjgl.opengl.GL33.GL_INT_2_10_10_10_REV;
+
+/**
+ * Describes how the vertices of a Mesh are laid out in its single, interleaved VBO. A format is a list of
+ * attributes that are packed one after another for every vertex, which means a Mesh only carries the
+ * attributes it actually uses.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class VertexFormat {
+
+    public static final int POSITION_LOCATION = 0;
+    public static final int TEXTURE_LOCATION = 1;
+    public static final int NORMAL_LOCATION = 2;
+
+    public static final Attribute POSITION = new Attribute(POSITION_LOCATION, 3, GL_FLOAT, false);
+    public static final Attribute TEXTURE_COORDS = new Attribute(TEXTURE_LOCATION, 2, GL_FLOAT, false);
+    public static final Attribute NORMAL = new Attribute(NORMAL_LOCATION, 3, GL_FLOAT, false);
+
+    public static final VertexFormat POSITION_ONLY = new VertexFormat(POSITION);
+    public static final VertexFormat POSITION_TEXTURE = new VertexFormat(POSITION, TEXTURE_COORDS);
+    public static final VertexFormat POSITION_NORMAL = new VertexFormat(POSITION, NORMAL);
+    public static final VertexFormat POSITION_TEXTURE_NORMAL = new VertexFormat(POSITION, TEXTURE_COORDS, NORMAL);
+
+    private final Attribute[] m_Attributes;
+    private final int[] m_Offsets;
+    private final int m_Stride;
+
+    public VertexFormat(Attribute... attributes) {
+        m_Attributes = attributes.clone();
+        m_Offsets = new int[attributes.length];
+
+        int offset = 0;
+        for(int i = 0; i < attributes.length; i++) {
+            m_Offsets[i] = offset;
+            offset += attributes[i].getByteSize();
+        }
+
+        m_Stride = offset;
+    }
+
+    /**
+     * Picks one of our standard formats, every one of them starts with a position.
+     */
+    public static VertexFormat of(boolean textCoords, boolean normals) {
+        if(textCoords)
+            return normals ? POSITION_TEXTURE_NORMAL : POSITION_TEXTURE;
+
+        return normals ? POSITION_NORMAL : POSITION_ONLY;
+    }
+
+    /**
+     * Points and enables every attribute of this format into the VBO that is currently bound to GL_ARRAY_BUFFER.
+     * The VAO the attributes should end up in has to be bound as well.
+     */
+    public void apply() {
+        for(int i = 0; i < m_Attributes.length; i++) {
+            Attribute attribute = m_Attributes[i];
+            glEnableVertexAttribArray(attribute.location);
+            glVertexAttribPointer(attribute.location, attribute.size, attribute.type, attribute.normalized, m_Stride, m_Offsets[i]);
+        }
+    }
+
+    public boolean has(int location) {
+        return indexOf(location) >= 0;
+    }
+
+    /**
+     * @return the offset in bytes of the attribute at this location, from the start of a vertex
+     */
+    public int offsetOf(int location) {
+        int index = indexOf(location);
+        if(index < 0)
+            throw new IllegalArgumentException(String.format("This vertex format has no attribute at location %d!", location));
+
+        return m_Offsets[index];
+    }
+
+    public Attribute[] getAttributes() {
+        return m_Attributes.clone();
+    }
+
+    /**
+     * @return the size in bytes of a single vertex
+     */
+    public int getStride() {
+        return m_Stride;
+    }
+
+    private int indexOf(int location) {
+        for(int i = 0; i < m_Attributes.length; i++) {
+            if(m_Attributes[i].location == location)
+                return i;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof VertexFormat && Arrays.equals(m_Attributes, ((VertexFormat) other).m_Attributes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(m_Attributes);
+    }
+
+    /**
+     * A single attribute of a vertex, as the shader sees it.
+     */
+    public static class Attribute {
+
+        public final int location;
+        public final int size;
+        public final int type;
+        public final boolean normalized;
+
+        /**
+         * @param location the location the shader reads this attribute from
+         * @param size how many components this attribute has, from 1 to 4
+         * @param type the GL type of every component, like GL_FLOAT. The packed 2_10_10_10_REV types hold all 4
+         *             components in a single int
+         * @param normalized whether integer types should be mapped into the 0 to 1 (or -1 to 1) range
+         */
+        public Attribute(int location, int size, int type, boolean normalized) {
+            if(size < 1 || size > 4)
+                throw new RuntimeException(String.format("Attribute [%d] has %d components, it can only have 1 to 4!", location, size));
+
+            switch(type) {
+                case GL_BYTE:
+                case GL_UNSIGNED_BYTE:
+                case GL_SHORT:
+                case GL_UNSIGNED_SHORT:
+                case GL_HALF_FLOAT:
+                case GL_INT:
+                case GL_UNSIGNED_INT:
+                case GL_FLOAT:
+                case GL_DOUBLE:
+                    break;
+                case GL_INT_2_10_10_10_REV:
+                case GL_UNSIGNED_INT_2_10_10_10_REV:
+                    if(size != 4)
+                        throw new RuntimeException(String.format("Attribute [%d] is packed, it has to have 4 components!", location));
+                    break;
+                default:
+                    throw new RuntimeException(String.format("Attribute [%d] has an unsupported type [0x%X]!", location, type));
+            }
+
+            this.location = location;
+            this.size = size;
+            this.type = type;
+            this.normalized = normalized;
+        }
+
+        public int getByteSize() {
+            switch(type) {
+                case GL_BYTE:
+                case GL_UNSIGNED_BYTE:
+                    // Keep every attribute 4 byte aligned, some drivers get really slow otherwise
+                    return (size + 3) & ~3;
+                case GL_SHORT:
+                case GL_UNSIGNED_SHORT:
+                case GL_HALF_FLOAT:
+                    return (size * 2 + 3) & ~3;
+                case GL_DOUBLE:
+                    return size * 8;
+                case GL_INT_2_10_10_10_REV:
+                case GL_UNSIGNED_INT_2_10_10_10_REV:
+                    return 4;
+                default:
+                    return size * 4;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Attribute))
+                return false;
+
+            Attribute attribute = (Attribute) other;
+            return location == attribute.location && size == attribute.size && type == attribute.type && normalized == attribute.normalized;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((location * 31 + size) * 31 + type) * 31 + (normalized ? 1 : 0);
+        }
+
+    }
+
+}
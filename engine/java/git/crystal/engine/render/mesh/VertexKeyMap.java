@@ -0,0 +1,95 @@
+package git.crystal.engine.render.mesh;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from a (position, texture coordinate, normal) index triple to the index of the
+ * vertex we built for it. Everything is kept in flat int arrays so looking up millions of corners never boxes.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+class VertexKeyMap {
+
+    static final int EMPTY = -1;
+
+    private int[] m_keys;
+    private int[] m_values;
+    private int m_mask, m_size;
+
+    VertexKeyMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Finds the vertex for our triple, or stores the one we pass in if there isn't one yet.
+     *
+     * @param newValue the vertex index to store if this triple hasn't been seen before
+     * @return the vertex index already stored for this triple, or {@link #EMPTY} if newValue was stored
+     */
+    int putIfAbsent(int position, int textCoord, int normal, int newValue) {
+        int slot = hash(position, textCoord, normal) & m_mask;
+
+        while(m_values[slot] != EMPTY) {
+            int key = slot * 3;
+            if(m_keys[key] == position && m_keys[key + 1] == textCoord && m_keys[key + 2] == normal)
+                return m_values[slot];
+
+            slot = (slot + 1) & m_mask;
+        }
+
+        int key = slot * 3;
+        m_keys[key] = position;
+        m_keys[key + 1] = textCoord;
+        m_keys[key + 2] = normal;
+        m_values[slot] = newValue;
+
+        // Keep the load factor at or below one half so probe chains stay short
+        if(++m_size * 2 > m_values.length)
+            rehash();
+
+        return EMPTY;
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    private void rehash() {
+        int[] oldKeys = m_keys;
+        int[] oldValues = m_values;
+
+        allocate(oldValues.length * 2);
+        for(int i = 0; i < oldValues.length; i++) {
+            if(oldValues[i] == EMPTY)
+                continue;
+
+            int slot = hash(oldKeys[i * 3], oldKeys[i * 3 + 1], oldKeys[i * 3 + 2]) & m_mask;
+            while(m_values[slot] != EMPTY)
+                slot = (slot + 1) & m_mask;
+
+            System.arraycopy(oldKeys, i * 3, m_keys, slot * 3, 3);
+            m_values[slot] = oldValues[i];
+            m_size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        m_keys = new int[capacity * 3];
+        m_values = new int[capacity];
+        Arrays.fill(m_values, EMPTY);
+
+        m_mask = capacity - 1;
+        m_size = 0;
+    }
+
+    private static int hash(int position, int textCoord, int normal) {
+        int h = position * 0x9E3779B1;
+        h = (h ^ (h >>> 15) ^ textCoord) * 0x85EBCA77;
+        h = (h ^ (h >>> 13) ^ normal) * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -34,11 +34,20 @@ public class Window {
 
     private long m_glfwWindow;
 
+    // The framebuffer can be resized while another thread owns our context, so the viewport is set by whoever renders
+    private volatile int mv_framebufferWidth, mv_framebufferHeight;
+    private volatile boolean mv_resized;
+
     private Window() {
         m_Settings = new Settings();
     }
 
     public boolean create() {
+        // Without a window system there is nothing to show, so GLFW gets none and only makes us a context
+        boolean offscreen = m_Settings.headless && m_Settings.contextApi != GLFW_NATIVE_CONTEXT_API;
+        if(offscreen)
+            glfwInitHint(GLFW_PLATFORM, GLFW_PLATFORM_NULL);
+
         if(!glfwInit()) {
             System.err.println("FATAL ERROR: GLFW Failed to initialize!");
             return false;
@@ -47,14 +56,16 @@ public class Window {
         glfwDefaultWindowHints();
         glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
         glfwWindowHint(GLFW_RESIZABLE, m_Settings.resizable ? GLFW_TRUE : GLFW_FALSE);
+        glfwWindowHint(GLFW_CONTEXT_CREATION_API, m_Settings.contextApi);
 
-        m_glfwWindow = glfwCreateWindow(m_Settings.width, m_Settings.height, m_Settings.title, m_Settings.fullscreen ? glfwGetPrimaryMonitor() : NULL, NULL);
+        boolean fullscreen = m_Settings.fullscreen && !m_Settings.headless;
+        m_glfwWindow = glfwCreateWindow(m_Settings.width, m_Settings.height, m_Settings.title, fullscreen ? glfwGetPrimaryMonitor() : NULL, NULL);
         if(m_glfwWindow == NULL) {
             System.err.println("Failed to create a Window!");
             return false;
         }
 
-        if(!m_Settings.fullscreen) {
+        if(!fullscreen && !m_Settings.headless) {
             try (MemoryStack stack = stackPush()) {
                 GLFWVidMode vid_mode = glfwGetVideoMode(glfwGetPrimaryMonitor());
                 if(vid_mode == null) {
@@ -80,24 +91,60 @@ public class Window {
         }));
 
         glfwSetFramebufferSizeCallback(m_glfwWindow, ((window, width, height) -> {
-            glViewport(0, 0, width, height);
+            mv_framebufferWidth = width;
+            mv_framebufferHeight = height;
+            mv_resized = true;
         }));
 
         return true;
     }
 
     public void display() {
-        if(m_glfwWindow != NULL)
+        if(m_glfwWindow != NULL && !m_Settings.headless)
             glfwShowWindow(m_glfwWindow);
     }
 
     public void update() {
+        pollEvents();
+        swapBuffers();
+    }
+
+    /**
+     * Handles everything the OS sent to our Window. This has to happen on the thread that created it.
+     */
+    public void pollEvents() {
         glfwPollEvents();
+    }
 
+    /**
+     * Shows what we've rendered. This has to happen on the thread that owns our context.
+     */
+    public void swapBuffers() {
         if(m_glfwWindow != NULL)
             glfwSwapBuffers(m_glfwWindow);
     }
 
+    /**
+     * Catches our viewport up with the size of the framebuffer, if it changed. This has to happen on the thread
+     * that owns our context.
+     */
+    public void updateViewport() {
+        if(!mv_resized)
+            return;
+
+        mv_resized = false;
+        glViewport(0, 0, mv_framebufferWidth, mv_framebufferHeight);
+    }
+
+    /**
+     * Hands our context over to the calling thread, or takes it away from it.
+     *
+     * @param current true to make our context current, false to release it
+     */
+    public void makeContextCurrent(boolean current) {
+        glfwMakeContextCurrent(current ? m_glfwWindow : NULL);
+    }
+
     public void destroy() {
         if(m_glfwWindow != NULL)
             glfwDestroyWindow(m_glfwWindow);
@@ -130,6 +177,10 @@ public class Window {
         m_Settings.useVSync = settings.useVSync;
         m_Settings.resizable = settings.resizable;
         m_Settings.fullscreen = settings.fullscreen;
+        m_Settings.threadedRendering = settings.threadedRendering;
+
+        m_Settings.headless = settings.headless;
+        m_Settings.contextApi = settings.contextApi;
     }
 
     public Settings getSettings() {
@@ -154,6 +205,18 @@ public class Window {
         public boolean resizable = false;
         public boolean fullscreen = false;
 
+        // Renders on a thread of its own, fed with snapshots by the update thread. See IGame.snapshot
+        public boolean threadedRendering = false;
+
+        // Never shows our window, we still render into it. Made for benchmarks, see git.crystal.engine.Benchmark
+        public boolean headless = false;
+        /*
+         * Who creates our context, GLFW_NATIVE_CONTEXT_API, GLFW_EGL_CONTEXT_API or GLFW_OSMESA_CONTEXT_API. A headless
+         * window with anything but the native API runs without a window system at all, so EGL (Mesa surfaceless)
+         * or OSMesa can render on a machine with no display and no GPU.
+         */
+        public int contextApi = GLFW_NATIVE_CONTEXT_API;
+
     }
 
 }
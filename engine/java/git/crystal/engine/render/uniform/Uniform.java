@@ -0,0 +1,35 @@
+package git.crystal.engine.render.uniform;
+
+/**
+ * A handle to a single uniform of a Shader Program. We look the location up once when the uniform is created,
+ * after that setting it is nothing more than a direct glUniform call.
+ *
+ * A uniform that couldn't be found keeps a location of -1, OpenGL silently ignores any value set on that.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public abstract class Uniform {
+
+    protected final String m_Name;
+    protected final int m_Location;
+
+    protected Uniform(String name, int location) {
+        m_Name = name;
+        m_Location = location;
+    }
+
+    public boolean isValid() {
+        return m_Location >= 0;
+    }
+
+    public String getName() {
+        return m_Name;
+    }
+
+    public int getLocation() {
+        return m_Location;
+    }
+
+}
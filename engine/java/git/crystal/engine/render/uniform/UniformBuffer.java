@@ -0,0 +1,77 @@
+package git.crystal.engine.render.uniform;
+
+import org.joml.Matrix4fc;
+import org.joml.Vector3fc;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL15C.*;
+import static org.lwjgl.opengl.GL30C.glBindBufferBase;
+import static org.lwjgl.opengl.GL31C.GL_UNIFORM_BUFFER;
+
+/**
+ * A block of uniforms that lives in its own buffer and is shared by every Shader Program that binds the block
+ * to the same binding point. Data that is the same for every program, like our projection and view matrices,
+ * gets uploaded once per frame here instead of once per program.
+ *
+ * Offsets are in bytes and have to follow the std140 layout of the block in the shader source, where a mat4
+ * takes up 64 bytes and a vec3 is aligned like a vec4.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class UniformBuffer {
+
+    private final int m_BufferId;
+    private final int m_BindingPoint;
+    private final ByteBuffer m_Data;
+
+    public UniformBuffer(int bindingPoint, int size) {
+        m_BindingPoint = bindingPoint;
+        m_Data = MemoryUtil.memCalloc(size);
+
+        m_BufferId = glGenBuffers();
+        glBindBuffer(GL_UNIFORM_BUFFER, m_BufferId);
+        glBufferData(GL_UNIFORM_BUFFER, size, GL_DYNAMIC_DRAW);
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+
+        glBindBufferBase(GL_UNIFORM_BUFFER, m_BindingPoint, m_BufferId);
+    }
+
+    public void set(int offset, Matrix4fc value) {
+        value.get(offset, m_Data);
+    }
+
+    public void set(int offset, Vector3fc value) {
+        value.get(offset, m_Data);
+    }
+
+    public void set(int offset, float value) {
+        m_Data.putFloat(offset, value);
+    }
+
+    public void set(int offset, int value) {
+        m_Data.putInt(offset, value);
+    }
+
+    /**
+     * Sends everything we've set over to OpenGL.
+     */
+    public void upload() {
+        glBindBuffer(GL_UNIFORM_BUFFER, m_BufferId);
+        glBufferSubData(GL_UNIFORM_BUFFER, 0, m_Data);
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(m_BufferId);
+        MemoryUtil.memFree(m_Data);
+    }
+
+    public int getBindingPoint() {
+        return m_BindingPoint;
+    }
+
+}
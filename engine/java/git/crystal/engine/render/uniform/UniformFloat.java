@@ -0,0 +1,22 @@
+package git.crystal.engine.render.uniform;
+
+import static org.lwjgl.opengl.GL20C.glUniform1f;
+
+/**
+ * A handle to a float uniform.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class UniformFloat extends Uniform {
+
+    public UniformFloat(String name, int location) {
+        super(name, location);
+    }
+
+    public void set(float value) {
+        glUniform1f(m_Location, value);
+    }
+
+}
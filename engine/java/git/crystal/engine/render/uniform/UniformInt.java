@@ -0,0 +1,22 @@
+package git.crystal.engine.render.uniform;
+
+import static org.lwjgl.opengl.GL20C.glUniform1i;
+
+/**
+ * A handle to an int (or sampler) uniform.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class UniformInt extends Uniform {
+
+    public UniformInt(String name, int location) {
+        super(name, location);
+    }
+
+    public void set(int value) {
+        glUniform1i(m_Location, value);
+    }
+
+}
@@ -0,0 +1,33 @@
+package git.crystal.engine.render.uniform;
+
+import org.joml.Matrix4fc;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL20C.glUniformMatrix4fv;
+
+/**
+ * A handle to a mat4 uniform. Every handle keeps its own buffer to copy the matrix into, so setting it never
+ * needs to push a MemoryStack frame.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class UniformMat4 extends Uniform {
+
+    private final FloatBuffer m_Buffer;
+
+    public UniformMat4(String name, int location) {
+        super(name, location);
+
+        m_Buffer = BufferUtils.createFloatBuffer(16);
+    }
+
+    public void set(Matrix4fc value) {
+        value.get(m_Buffer);
+        glUniformMatrix4fv(m_Location, false, m_Buffer);
+    }
+
+}
@@ -0,0 +1,28 @@
+package git.crystal.engine.render.uniform;
+
+import org.joml.Vector3fc;
+
+import static org.lwjgl.opengl.GL20C.glUniform3f;
+
+/**
+ * A handle to a vec3 uniform.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class UniformVec3 extends Uniform {
+
+    public UniformVec3(String name, int location) {
+        super(name, location);
+    }
+
+    public void set(Vector3fc value) {
+        glUniform3f(m_Location, value.x(), value.y(), value.z());
+    }
+
+    public void set(float x, float y, float z) {
+        glUniform3f(m_Location, x, y, z);
+    }
+
+}
@@ -0,0 +1,22 @@
+package git.crystal.engine.render.uniform;
+
+import static org.lwjgl.opengl.GL20C.glUniform4f;
+
+/**
+ * A handle to a vec4 uniform.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class UniformVec4 extends Uniform {
+
+    public UniformVec4(String name, int location) {
+        super(name, location);
+    }
+
+    public void set(float x, float y, float z, float w) {
+        glUniform4f(m_Location, x, y, z, w);
+    }
+
+}
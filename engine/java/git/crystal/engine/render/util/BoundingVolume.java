@@ -0,0 +1,148 @@
+package git.crystal.engine.render.util;
+
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * The space a Mesh takes up, described both as an axis aligned box and as a sphere around the center of
+ * that box. The sphere is cheap to test against, the box fits a lot tighter.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class BoundingVolume {
+
+    private final Vector3f m_Min, m_Max, m_Center;
+    private float m_radius;
+
+    public BoundingVolume() {
+        m_Min = new Vector3f();
+        m_Max = new Vector3f();
+        m_Center = new Vector3f();
+        m_radius = 0f;
+    }
+
+    /**
+     * Computes the bounds of a list of positions laid out as x, y, z after each other.
+     */
+    public static BoundingVolume fromPositions(float[] positions) {
+        return fromPositions(FloatBuffer.wrap(positions), 0, 3);
+    }
+
+    /**
+     * Computes the bounds of the positions in a buffer of vertices, starting at the buffer's position.
+     *
+     * @param vertices the vertex data, where every vertex holds its x, y and z next to each other
+     * @param offset how many floats into a vertex its x is
+     * @param stride how many floats there are from the start of one vertex to the start of the next
+     */
+    public static BoundingVolume fromPositions(FloatBuffer vertices, int offset, int stride) {
+        int start = vertices.position() + offset;
+        return fromPositions(vertices.remaining() / stride, (vertex, component) -> vertices.get(start + vertex * stride + component));
+    }
+
+    /**
+     * Computes the bounds of the positions in a buffer of vertices of any layout, starting at the buffer's
+     * position. The positions themselves have to be floats, everything else can be packed however it wants.
+     *
+     * @param vertices the vertex data, read in native byte order like OpenGL would
+     * @param offset how many bytes into a vertex its x is
+     * @param stride how many bytes there are from the start of one vertex to the start of the next
+     */
+    public static BoundingVolume fromPositions(ByteBuffer vertices, int offset, int stride) {
+        ByteBuffer data = vertices.duplicate().order(ByteOrder.nativeOrder());
+        int start = data.position() + offset;
+        return fromPositions(data.remaining() / stride, (vertex, component) -> data.getFloat(start + vertex * stride + component * Float.BYTES));
+    }
+
+    private static BoundingVolume fromPositions(int count, PositionReader positions) {
+        BoundingVolume result = new BoundingVolume();
+        if(count == 0)
+            return result;
+
+        result.m_Min.set(Float.POSITIVE_INFINITY);
+        result.m_Max.set(Float.NEGATIVE_INFINITY);
+        for(int i = 0; i < count; i++) {
+            float x = positions.get(i, 0), y = positions.get(i, 1), z = positions.get(i, 2);
+
+            Vector3f min = result.m_Min, max = result.m_Max;
+            min.set(Math.min(min.x, x), Math.min(min.y, y), Math.min(min.z, z));
+            max.set(Math.max(max.x, x), Math.max(max.y, y), Math.max(max.z, z));
+        }
+
+        result.m_Min.add(result.m_Max, result.m_Center).mul(0.5f);
+
+        // The sphere around the box center doesn't have to reach the box corners, only the furthest vertex
+        float radiusSquared = 0f;
+        for(int i = 0; i < count; i++)
+            radiusSquared = Math.max(radiusSquared, result.m_Center.distanceSquared(positions.get(i, 0), positions.get(i, 1), positions.get(i, 2)));
+        result.m_radius = (float) Math.sqrt(radiusSquared);
+
+        return result;
+    }
+
+    /**
+     * Moves these bounds into world space.
+     *
+     * @param modelMatrix the matrix that takes our bounds from local to world space
+     * @param dest where the world space bounds are stored
+     * @return dest
+     */
+    public BoundingVolume transform(Matrix4fc modelMatrix, BoundingVolume dest) {
+        modelMatrix.transformAab(m_Min, m_Max, dest.m_Min, dest.m_Max);
+        modelMatrix.transformPosition(m_Center, dest.m_Center);
+
+        // The sphere grows with the biggest of our scales, no matter how we are rotated
+        float scaleX = (float) Math.sqrt(modelMatrix.m00() * modelMatrix.m00() + modelMatrix.m01() * modelMatrix.m01() + modelMatrix.m02() * modelMatrix.m02());
+        float scaleY = (float) Math.sqrt(modelMatrix.m10() * modelMatrix.m10() + modelMatrix.m11() * modelMatrix.m11() + modelMatrix.m12() * modelMatrix.m12());
+        float scaleZ = (float) Math.sqrt(modelMatrix.m20() * modelMatrix.m20() + modelMatrix.m21() * modelMatrix.m21() + modelMatrix.m22() * modelMatrix.m22());
+        dest.m_radius = m_radius * Math.max(scaleX, Math.max(scaleY, scaleZ));
+
+        return dest;
+    }
+
+    /**
+     * Tests these bounds against a view frustum, first with the sphere and only if that isn't conclusive with
+     * the box as well.
+     *
+     * @return true if any part of these bounds could be visible
+     */
+    public boolean isVisible(FrustumIntersection frustum) {
+        int result = frustum.intersectSphere(m_Center.x, m_Center.y, m_Center.z, m_radius);
+        if(result == FrustumIntersection.INSIDE)
+            return true;
+        if(result != FrustumIntersection.INTERSECT)
+            return false;
+
+        return frustum.testAab(m_Min.x, m_Min.y, m_Min.z, m_Max.x, m_Max.y, m_Max.z);
+    }
+
+    public Vector3f getMin() {
+        return m_Min;
+    }
+
+    public Vector3f getMax() {
+        return m_Max;
+    }
+
+    public Vector3f getCenter() {
+        return m_Center;
+    }
+
+    public float getRadius() {
+        return m_radius;
+    }
+
+    private interface PositionReader {
+
+        float get(int vertex, int component);
+
+    }
+
+}
@@ -3,13 +3,8 @@ package git.crystal.engine.render.util;
 import git.crystal.engine.GameObject;
 import git.crystal.engine.render.ui.Window;
 import org.joml.Matrix4f;
-import org.joml.Vector3f;
-import org.lwjgl.system.MemoryStack;
-
-import java.nio.IntBuffer;
-
-import static org.lwjgl.glfw.GLFW.glfwGetWindowSize;
-import static org.lwjgl.system.MemoryStack.stackPush;
+import org.joml.Matrix4fc;
+import org.joml.Vector3fc;
 
 /**
  * Handles the Matrices we need to simulate movement or help create a Camera.
@@ -23,59 +18,87 @@ public class Transformation {
     private final Matrix4f m_ModelViewMatrix;
     private  final Matrix4f m_ViewMatrix;
 
+    // What our projection was last built with, it only needs rebuilding when one of these changes
+    private int m_projectionWidth, m_projectionHeight;
+    private float m_projectionFov, m_projectionNear, m_projectionFar;
+
     public Transformation() {
         m_ProjectionMatrix = new Matrix4f();
         m_ModelViewMatrix = new Matrix4f();
         m_ViewMatrix = new Matrix4f();
+
+        m_projectionWidth = -1;
+        m_projectionHeight = -1;
     }
 
+    /**
+     * Our projection only changes when the Window is resized, or when we ask for a different one, so
+     * it is kept around between frames otherwise.
+     */
     public Matrix4f getProjectionMatrix(float fov, float zNear, float zFar) {
-        return m_ProjectionMatrix.setPerspective(fov, calcAspectRatio(), zNear, zFar);
+        Window.Settings settings = Window.Instance().getSettings();
+        int width = settings.width, height = settings.height;
+
+        if(width != m_projectionWidth || height != m_projectionHeight || fov != m_projectionFov || zNear != m_projectionNear || zFar != m_projectionFar) {
+            // A minimized Window reports a size of 0, keep our last projection until it comes back
+            if(width > 0 && height > 0)
+                m_ProjectionMatrix.setPerspective(fov, (float) width / height, zNear, zFar);
+
+            m_projectionWidth = width;
+            m_projectionHeight = height;
+            m_projectionFov = fov;
+            m_projectionNear = zNear;
+            m_projectionFar = zFar;
+        }
+
+        return m_ProjectionMatrix;
+    }
+
+    /**
+     * Combines the model matrix of our object with a view matrix. The result is only valid until the next
+     * call, use {@link #getModelViewMatrix(GameObject, Matrix4fc, Matrix4f)} to keep it around.
+     */
+    public Matrix4f getModelViewMatrix(GameObject object, Matrix4fc viewMatrix) {
+        return getModelViewMatrix(object, viewMatrix, m_ModelViewMatrix);
     }
 
-    public Matrix4f getModelViewMatrix(GameObject object, Matrix4f viewMatrix) {
-        Vector3f rotation = object.getRotation();
-        m_ModelViewMatrix.identity();
-        m_ModelViewMatrix.translate(object.getPosition())
-                .rotateX((float) Math.toRadians(-rotation.x()))
-                .rotateY((float) Math.toRadians(-rotation.y()))
-                .rotateZ((float) Math.toRadians(-rotation.z()))
-                .scale(object.getScale());
-
-        Matrix4f viewCurr = new Matrix4f(viewMatrix);
-        return viewCurr.mul(m_ModelViewMatrix);
+    /**
+     * Combines the model matrix of our object with a view matrix into storage the caller owns.
+     *
+     * @param dest where the model view matrix is written to
+     * @return dest
+     */
+    public Matrix4f getModelViewMatrix(GameObject object, Matrix4fc viewMatrix, Matrix4f dest) {
+        // Both matrices only ever rotate, scale and translate, which lets us skip the bottom row
+        return viewMatrix.mulAffine(object.getModelMatrix(), dest);
+    }
+
+    public Matrix4fc getModelMatrix(GameObject object) {
+        return object.getModelMatrix();
     }
 
     public Matrix4f getViewMatrix(Camera camera) {
-        Vector3f cameraPos = camera.getPosition();
-        Vector3f cameraRot = camera.getRotation();
+        return getViewMatrix(camera.getPosition(), camera.getRotation());
+    }
 
-        m_ViewMatrix.identity();
-        m_ViewMatrix.rotate((float) Math.toRadians(cameraRot.x()), new Vector3f(1, 0, 0))
-                    .rotate((float) Math.toRadians(cameraRot.y()), new Vector3f(0, 1, 0));
-                    //.rotate((float) Math.toRadians(cameraRot.z()), new Vector3f(0, 0, 1));
+    /**
+     * Builds a view matrix for a Camera that isn't there, like one blended between two snapshots.
+     *
+     * @param cameraPos where the Camera is
+     * @param cameraRot how the Camera is rotated, in degrees
+     */
+    public Matrix4f getViewMatrix(Vector3fc cameraPos, Vector3fc cameraRot) {
+        m_ViewMatrix.rotationX((float) Math.toRadians(cameraRot.x()))
+                    .rotateY((float) Math.toRadians(cameraRot.y()));
+                    //.rotateZ((float) Math.toRadians(cameraRot.z()));
         m_ViewMatrix.translate(-cameraPos.x(), -cameraPos.y(), -cameraPos.z());
 
         return m_ViewMatrix;
     }
 
     public float getAspectRatio() {
-        return calcAspectRatio();
-    }
-
-    private float calcAspectRatio() {
-        float width, height;
-
-        try(MemoryStack stack = stackPush()) {
-            IntBuffer w = stack.mallocInt(1);
-            IntBuffer h = stack.mallocInt(1);
-
-            glfwGetWindowSize(Window.Instance().glfwWindow(), w, h);
-            width = (float) w.get(0);
-            height = (float) h.get(0);
-        }
-
-        return width / height;
+        Window.Settings settings = Window.Instance().getSettings();
+        return settings.height > 0 ? (float) settings.width / settings.height : 1f;
     }
 
 }
@@ -0,0 +1,416 @@
+package git.crystal.engine.scene;
+
+import git.crystal.engine.GameObject;
+import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.utils.IntArray;
+import org.joml.Matrix4f;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchy of transforms, where every node is placed relative to its parent. Attach a wheel to a car and
+ * moving the car moves the wheel along with it.
+ *
+ * Nodes don't exist as objects, they are handles into flat arrays that are kept ordered so a parent always
+ * comes before all of its children. That lets {@link #update()} walk the arrays once from front to back: by
+ * the time we reach a node, its parent's world matrix is already up to date. Only nodes that changed, and
+ * everything below them, get their world matrix recomputed.
+ *
+ * A node either owns its own position, rotation and scale, or follows a GameObject, in which case the model
+ * matrix of that GameObject is used as the local transform of the node.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class SceneGraph {
+
+    // The parent of every node that sits at the top of the hierarchy
+    public static final int ROOT = -1;
+
+    private static final int TRS_FLOATS = 9;
+    private static final int MATRIX_FLOATS = 16;
+
+    // Everything below is indexed by where a node currently sits in our arrays, except m_indices
+    private int[] m_parents;
+    private int[] m_ids;
+    private float[] m_trs;
+    private float[] m_locals, m_worlds;
+    private boolean[] m_dirty, m_changed;
+    private Mesh[] m_meshes;
+    private GameObject[] m_objects;
+    private int[] m_versions;
+    private int m_size;
+
+    // Node handles stay the same while nodes move around in our arrays, this maps a handle to its index
+    private int[] m_indices;
+    private final IntArray m_FreeIds;
+    private int m_nextId;
+
+    private final Matrix4f m_ParentMatrix, m_LocalMatrix;
+
+    public SceneGraph() {
+        this(64);
+    }
+
+    public SceneGraph(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+
+        m_parents = new int[capacity];
+        m_ids = new int[capacity];
+        m_trs = new float[capacity * TRS_FLOATS];
+        m_locals = new float[capacity * MATRIX_FLOATS];
+        m_worlds = new float[capacity * MATRIX_FLOATS];
+        m_dirty = new boolean[capacity];
+        m_changed = new boolean[capacity];
+        m_meshes = new Mesh[capacity];
+        m_objects = new GameObject[capacity];
+        m_versions = new int[capacity];
+
+        m_indices = new int[capacity];
+        m_FreeIds = new IntArray();
+
+        m_ParentMatrix = new Matrix4f();
+        m_LocalMatrix = new Matrix4f();
+    }
+
+    /**
+     * Creates an empty node, useful for grouping other nodes together.
+     *
+     * @param parent the node we're attached to, or {@link #ROOT}
+     * @return the handle of the new node
+     */
+    public int create(int parent) {
+        return create(parent, null);
+    }
+
+    /**
+     * Creates a node that draws a Mesh wherever it ends up in the world.
+     *
+     * @param parent the node we're attached to, or {@link #ROOT}
+     * @param mesh the Mesh to draw, may be null
+     * @return the handle of the new node
+     */
+    public int create(int parent, Mesh mesh) {
+        int parentIndex = parent == ROOT ? ROOT : indexOf(parent);
+
+        if(m_size == m_parents.length)
+            grow();
+
+        // Appending keeps us ordered, our parent already exists so it has to come before us
+        int index = m_size++;
+        int id = m_FreeIds.size() > 0 ? m_FreeIds.pop() : m_nextId++;
+        if(id >= m_indices.length)
+            m_indices = Arrays.copyOf(m_indices, m_indices.length * 2);
+
+        m_indices[id] = index;
+        m_ids[index] = id;
+        m_parents[index] = parentIndex;
+        m_meshes[index] = mesh;
+        m_objects[index] = null;
+
+        int trs = index * TRS_FLOATS;
+        Arrays.fill(m_trs, trs, trs + 6, 0f);
+        Arrays.fill(m_trs, trs + 6, trs + 9, 1f);
+        m_dirty[index] = true;
+
+        return id;
+    }
+
+    /**
+     * Creates a node that follows a GameObject. The node draws the Mesh of the object, and uses its model
+     * matrix as the local transform, so moving the object moves everything attached to it.
+     *
+     * @param object the GameObject we follow
+     * @param parent the node we're attached to, or {@link #ROOT}
+     * @return the handle of the new node
+     */
+    public int add(GameObject object, int parent) {
+        int id = create(parent, object.getMesh());
+
+        int index = m_indices[id];
+        m_objects[index] = object;
+        m_versions[index] = object.getVersion();
+
+        return id;
+    }
+
+    /**
+     * Removes a node, along with everything attached to it. This has to shift our arrays, so it costs
+     * time proportional to the size of the whole graph.
+     */
+    public void remove(int node) {
+        int index = indexOf(node);
+        boolean[] subtree = findSubtree(index);
+
+        int[] order = new int[m_size];
+        int count = 0;
+        for(int i = 0; i < m_size; i++) {
+            if(subtree[i]) {
+                m_indices[m_ids[i]] = -1;
+                m_FreeIds.add(m_ids[i]);
+            } else {
+                order[count++] = i;
+            }
+        }
+
+        reorder(order, count);
+    }
+
+    /**
+     * Attaches a node, along with everything attached to it, to a different parent. Its local transform
+     * stays the same, so it will jump to wherever that puts it relative to the new parent.
+     *
+     * @param node the node we want to move
+     * @param parent the node we're attaching to, or {@link #ROOT}
+     */
+    public void setParent(int node, int parent) {
+        int index = indexOf(node);
+        int parentIndex = parent == ROOT ? ROOT : indexOf(parent);
+
+        for(int i = parentIndex; i != ROOT; i = m_parents[i]) {
+            if(i == index)
+                throw new IllegalArgumentException(String.format("Node %d can't be attached to its own child %d!", node, parent));
+        }
+
+        // A parent that comes after us would break our ordering, so we move ourselves behind everything else
+        if(parentIndex > index) {
+            boolean[] subtree = findSubtree(index);
+
+            int[] order = new int[m_size];
+            int count = 0;
+            for(int i = 0; i < m_size; i++) {
+                if(!subtree[i])
+                    order[count++] = i;
+            }
+            for(int i = 0; i < m_size; i++) {
+                if(subtree[i])
+                    order[count++] = i;
+            }
+
+            reorder(order, count);
+
+            index = m_indices[node];
+            parentIndex = m_indices[parent];
+        }
+
+        m_parents[index] = parentIndex;
+        m_dirty[index] = true;
+    }
+
+    public void setPosition(int node, float x, float y, float z) {
+        setTRS(node, 0, x, y, z);
+    }
+
+    /**
+     * Rotations are in degrees, the same way GameObject uses them.
+     */
+    public void setRotation(int node, float x, float y, float z) {
+        setTRS(node, 3, x, y, z);
+    }
+
+    public void setScale(int node, float x, float y, float z) {
+        setTRS(node, 6, x, y, z);
+    }
+
+    public void movePosition(int node, float xOffs, float yOffs, float zOffs) {
+        int trs = indexOf(node) * TRS_FLOATS;
+        setPosition(node, m_trs[trs] + xOffs, m_trs[trs + 1] + yOffs, m_trs[trs + 2] + zOffs);
+    }
+
+    public void setMesh(int node, Mesh mesh) {
+        m_meshes[indexOf(node)] = mesh;
+    }
+
+    /**
+     * Brings the world matrix of every node up to date. This is a single pass over our arrays, nodes that
+     * haven't changed and whose parent hasn't either are skipped.
+     */
+    public void update() {
+        for(int i = 0; i < m_size; i++) {
+            boolean localChanged = m_dirty[i];
+
+            GameObject object = m_objects[i];
+            if(object != null) {
+                if(localChanged || object.getVersion() != m_versions[i]) {
+                    object.getModelMatrix().get(m_locals, i * MATRIX_FLOATS);
+                    m_versions[i] = object.getVersion();
+                    localChanged = true;
+                }
+            } else if(localChanged) {
+                int trs = i * TRS_FLOATS;
+                m_LocalMatrix.translation(m_trs[trs], m_trs[trs + 1], m_trs[trs + 2])
+                        .rotateX((float) Math.toRadians(-m_trs[trs + 3]))
+                        .rotateY((float) Math.toRadians(-m_trs[trs + 4]))
+                        .rotateZ((float) Math.toRadians(-m_trs[trs + 5]))
+                        .scale(m_trs[trs + 6], m_trs[trs + 7], m_trs[trs + 8])
+                        .get(m_locals, i * MATRIX_FLOATS);
+            }
+
+            int parent = m_parents[i];
+            boolean changed = localChanged || (parent != ROOT && m_changed[parent]);
+            if(changed) {
+                if(parent == ROOT) {
+                    System.arraycopy(m_locals, i * MATRIX_FLOATS, m_worlds, i * MATRIX_FLOATS, MATRIX_FLOATS);
+                } else {
+                    m_ParentMatrix.set(m_worlds, parent * MATRIX_FLOATS);
+                    m_LocalMatrix.set(m_locals, i * MATRIX_FLOATS);
+                    m_ParentMatrix.mulAffine(m_LocalMatrix).get(m_worlds, i * MATRIX_FLOATS);
+                }
+            }
+
+            m_changed[i] = changed;
+            m_dirty[i] = false;
+        }
+    }
+
+    /**
+     * Copies the world matrix of a node, as of the last {@link #update()}.
+     *
+     * @return dest
+     */
+    public Matrix4f getWorldMatrix(int node, Matrix4f dest) {
+        return dest.set(m_worlds, indexOf(node) * MATRIX_FLOATS);
+    }
+
+    /**
+     * Gives direct access to the world matrices of every node, 16 floats each in column-major order. Only the
+     * first {@link #size()} are valid, and node handles have to go through {@link #indexOf(int)} first.
+     */
+    public float[] getWorldMatrices() {
+        return m_worlds;
+    }
+
+    /**
+     * @return the Mesh of the node at this index within our arrays, or null
+     */
+    public Mesh getMeshAt(int index) {
+        return m_meshes[index];
+    }
+
+    /**
+     * @return the handle of the node at this index within our arrays
+     */
+    public int getIdAt(int index) {
+        return m_ids[index];
+    }
+
+    public int getParent(int node) {
+        int parentIndex = m_parents[indexOf(node)];
+        return parentIndex == ROOT ? ROOT : m_ids[parentIndex];
+    }
+
+    /**
+     * @return where a node currently sits in our arrays, this changes when nodes are removed or reattached
+     */
+    public int indexOf(int node) {
+        int index = node >= 0 && node < m_indices.length && node < m_nextId ? m_indices[node] : -1;
+        if(index < 0)
+            throw new IllegalArgumentException(String.format("Node %d doesn't exist in this SceneGraph!", node));
+
+        return index;
+    }
+
+    public boolean contains(int node) {
+        return node >= 0 && node < m_nextId && m_indices[node] >= 0;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    private void setTRS(int node, int component, float x, float y, float z) {
+        int index = indexOf(node);
+        int trs = index * TRS_FLOATS + component;
+
+        m_trs[trs] = x;
+        m_trs[trs + 1] = y;
+        m_trs[trs + 2] = z;
+        m_dirty[index] = true;
+    }
+
+    /**
+     * Marks a node and everything below it. Since children always come after their parent, one pass
+     * forward from the node finds them all.
+     */
+    private boolean[] findSubtree(int index) {
+        boolean[] subtree = new boolean[m_size];
+        subtree[index] = true;
+
+        for(int i = index + 1; i < m_size; i++) {
+            int parent = m_parents[i];
+            subtree[i] = parent != ROOT && subtree[parent];
+        }
+
+        return subtree;
+    }
+
+    /**
+     * Rebuilds our arrays in a new order.
+     *
+     * @param order the old index of every node, in the order they should end up in
+     * @param count how many nodes there are in the new order, anything left out is dropped
+     */
+    private void reorder(int[] order, int count) {
+        int capacity = m_parents.length;
+
+        int[] remap = new int[m_size];
+        Arrays.fill(remap, ROOT);
+        for(int i = 0; i < count; i++)
+            remap[order[i]] = i;
+
+        int[] parents = new int[capacity];
+        int[] ids = new int[capacity];
+        float[] trs = new float[capacity * TRS_FLOATS];
+        float[] locals = new float[capacity * MATRIX_FLOATS];
+        float[] worlds = new float[capacity * MATRIX_FLOATS];
+        boolean[] dirty = new boolean[capacity];
+        Mesh[] meshes = new Mesh[capacity];
+        GameObject[] objects = new GameObject[capacity];
+        int[] versions = new int[capacity];
+
+        for(int i = 0; i < count; i++) {
+            int old = order[i];
+
+            int parent = m_parents[old];
+            parents[i] = parent == ROOT ? ROOT : remap[parent];
+            ids[i] = m_ids[old];
+            System.arraycopy(m_trs, old * TRS_FLOATS, trs, i * TRS_FLOATS, TRS_FLOATS);
+            System.arraycopy(m_locals, old * MATRIX_FLOATS, locals, i * MATRIX_FLOATS, MATRIX_FLOATS);
+            System.arraycopy(m_worlds, old * MATRIX_FLOATS, worlds, i * MATRIX_FLOATS, MATRIX_FLOATS);
+            dirty[i] = m_dirty[old];
+            meshes[i] = m_meshes[old];
+            objects[i] = m_objects[old];
+            versions[i] = m_versions[old];
+
+            m_indices[ids[i]] = i;
+        }
+
+        m_parents = parents;
+        m_ids = ids;
+        m_trs = trs;
+        m_locals = locals;
+        m_worlds = worlds;
+        m_dirty = dirty;
+        m_meshes = meshes;
+        m_objects = objects;
+        m_versions = versions;
+        m_size = count;
+    }
+
+    private void grow() {
+        int capacity = m_parents.length * 2;
+
+        m_parents = Arrays.copyOf(m_parents, capacity);
+        m_ids = Arrays.copyOf(m_ids, capacity);
+        m_trs = Arrays.copyOf(m_trs, capacity * TRS_FLOATS);
+        m_locals = Arrays.copyOf(m_locals, capacity * MATRIX_FLOATS);
+        m_worlds = Arrays.copyOf(m_worlds, capacity * MATRIX_FLOATS);
+        m_dirty = Arrays.copyOf(m_dirty, capacity);
+        m_changed = Arrays.copyOf(m_changed, capacity);
+        m_meshes = Arrays.copyOf(m_meshes, capacity);
+        m_objects = Arrays.copyOf(m_objects, capacity);
+        m_versions = Arrays.copyOf(m_versions, capacity);
+    }
+
+}
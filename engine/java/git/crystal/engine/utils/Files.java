@@ -1,8 +1,20 @@
 package git.crystal.engine.utils;
 
 import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32C;
 
 /**
  * Handles everything that has to do with File related operations within our Game Engine.
@@ -14,6 +26,9 @@ import java.util.List;
 
 public class Files {
 
+    // Where resources packed within a jar are extracted to, so they can be memory mapped like any other file
+    private static Path s_ExtractDirectory = Paths.get(System.getProperty("user.home"), ".arcane-crystal", "cache", "extracted");
+
     /**
      * Reads any text file from within our jar and turns it into a String that we can use in our program.
      *
@@ -120,4 +135,165 @@ public class Files {
         return result;
     }
 
+    /**
+     * Reads a whole file into a ByteBuffer without decoding it into Strings. Files on disk are memory mapped,
+     * so the operating system pages them in as we read instead of us copying them onto the heap.
+     *
+     * @param filePath the path of the file we want to read
+     * @param internal whether you want to read this from within the jar file or not
+     * @return the raw bytes of the file
+     */
+    public static ByteBuffer readToBuffer(String filePath, boolean internal) {
+        try {
+            Path path;
+            if(internal) {
+                URL url = Files.class.getResource(filePath);
+                if(url == null)
+                    throw new IOException(String.format("Failed to load file: [%s]", filePath));
+
+                // Resources packed within a jar can't be mapped, so those end up on the heap
+                if(!"file".equals(url.getProtocol())) {
+                    try (InputStream is = url.openStream()) {
+                        return ByteBuffer.wrap(is.readAllBytes());
+                    }
+                }
+
+                path = Paths.get(url.toURI());
+            } else {
+                path = Paths.get(filePath);
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException(String.format("Failed to read file [%s]!", filePath), e);
+        }
+    }
+
+    /**
+     * Memory maps a whole file, so it can be handed to native code without ever being copied onto the heap.
+     * Resources packed within a jar can't be mapped where they are, so the first time one is asked for it is
+     * extracted into our extract directory, and mapped from there from then on.
+     *
+     * @param filePath the path of the file we want to map
+     * @param internal whether you want to read this from within the jar file or not
+     * @return the raw bytes of the file, living outside of the Java heap
+     */
+    public static MappedByteBuffer mapFile(String filePath, boolean internal) {
+        try {
+            Path path;
+            if(internal) {
+                URL url = Files.class.getResource(filePath);
+                if(url == null)
+                    throw new IOException(String.format("Failed to load file: [%s]", filePath));
+
+                path = "file".equals(url.getProtocol()) ? Paths.get(url.toURI()) : extract(filePath, url);
+            } else {
+                path = Paths.get(filePath);
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException(String.format("Failed to map file [%s]!", filePath), e);
+        }
+    }
+
+    /**
+     * Copies a resource out of our jar, unless the copy we made before still has the same size and modified time.
+     * Copies are named after a hash of the resource's whole URL, which holds both the jar it is in and its path
+     * within that jar, so two resources never share a copy.
+     *
+     * @return where the resource was extracted to
+     */
+    private static Path extract(String filePath, URL url) throws IOException {
+        String name = filePath.substring(filePath.lastIndexOf('/') + 1);
+        Path target = s_ExtractDirectory.resolve(String.format("%016x-%s", hash(url.toExternalForm()), name));
+
+        // Asking a connection anything opens it, so the stream it opened has to be closed again either way
+        URLConnection connection = url.openConnection();
+        try (InputStream is = connection.getInputStream()) {
+            long modified = connection.getLastModified(), length = connection.getContentLengthLong();
+
+            if(java.nio.file.Files.isRegularFile(target) && java.nio.file.Files.size(target) == length
+                    && java.nio.file.Files.getLastModifiedTime(target).toMillis() == modified) {
+                return target;
+            }
+
+            // Write to a temporary file first, that way two loads of the same resource never see half a file
+            java.nio.file.Files.createDirectories(target.getParent());
+            Path tempFile = java.nio.file.Files.createTempFile(target.getParent(), name, ".tmp");
+            try {
+                java.nio.file.Files.copy(is, tempFile, StandardCopyOption.REPLACE_EXISTING);
+
+                // Stamped with the resource's time, so a jar that gets replaced by an older build still counts as changed
+                java.nio.file.Files.setLastModifiedTime(tempFile, java.nio.file.attribute.FileTime.fromMillis(modified));
+                java.nio.file.Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                java.nio.file.Files.deleteIfExists(tempFile);
+                throw e;
+            }
+        }
+
+        return target;
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer to a file, without ever leaving half of it behind. Everything goes
+     * into a temporary file of its own next to the target first, which is then moved over the target, so a crash
+     * or two threads writing the same file at once can't tear it.
+     *
+     * @param target the file to write, its directories are created if they don't exist yet
+     * @param data what to write, from its position up to its limit. The buffer itself is left untouched
+     */
+    public static void writeAtomically(Path target, ByteBuffer data) throws IOException {
+        java.nio.file.Files.createDirectories(target.getParent());
+        Path tempFile = java.nio.file.Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer view = data.duplicate();
+                while(view.hasRemaining())
+                    channel.write(view);
+            }
+
+            java.nio.file.Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            java.nio.file.Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Hashes the remaining bytes of a buffer. Two 32-bit checksums of different kinds side by side, which is
+     * plenty to tell our own files apart and fast enough to run over every file on every startup. Not meant to
+     * stand up to anyone crafting collisions on purpose.
+     */
+    public static long hash(ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.duplicate());
+
+        Adler32 adler = new Adler32();
+        adler.update(data.duplicate());
+
+        return (crc.getValue() << 32) | adler.getValue();
+    }
+
+    /**
+     * @see #hash(ByteBuffer)
+     */
+    public static long hash(String value) {
+        return hash(ByteBuffer.wrap(value.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+    }
+
+    public static void setExtractDirectory(Path directory) {
+        s_ExtractDirectory = directory;
+    }
+
+    public static Path getExtractDirectory() {
+        return s_ExtractDirectory;
+    }
+
 }
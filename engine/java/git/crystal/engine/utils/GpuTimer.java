@@ -0,0 +1,164 @@
+package git.crystal.engine.utils;
+
+import org.lwjgl.opengl.GLCapabilities;
+
+import static org.lwjgl.opengl.GL.getCapabilities;
+import static org.lwjgl.opengl.GL11.GL_TRUE;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL33.GL_TIME_ELAPSED;
+import static org.lwjgl.opengl.GL33.glGetQueryObjectui64;
+
+/**
+ * Measures how long the GPU spends on parts of a frame, through GL_TIME_ELAPSED queries. The GPU runs a few
+ * frames behind us, so asking for a result right away would stall until it caught up. Instead every frame gets
+ * its own set of queries out of a ring, and results are only read once the driver says they are available,
+ * usually a couple of frames later.
+ *
+ * If the GPU falls so far behind that we come back around to a frame whose results still aren't in, that frame
+ * is dropped rather than waited on, see {@link #getDroppedFrames()}.
+ *
+ * Only one GL_TIME_ELAPSED query can run at a time, so scopes can't nest. A scope started while another one is
+ * running is simply not measured.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class GpuTimer {
+
+    private final int m_FrameCount, m_QueriesPerFrame;
+    // Every query of every frame, the queries of frame f start at f * m_QueriesPerFrame
+    private final int[] m_Queries;
+    private final String[] m_Names;
+    private final long[] m_CpuStarts;
+    private final int[] m_Used;
+    private final boolean[] m_Pending;
+
+    private int m_frame;
+    private boolean m_active;
+    private long m_droppedFrames;
+
+    /**
+     * @param framesInFlight how many frames we keep queries around for before we would have to wait on them
+     * @param queriesPerFrame how many scopes a single frame can measure
+     */
+    public GpuTimer(int framesInFlight, int queriesPerFrame) {
+        m_FrameCount = Math.max(framesInFlight, 2);
+        m_QueriesPerFrame = Math.max(queriesPerFrame, 1);
+
+        m_Queries = new int[m_FrameCount * m_QueriesPerFrame];
+        glGenQueries(m_Queries);
+
+        m_Names = new String[m_Queries.length];
+        m_CpuStarts = new long[m_Queries.length];
+        m_Used = new int[m_FrameCount];
+        m_Pending = new boolean[m_FrameCount];
+    }
+
+    /**
+     * @return whether this context has timer queries
+     */
+    public static boolean isSupported() {
+        GLCapabilities caps = getCapabilities();
+        return caps.OpenGL33 || caps.GL_ARB_timer_query;
+    }
+
+    /**
+     * Hands every result that came in since the last frame to the listener, then moves on to the next frame's
+     * queries. Nothing here waits on the GPU.
+     */
+    public void beginFrame(Listener listener) {
+        if(m_active) {
+            glEndQuery(GL_TIME_ELAPSED);
+            m_active = false;
+        }
+
+        // The frame that just ended is usually still in flight, but older ones may be done by now
+        for(int i = 1; i <= m_FrameCount; i++) {
+            int frame = (m_frame + i) % m_FrameCount;
+            if(m_Pending[frame])
+                collect(frame, listener);
+        }
+
+        m_frame = (m_frame + 1) % m_FrameCount;
+        if(m_Pending[m_frame]) {
+            m_Pending[m_frame] = false;
+            m_droppedFrames++;
+        }
+
+        m_Used[m_frame] = 0;
+    }
+
+    /**
+     * Starts measuring a scope.
+     *
+     * @param name what to call the scope
+     * @param cpuStart when the scope started on our side, in System.nanoTime, handed back with its result
+     * @return whether the scope is being measured, only then should {@link #end()} be called for it
+     */
+    public boolean begin(String name, long cpuStart) {
+        if(m_active || m_Used[m_frame] == m_QueriesPerFrame)
+            return false;
+
+        int query = m_frame * m_QueriesPerFrame + m_Used[m_frame]++;
+        m_Names[query] = name;
+        m_CpuStarts[query] = cpuStart;
+
+        glBeginQuery(GL_TIME_ELAPSED, m_Queries[query]);
+        m_Pending[m_frame] = true;
+        m_active = true;
+
+        return true;
+    }
+
+    public void end() {
+        if(!m_active)
+            return;
+
+        glEndQuery(GL_TIME_ELAPSED);
+        m_active = false;
+    }
+
+    /**
+     * Reads the results of a frame, but only if every one of them is available.
+     */
+    private void collect(int frame, Listener listener) {
+        int first = frame * m_QueriesPerFrame;
+        int last = first + m_Used[frame] - 1;
+
+        // Queries finish in order, so once the last is available so are all the others
+        if(last >= first && glGetQueryObjecti(m_Queries[last], GL_QUERY_RESULT_AVAILABLE) != GL_TRUE)
+            return;
+
+        for(int query = first; query <= last; query++)
+            listener.onResult(m_Names[query], m_CpuStarts[query], glGetQueryObjectui64(m_Queries[query], GL_QUERY_RESULT));
+
+        m_Pending[frame] = false;
+    }
+
+    public void cleanup() {
+        if(m_active)
+            glEndQuery(GL_TIME_ELAPSED);
+
+        glDeleteQueries(m_Queries);
+    }
+
+    /**
+     * @return how many frames went unmeasured because the GPU was too far behind to read them in time
+     */
+    public long getDroppedFrames() {
+        return m_droppedFrames;
+    }
+
+    public interface Listener {
+
+        /**
+         * @param name the name of the scope
+         * @param cpuStart when the scope started on our side, in System.nanoTime
+         * @param gpuNanos how long the GPU spent on it
+         */
+        void onResult(String name, long cpuStart, long gpuNanos);
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package git.crystal.engine.utils;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of primitive ints. Unlike a List of Integers, nothing here gets boxed, so filling it
+ * with millions of values only ever allocates when the backing array needs to grow.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class IntArray {
+
+    private int[] m_items;
+    private int m_size;
+
+    public IntArray() {
+        this(16);
+    }
+
+    public IntArray(int capacity) {
+        m_items = new int[Math.max(capacity, 1)];
+        m_size = 0;
+    }
+
+    public void add(int value) {
+        if(m_size == m_items.length)
+            grow(m_size + 1);
+
+        m_items[m_size++] = value;
+    }
+
+    public void add(int x, int y) {
+        if(m_size + 2 > m_items.length)
+            grow(m_size + 2);
+
+        m_items[m_size++] = x;
+        m_items[m_size++] = y;
+    }
+
+    public void add(int x, int y, int z) {
+        if(m_size + 3 > m_items.length)
+            grow(m_size + 3);
+
+        m_items[m_size++] = x;
+        m_items[m_size++] = y;
+        m_items[m_size++] = z;
+    }
+
+    public void addAll(IntArray other) {
+        ensureCapacity(m_size + other.m_size);
+        System.arraycopy(other.m_items, 0, m_items, m_size, other.m_size);
+        m_size += other.m_size;
+    }
+
+    public int get(int index) {
+        if(index >= m_size)
+            throw new IndexOutOfBoundsException(String.format("Index %d is out of bounds for size %d", index, m_size));
+
+        return m_items[index];
+    }
+
+    public void set(int index, int value) {
+        if(index >= m_size)
+            throw new IndexOutOfBoundsException(String.format("Index %d is out of bounds for size %d", index, m_size));
+
+        m_items[index] = value;
+    }
+
+    /**
+     * Removes the last value and returns it.
+     */
+    public int pop() {
+        if(m_size == 0)
+            throw new IndexOutOfBoundsException("Can't pop from an empty IntArray");
+
+        return m_items[--m_size];
+    }
+
+    public void ensureCapacity(int capacity) {
+        if(capacity > m_items.length)
+            grow(capacity);
+    }
+
+    public void clear() {
+        m_size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(m_items, m_size);
+    }
+
+    /**
+     * Gives direct access to the backing array, only the first {@link #size()} values are valid.
+     */
+    public int[] items() {
+        return m_items;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(m_items.length + (m_items.length >> 1), minCapacity);
+        m_items = Arrays.copyOf(m_items, capacity);
+    }
+
+}
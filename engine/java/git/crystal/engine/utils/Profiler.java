@@ -0,0 +1,501 @@
+package git.crystal.engine.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures where the time of every frame goes. Work is wrapped in named scopes, which nest, and are kept apart
+ * per thread:
+ * <pre>
+ *   try(Profiler.Scope scope = Profiler.Instance().scope("physics")) {
+ *       // ...
+ *   }
+ * </pre>
+ *
+ * Every scope keeps a rolling window of its last durations, which {@link #getStats(String)} turns into a min,
+ * average and 99th percentile. Scopes started with {@link #gpuScope(String)} are measured on the GPU as well,
+ * those results arrive a few frames late and show up under the name of the scope followed by " (GPU)", see
+ * {@link GpuTimer}.
+ *
+ * Counters keep a running total of anything worth counting, like draw calls, see {@link #count(String, long)}.
+ *
+ * {@link #captureTrace(int, Path)} records every scope of the next few frames and writes them out in the Chrome
+ * trace event format, which chrome://tracing and Perfetto can open.
+ *
+ * @author Tahnner Shambaugh (ArcaneSunku)
+ * @date 10/17/2026
+ */
+
+public class Profiler {
+
+    public static final String FRAME = "frame";
+    public static final String GPU_SUFFIX = " (GPU)";
+
+    // How many of the latest durations of every scope we keep for its stats
+    public static final int WINDOW = 240;
+
+    private static final int GPU_FRAMES_IN_FLIGHT = 4, GPU_SCOPES_PER_FRAME = 16;
+    private static final int MAX_DEPTH = 32;
+
+    private static Profiler s_Instance = null;
+    public static Profiler Instance() {
+        if(s_Instance == null)
+            s_Instance = new Profiler();
+
+        return s_Instance;
+    }
+
+    private final Map<String, Stat> m_Stats;
+    private final Map<String, LongAdder> m_Counters;
+    private final ThreadLocal<ThreadState> m_Threads;
+    private final long m_Epoch;
+
+    // Everything recorded while capturing, and the name of every thread that recorded something
+    private final List<TraceEvent> m_Trace;
+    private final Map<Long, String> m_ThreadNames;
+
+    private GpuTimer m_gpuTimer;
+    private Path m_tracePath;
+    private long m_frameCount;
+
+    private volatile boolean mv_enabled;
+    private volatile boolean mv_gpuEnabled;
+    private volatile int mv_captureFrames;
+
+    private Profiler() {
+        m_Stats = new ConcurrentHashMap<>();
+        m_Counters = new ConcurrentHashMap<>();
+        m_Threads = ThreadLocal.withInitial(ThreadState::new);
+        m_Epoch = System.nanoTime();
+
+        m_Trace = new ArrayList<>();
+        m_ThreadNames = new HashMap<>();
+
+        mv_enabled = true;
+        mv_gpuEnabled = true;
+    }
+
+    /**
+     * Starts a scope on the calling thread, which lasts until the matching {@link #end()}.
+     */
+    public void begin(String name) {
+        begin(name, false);
+    }
+
+    /**
+     * Starts a scope that is measured on the GPU as well. Only call this on the thread that renders.
+     */
+    public void beginGpu(String name) {
+        begin(name, true);
+    }
+
+    private void begin(String name, boolean gpu) {
+        ThreadState thread = m_Threads.get();
+        if(!mv_enabled || thread.m_depth == MAX_DEPTH) {
+            if(mv_enabled)
+                System.err.printf("Profiler scope [%s] is nested too deep, ignoring it!%n", name);
+
+            // Its end still comes, and has to know not to end whichever scope is around it
+            thread.m_ignored++;
+            return;
+        }
+
+        int depth = thread.m_depth++;
+        long start = System.nanoTime();
+        thread.m_Names[depth] = name;
+        thread.m_Starts[depth] = start;
+        thread.m_Gpu[depth] = gpu && m_gpuTimer != null && m_gpuTimer.begin(name, start);
+    }
+
+    /**
+     * Ends the scope started last on the calling thread.
+     */
+    public void end() {
+        ThreadState thread = m_Threads.get();
+        if(thread.m_ignored > 0) {
+            thread.m_ignored--;
+            return;
+        }
+
+        if(thread.m_depth == 0) {
+            System.err.println("Profiler.end was called without a scope to end!");
+            return;
+        }
+
+        int depth = --thread.m_depth;
+        long duration = System.nanoTime() - thread.m_Starts[depth];
+        if(thread.m_Gpu[depth])
+            m_gpuTimer.end();
+
+        record(thread.m_Names[depth], duration);
+        if(mv_captureFrames > 0)
+            trace(thread.m_Names[depth], thread.m_Id, thread.m_Name, thread.m_Starts[depth], duration);
+    }
+
+    /**
+     * Starts a scope that ends once the returned Scope is closed, made for try-with-resources. The same Scope is
+     * handed out every time on a thread, so this never allocates.
+     */
+    public Scope scope(String name) {
+        begin(name, false);
+        return m_Threads.get().m_Scope;
+    }
+
+    /**
+     * Same as {@link #scope(String)}, but measured on the GPU as well.
+     */
+    public Scope gpuScope(String name) {
+        begin(name, true);
+        return m_Threads.get().m_Scope;
+    }
+
+    /**
+     * Starts a new frame, call this on the thread that renders with our context current. Results of earlier
+     * frames that the GPU is done with are picked up here.
+     */
+    public void beginFrame() {
+        if(mv_enabled && m_gpuTimer == null && mv_gpuEnabled && GpuTimer.isSupported())
+            m_gpuTimer = new GpuTimer(GPU_FRAMES_IN_FLIGHT, GPU_SCOPES_PER_FRAME);
+
+        if(mv_enabled && m_gpuTimer != null)
+            m_gpuTimer.beginFrame(this::recordGpu);
+
+        begin(FRAME, false);
+    }
+
+    /**
+     * Ends the frame started by {@link #beginFrame()}, every scope within it has to be ended by now.
+     */
+    public void endFrame() {
+        end();
+        m_frameCount++;
+
+        if(mv_captureFrames > 0 && --mv_captureFrames == 0 && m_tracePath != null) {
+            writeTrace(m_tracePath);
+            m_tracePath = null;
+        }
+    }
+
+    private void recordGpu(String name, long cpuStart, long gpuNanos) {
+        record(name + GPU_SUFFIX, gpuNanos);
+
+        if(mv_captureFrames > 0)
+            trace(name, -1, "GPU", cpuStart, gpuNanos);
+    }
+
+    private void record(String name, long nanos) {
+        m_Stats.computeIfAbsent(name, Stat::new).add(nanos);
+    }
+
+    private void trace(String name, long threadId, String threadName, long start, long duration) {
+        synchronized(m_Trace) {
+            m_Trace.add(new TraceEvent(name, threadId, start - m_Epoch, duration));
+            m_ThreadNames.putIfAbsent(threadId, threadName);
+        }
+    }
+
+    /**
+     * Records every scope of the next few frames, then writes them to a file, see {@link #writeTrace(Path)}.
+     * GPU results come in a few frames late, so the GPU side of the last frames won't make it in.
+     *
+     * @param frames how many frames to record
+     * @param path where to write the trace to once we're done, or null to write it yourself
+     */
+    public void captureTrace(int frames, Path path) {
+        synchronized(m_Trace) {
+            m_Trace.clear();
+            m_ThreadNames.clear();
+        }
+
+        m_tracePath = path;
+        mv_captureFrames = Math.max(frames, 0);
+    }
+
+    public boolean isCapturing() {
+        return mv_captureFrames > 0;
+    }
+
+    /**
+     * Writes everything recorded by the last capture as a Chrome trace. Failing to write is not fatal.
+     */
+    public void writeTrace(Path path) {
+        StringBuilder json = new StringBuilder("{\"traceEvents\":[\n");
+
+        synchronized(m_Trace) {
+            for(Map.Entry<Long, String> thread : m_ThreadNames.entrySet()) {
+                json.append(String.format(Locale.ROOT, "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"args\":{\"name\":\"%s\"}},%n",
+                        thread.getKey(), escape(thread.getValue())));
+            }
+
+            for(TraceEvent event : m_Trace) {
+                json.append(String.format(Locale.ROOT, "{\"name\":\"%s\",\"cat\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,\"dur\":%.3f},%n",
+                        escape(event.m_Name), event.m_ThreadId < 0 ? "gpu" : "cpu", event.m_ThreadId, event.m_Start / 1e3, event.m_Duration / 1e3));
+            }
+        }
+
+        // Trailing commas aren't valid JSON, and an empty object at the end is simpler than keeping track of them
+        json.append("{}\n]}\n");
+
+        try {
+            if(path.getParent() != null)
+                Files.createDirectories(path.getParent());
+
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                writer.write(json.toString());
+            }
+        } catch (IOException e) {
+            System.err.printf("Failed to write profiler trace [%s]: %s%n", path, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the stats of a scope, or null if it never ended
+     */
+    public Stats getStats(String name) {
+        Stat stat = m_Stats.get(name);
+        return stat == null ? null : stat.snapshot();
+    }
+
+    /**
+     * @return the stats of every scope, sorted by name
+     */
+    public Map<String, Stats> getAllStats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        for(Map.Entry<String, Stat> stat : m_Stats.entrySet())
+            stats.put(stat.getKey(), stat.getValue().snapshot());
+
+        return stats;
+    }
+
+    /**
+     * @return the stats of every scope, one per line
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for(Stats stats : getAllStats().values())
+            report.append(stats).append(System.lineSeparator());
+
+        return report.toString();
+    }
+
+    /**
+     * Adds to a counter, from any thread.
+     */
+    public void count(String name, long amount) {
+        if(mv_enabled)
+            m_Counters.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+    }
+
+    /**
+     * @return everything added to a counter since it was last reset
+     */
+    public long getCount(String name) {
+        LongAdder counter = m_Counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Forgets the stats of every scope and the total of every counter.
+     */
+    public void reset() {
+        m_Stats.clear();
+        m_Counters.clear();
+    }
+
+    public void cleanup() {
+        if(m_gpuTimer != null)
+            m_gpuTimer.cleanup();
+
+        m_gpuTimer = null;
+    }
+
+    public void setEnabled(boolean enabled) {
+        mv_enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return mv_enabled;
+    }
+
+    /**
+     * Turns measuring on the GPU on or off. Turning it off only takes effect before the first frame.
+     */
+    public void setGpuEnabled(boolean gpuEnabled) {
+        mv_gpuEnabled = gpuEnabled;
+    }
+
+    public long getFrameCount() {
+        return m_frameCount;
+    }
+
+    /**
+     * @return how many frames the GPU side couldn't measure, see {@link GpuTimer#getDroppedFrames()}
+     */
+    public long getDroppedGpuFrames() {
+        return m_gpuTimer == null ? 0 : m_gpuTimer.getDroppedFrames();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Ends the scope it was handed out for once closed.
+     */
+    public class Scope implements AutoCloseable {
+
+        private Scope() { }
+
+        @Override
+        public void close() {
+            end();
+        }
+
+    }
+
+    /**
+     * The min, average and 99th percentile of the latest durations of a single scope, all in milliseconds.
+     */
+    public static class Stats {
+
+        private final String m_Name;
+        private final long m_Count;
+        private final double m_Min, m_Average, m_P99, m_Max, m_Last;
+
+        private Stats(String name, long count, double min, double average, double p99, double max, double last) {
+            m_Name = name;
+            m_Count = count;
+            m_Min = min;
+            m_Average = average;
+            m_P99 = p99;
+            m_Max = max;
+            m_Last = last;
+        }
+
+        public String getName() {
+            return m_Name;
+        }
+
+        /**
+         * @return how many times the scope ended in total, not only within our window
+         */
+        public long getCount() {
+            return m_Count;
+        }
+
+        public double getMin() {
+            return m_Min;
+        }
+
+        public double getAverage() {
+            return m_Average;
+        }
+
+        public double getP99() {
+            return m_P99;
+        }
+
+        public double getMax() {
+            return m_Max;
+        }
+
+        public double getLast() {
+            return m_Last;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-32s min %7.3f  avg %7.3f  p99 %7.3f  max %7.3f ms", m_Name, m_Min, m_Average, m_P99, m_Max);
+        }
+
+    }
+
+    /**
+     * The rolling window of durations behind a scope's Stats.
+     */
+    private static class Stat {
+
+        private final String m_Name;
+        private final long[] m_Samples;
+        private long m_count;
+
+        public Stat(String name) {
+            m_Name = name;
+            m_Samples = new long[WINDOW];
+        }
+
+        public synchronized void add(long nanos) {
+            m_Samples[(int) (m_count % WINDOW)] = nanos;
+            m_count++;
+        }
+
+        public synchronized Stats snapshot() {
+            int size = (int) Math.min(m_count, WINDOW);
+
+            // We're published before our first sample is added, so another thread can catch us empty
+            if(size == 0)
+                return new Stats(m_Name, 0, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+            long[] sorted = Arrays.copyOf(m_Samples, size);
+            Arrays.sort(sorted);
+
+            long sum = 0;
+            for(long sample : sorted)
+                sum += sample;
+
+            long last = m_Samples[(int) ((m_count - 1) % WINDOW)];
+            int p99 = Math.min((int) Math.ceil(size * 0.99) - 1, size - 1);
+
+            return new Stats(m_Name, m_count, sorted[0] / 1e6, sum / 1e6 / size, sorted[Math.max(p99, 0)] / 1e6, sorted[size - 1] / 1e6, last / 1e6);
+        }
+
+    }
+
+    private class ThreadState {
+
+        private final long m_Id;
+        private final String m_Name;
+        private final String[] m_Names;
+        private final long[] m_Starts;
+        private final boolean[] m_Gpu;
+        private final Scope m_Scope;
+        private int m_depth, m_ignored;
+
+        public ThreadState() {
+            m_Id = Thread.currentThread().getId();
+            m_Name = Thread.currentThread().getName();
+            m_Names = new String[MAX_DEPTH];
+            m_Starts = new long[MAX_DEPTH];
+            m_Gpu = new boolean[MAX_DEPTH];
+            m_Scope = new Scope();
+        }
+
+    }
+
+    private static class TraceEvent {
+
+        private final String m_Name;
+        private final long m_ThreadId, m_Start, m_Duration;
+
+        public TraceEvent(String name, long threadId, long start, long duration) {
+            m_Name = name;
+            m_ThreadId = threadId;
+            m_Start = start;
+            m_Duration = duration;
+        }
+
+    }
+
+}
@@ -37,6 +37,10 @@ public class Timer {
         _fpsCount++;
     }
 
+    public void updateFPS(int frames) {
+        _fpsCount += frames;
+    }
+
     public void updateUPS() {
         _upsCount++;
     }
@@ -1,20 +1,24 @@
 package git.crystal.example;
 
+import git.crystal.engine.Benchmark;
 import git.crystal.engine.CrystalEngine;
 import git.crystal.engine.GameObject;
 import git.crystal.engine.IGame;
+import git.crystal.engine.assets.ResourceCache;
 import git.crystal.engine.input.KeyboardInput;
 import git.crystal.engine.input.MouseInput;
 import git.crystal.engine.render.mesh.Mesh;
+import git.crystal.engine.render.RenderSnapshot;
 import git.crystal.engine.render.Renderer;
-import git.crystal.engine.render.Shader;
-import git.crystal.engine.render.Texture;
-import git.crystal.engine.render.mesh.OBJLoader;
+import git.crystal.engine.render.ShaderVariants;
+import git.crystal.engine.render.atlas.TextureAtlas;
 import git.crystal.engine.render.ui.Window;
 import git.crystal.engine.render.util.Camera;
+import git.crystal.engine.scene.SceneGraph;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,48 +30,66 @@ public class Example implements IGame {
 
     private static final float MOUSE_SENSITIVITY = 5f;
     private static final float CAMERA_SPEED = 2f;
+    // How many planes wide and deep the benchmark's grid is
+    private static final int BENCHMARK_GRID = 48;
 
     private final Camera m_Camera;
     private final List<GameObject> m_Objects;
+    private final SceneGraph m_Scene;
     private final Renderer m_Renderer;
+    private final ShaderVariants m_Shaders;
     public final Window.Settings m_Settings;
 
 
-    private final Map<String, Mesh> m_MeshMap;
+    private final Map<String, ResourceCache.Handle<Mesh>> m_MeshMap;
+    private final TextureAtlas m_Atlas;
 
     GameObject testObj1;
 
+    private boolean m_benchmark;
+    private float m_benchmarkTime;
+
     private Example() {
-        final Shader shader = new Shader("/assets/shaders/basic.vert", "/assets/shaders/basic.frag");
+        // One pair of files for both of our Shaders, the instanced one gets INSTANCED defined
+        m_Shaders = new ShaderVariants("/assets/shaders/mesh.vert", "/assets/shaders/mesh.frag", "INSTANCED");
 
         m_Camera = new Camera();
-        m_Renderer = new Renderer(shader);
+        m_Renderer = new Renderer(m_Shaders.get(), m_Shaders.get("INSTANCED"));
         m_Settings = new Window.Settings();
 
         m_Settings.title = "Arcane Crystal | v0.03 InDev";
         m_Settings.useVSync = true;
 
         m_Objects = new ArrayList<>();
+        m_Scene = new SceneGraph();
         m_MeshMap = new HashMap<>();
+        m_Atlas = new TextureAtlas(1024, 4);
     }
 
     @Override
     public void initialize() {
-        m_MeshMap.put("Plane", OBJLoader.loadInternalMesh("/assets/models/plane.obj"));
+        // Lets the driver compile our Shaders while we load everything else, the engine finishes them as they come in
+        // and the Renderer only waits on one if it has to draw with it first
+        m_Shaders.submit();
+
+        m_MeshMap.put("Plane", ResourceCache.Instance().loadInternalMesh("/assets/models/plane.obj"));
 
-        m_Renderer.initialize();
         m_Camera.movePosition(0, 0, 1);
 
-        final Texture verosikaTexture = Texture.loadInternalTexture("/assets/textures/verosikaFanArt.jpg");
-        final Texture gaiaTexture = Texture.loadInternalTexture("/assets/textures/gaiaOnlineAvi.png");
+        // Both images share one atlas, which lets both planes be drawn with a single instanced draw
+        m_Atlas.add("Verosika", "/assets/textures/verosikaFanArt.jpg", true);
+        m_Atlas.add("Gaia", "/assets/textures/gaiaOnlineAvi.png", true);
+        m_Atlas.create();
+
+        m_Renderer.initialize();
 
-        final Mesh verosikaMesh = new Mesh(m_MeshMap.get("Plane"));
-        final Mesh gaiaMesh = new Mesh(m_MeshMap.get("Plane"));
+        final Mesh verosikaMesh = new Mesh(m_MeshMap.get("Plane").get());
+        final Mesh gaiaMesh = new Mesh(m_MeshMap.get("Plane").get());
 
-        verosikaMesh.setTexture(verosikaTexture);
+        verosikaMesh.setAtlasRegion(m_Atlas.getRegion("Verosika"));
         verosikaMesh.setUseTexture(true);
 
-        gaiaMesh.setTexture(gaiaTexture);
+        gaiaMesh.setAtlasRegion(m_Atlas.getRegion("Gaia"));
         gaiaMesh.setUseTexture(true);
         gaiaMesh.setColor(0.5f, 0.25f, 0.5f);
 
@@ -79,25 +101,67 @@ public class Example implements IGame {
 
         m_Objects.add(testObj1);
         m_Objects.add(testObj2);
+
+        if(m_benchmark)
+            createBenchmarkScene();
+
+        for(GameObject object : m_Objects)
+            m_Scene.add(object, SceneGraph.ROOT);
+    }
+
+    /**
+     * Fills the scene with a grid of planes, plenty of them behind the camera at any time so culling has work too.
+     */
+    private void createBenchmarkScene() {
+        String[] regions = { "Verosika", "Gaia" };
+
+        for(int x = 0; x < BENCHMARK_GRID; x++) {
+            for(int z = 0; z < BENCHMARK_GRID; z++) {
+                final Mesh mesh = new Mesh(m_MeshMap.get("Plane").get());
+                mesh.setAtlasRegion(m_Atlas.getRegion(regions[(x + z) % regions.length]));
+                mesh.setUseTexture(true);
+                mesh.setColor((float) x / BENCHMARK_GRID, 0.5f, (float) z / BENCHMARK_GRID);
+
+                final GameObject object = new GameObject(mesh);
+                object.setPosition((x - BENCHMARK_GRID / 2f) * 1.5f, 0, (z - BENCHMARK_GRID / 2f) * -1.5f - 4);
+                m_Objects.add(object);
+            }
+        }
+    }
+
+    /**
+     * Moves the camera along the same path every run, so every run of the benchmark sees the same frames.
+     */
+    private void updateBenchmark(float deltaTime) {
+        m_benchmarkTime += deltaTime;
+
+        float sweep = (float) Math.sin(m_benchmarkTime * 0.5f);
+        m_Camera.setPosition(sweep * 12f, 2f, 4f - (float) Math.cos(m_benchmarkTime * 0.25f) * 8f);
+        m_Camera.setRotation(10f, sweep * 60f, 0);
     }
 
     private final Vector3f cameraInc = new Vector3f(0, 0, 0);
     @Override
     public void update(float deltaTime) {
+        if(m_benchmark) {
+            updateBenchmark(deltaTime);
+            return;
+        }
+
         cameraInc.set(0, 0, 0);
 
         if(KeyboardInput.isKeyPressed(GLFW_KEY_ESCAPE))
             Window.Instance().closeWindow();
 
         if(KeyboardInput.isKeyPressed(GLFW_KEY_UP))
-            testObj1.getPosition().z -= 1 * deltaTime;
+            testObj1.movePosition(0, 0, -1 * deltaTime);
         else if(KeyboardInput.isKeyPressed(GLFW_KEY_DOWN))
-            testObj1.getPosition().z += 1 * deltaTime;
+            testObj1.movePosition(0, 0, 1 * deltaTime);
 
         if(KeyboardInput.isKeyPressed(GLFW_KEY_LEFT))
-            testObj1.getPosition().x -= 1 * deltaTime;
+            testObj1.movePosition(-1 * deltaTime, 0, 0);
         else if(KeyboardInput.isKeyPressed(GLFW_KEY_RIGHT))
-            testObj1.getPosition().x += 1 * deltaTime;
+            testObj1.movePosition(1 * deltaTime, 0, 0);
 
         if(KeyboardInput.isKeyPressed(GLFW_KEY_W))
             cameraInc.z = -1;
@@ -126,21 +190,62 @@ public class Example implements IGame {
 
     @Override
     public void render(float alpha) {
-        m_Renderer.draw(m_Objects, m_Camera);
+        m_Renderer.draw(m_Scene, m_Camera);
+    }
+
+    @Override
+    public void snapshot(RenderSnapshot snapshot) {
+        // The same scene render(alpha) draws, world matrices and all
+        m_Scene.update();
+
+        snapshot.setCamera(m_Camera);
+        snapshot.add(m_Scene);
+    }
+
+    @Override
+    public void render(RenderSnapshot previous, RenderSnapshot current, float alpha) {
+        m_Renderer.draw(previous, current, alpha);
     }
 
     @Override
     public void dispose() {
-        for(GameObject object : m_Objects) {
+        // Our copies share the buffers of the cached Plane, which are deleted once the last of them lets go
+        for(GameObject object : m_Objects)
             object.getMesh().cleanup();
-            object.getMesh().getTexture().cleanup();
-        }
+
+        for(ResourceCache.Handle<Mesh> mesh : m_MeshMap.values())
+            mesh.release();
+
+        m_Atlas.cleanup();
 
         m_Renderer.cleanup();
     }
 
+    /**
+     * Runs the game, or benchmarks it with --benchmark. A benchmark takes --frames [count], --report [path] and
+     * --context [egl|osmesa] to run on a machine without a display.
+     */
     public static void main(String[] args) {
         final Example game = new Example();
-        new CrystalEngine(game.m_Settings).start(game);
+
+        int frames = 1000;
+        Path report = Path.of("benchmark.json");
+
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "--benchmark" -> game.m_benchmark = true;
+                case "--frames" -> frames = Integer.parseInt(args[++i]);
+                case "--report" -> report = Path.of(args[++i]);
+                case "--context" -> game.m_Settings.contextApi = "osmesa".equalsIgnoreCase(args[++i]) ? GLFW_OSMESA_CONTEXT_API : GLFW_EGL_CONTEXT_API;
+                default -> System.err.printf("Unknown argument [%s]!%n", args[i]);
+            }
+        }
+
+        final CrystalEngine engine = new CrystalEngine(game.m_Settings);
+        if(game.m_benchmark) {
+            engine.setBenchmark(new Benchmark(frames, report));
+        }
+
+        engine.start(game);
     }
 }
@@ -0,0 +1,6 @@
+// Shared by every program through one UniformBuffer, see Renderer.FRAME_BLOCK
+layout (std140) uniform FrameData
+{
+    mat4 uProjectionMatrix;
+    mat4 uViewMatrix;
+};
@@ -0,0 +1,20 @@
+uniform sampler2D uTextureSampler;
+uniform sampler2DArray uTextureArraySampler;
+// 0 for no texture, 1 for uTextureSampler and 2 for uTextureArraySampler
+uniform int uUseTexture;
+
+vec4 sampleTexture(vec2 textureCoords, float layer)
+{
+    if(uUseTexture == 0)
+    {
+        return vec4(1.0);
+    }
+    else if(uUseTexture == 1)
+    {
+        return texture(uTextureSampler, textureCoords);
+    }
+    else
+    {
+        return texture(uTextureArraySampler, vec3(textureCoords, layer));
+    }
+}
@@ -0,0 +1,25 @@
+#version 330 core
+
+in vec2 fTextureCoords;
+in float fLayer;
+
+#ifdef INSTANCED
+in vec3 fColor;
+#else
+uniform vec3 uColor;
+#endif
+
+#include "common/texturing.glsl"
+
+out vec4 oColor;
+
+void main()
+{
+#ifdef INSTANCED
+    vec3 color = fColor;
+#else
+    vec3 color = uColor;
+#endif
+
+    oColor = vec4(color, 1.0) * sampleTexture(fTextureCoords, fLayer);
+}
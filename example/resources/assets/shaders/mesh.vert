@@ -0,0 +1,38 @@
+#version 330 core
+
+layout (location=0) in vec3 aPosition;
+layout (location=1) in vec2 aTextureCoords;
+
+#ifdef INSTANCED
+layout (location=3) in mat4 aModelMatrix;
+layout (location=7) in vec3 aColor;
+layout (location=8) in float aLayer;
+// Scale and offset of our texture coordinates within an atlas, (1, 1, 0, 0) without one
+layout (location=9) in vec4 aUvTransform;
+
+out vec3 fColor;
+#else
+uniform mat4 uModelViewMatrix;
+// Scale and offset of our texture coordinates within an atlas, (1, 1, 0, 0) without one
+uniform vec4 uUvTransform;
+uniform float uLayer;
+#endif
+
+#include "common/frame_data.glsl"
+
+out vec2 fTextureCoords;
+out float fLayer;
+
+void main()
+{
+#ifdef INSTANCED
+    gl_Position = uProjectionMatrix * uViewMatrix * aModelMatrix * vec4(aPosition, 1.0);
+    fTextureCoords = aTextureCoords * aUvTransform.xy + aUvTransform.zw;
+    fColor = aColor;
+    fLayer = aLayer;
+#else
+    gl_Position = uProjectionMatrix * uModelViewMatrix * vec4(aPosition, 1.0);
+    fTextureCoords = aTextureCoords * uUvTransform.xy + uUvTransform.zw;
+    fLayer = uLayer;
+#endif
+}